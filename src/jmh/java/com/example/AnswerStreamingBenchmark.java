@@ -0,0 +1,88 @@
+package com.example;
+
+import com.example.dto.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading the answers of a question with very many answers at once ({@code allAnswers}), in pages passed to
+ * a consumer ({@code forEachAnswer}) and only one page as the console shows it ({@code page}), starting at a random
+ * position, so H2 cannot reuse the result of the previous query. The answer cache of the DAO is bypassed, so every
+ * read reaches H2.
+ * Run with {@code -prof gc} to compare the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dapp.log.level=OFF", "-Xmx2g"})
+public class AnswerStreamingBenchmark {
+    private static final String QUESTION = "Which answers are there?";
+
+    @Param({"file"})
+    public String storage;
+
+    @Param({"200000"})
+    public int answers;
+
+    private ConnectionPool pool;
+    private DAO dao;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = BenchmarkDatabase.open(storage, "answer-streaming", 0, 4);
+        try (ConnectionPool.Lease lease = pool.acquire();
+             Statement stmt = lease.connection().createStatement()) {
+            stmt.execute("INSERT INTO questions (question_text) VALUES ('" + QUESTION + "')");
+            stmt.execute("INSERT INTO answers (answer_text) "
+                    + "SELECT 'Answer ' || X FROM SYSTEM_RANGE(1, " + answers + ") ORDER BY X");
+            stmt.execute("INSERT INTO question_answers (question_id, answer_id, answer_position) "
+                    + "SELECT q.id, a.id, ROW_NUMBER() OVER (ORDER BY a.id) - 1 "
+                    + "FROM questions q, answers a WHERE q.question_text = '" + QUESTION + "' "
+                    + "AND a.answer_text LIKE 'Answer %'");
+        }
+        dao = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        BenchmarkDatabase.close(pool);
+    }
+
+    @Benchmark
+    public List<Answer> allAnswers() {
+        return dao.getAnswersForQuestionText(QUESTION);
+    }
+
+    @Benchmark
+    public boolean forEachAnswer(Blackhole blackhole) {
+        return dao.forEachAnswer(QUESTION, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<Answer> page() {
+        return dao.getAnswersAfter(QUESTION, random.nextInt(answers) - 1, AppService.DEFAULT_ANSWER_PAGE_SIZE);
+    }
+}
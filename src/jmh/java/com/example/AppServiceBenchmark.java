@@ -0,0 +1,87 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.AskResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures complete console commands, from classifying the line to the rendered reply,
+ * against an in-memory database with 100,000 questions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class AppServiceBenchmark {
+    private static final int QUESTIONS = 100_000;
+
+    private ConnectionPool pool;
+    private AppService appService;
+    private final AtomicLong addedQuestions = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = BenchmarkDatabase.open("mem", "app-service", QUESTIONS, 16);
+        appService = new AppService(new DAO(pool, new AnswerCache()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        BenchmarkDatabase.close(pool);
+    }
+
+    @Benchmark
+    public String askKnownQuestion() throws IOException, SQLException {
+        return run(BenchmarkDatabase.questionText(QUESTIONS / 2));
+    }
+
+    @Benchmark
+    public String askUnknownQuestion() throws IOException, SQLException {
+        return run("Is this question stored?");
+    }
+
+    @Benchmark
+    public String addQuestion() throws IOException, SQLException {
+        return run("Added question " + addedQuestions.incrementAndGet() + "? \"Yes\" \"No\" \"Maybe\"");
+    }
+
+    @Benchmark
+    public String addStoredQuestion() throws IOException, SQLException {
+        return run(BenchmarkDatabase.questionText(QUESTIONS / 2) + " \"Yes\"");
+    }
+
+    private String run(String line) throws IOException, SQLException {
+        StringBuilder reply = new StringBuilder();
+        switch (Main.getCommandType(line)) {
+            case ASK_QUESTION:
+                AskResult askResult = appService.handleAskQuestion(line);
+                ResultFormatter.writeAskResult(askResult, reply);
+                break;
+            case ADD_QUESTION:
+                AddResult addResult = appService.handleAddQuestion(line);
+                reply.append(addResult.getMessage());
+                break;
+            default:
+                reply.append(appService.handleUnknownCommand());
+        }
+        return reply.toString();
+    }
+}
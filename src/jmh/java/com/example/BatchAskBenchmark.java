@@ -0,0 +1,84 @@
+package com.example;
+
+import com.example.dto.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares asking a list of random questions one by one with asking them in one batch.
+ * The answer cache of the DAO is bypassed, so every question reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class BatchAskBenchmark {
+
+    @Param({"mem", "file"})
+    public String storage;
+
+    @Param({"100000"})
+    public int questions;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private ConnectionPool pool;
+    private DAO dao;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = BenchmarkDatabase.open(storage, "batch-" + storage + "-" + questions, questions, 4);
+        dao = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        BenchmarkDatabase.close(pool);
+    }
+
+    @Benchmark
+    public int sequential() {
+        int answers = 0;
+        for (String questionText : nextQuestions()) {
+            answers += dao.getAnswersForQuestionText(questionText).size();
+        }
+        return answers;
+    }
+
+    @Benchmark
+    public Map<String, List<Answer>> batched() {
+        return dao.getAnswersForQuestionTexts(nextQuestions());
+    }
+
+    private List<String> nextQuestions() {
+        List<String> questionTexts = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            questionTexts.add(BenchmarkDatabase.questionText(1 + random.nextInt(questions)));
+        }
+        return questionTexts;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Creates and fills the databases used by the benchmarks.
+ * Question {@code i} is stored as {@code "Question i?"} with the three answers
+ * {@code "Answer i-1"}, {@code "Answer i-2"} and {@code "Answer i-3"}, next to the two questions of the seed data.
+ */
+final class BenchmarkDatabase {
+    static final int ANSWERS_PER_QUESTION = 3;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Opens a connection pool to a new, filled database.
+     *
+     * @param storage {@code mem} for an in-memory database, {@code file} for a database below {@code target/}.
+     * @param name The name of the database, must be unique per benchmark.
+     * @param questions The number of questions to store in addition to the seed data.
+     * @param poolSize The maximum number of pooled connections.
+     * @return The pool of connections to the filled database.
+     */
+    static ConnectionPool open(String storage, String name, int questions, int poolSize) throws SQLException, IOException {
+        return open(storage, name, questions, poolSize, ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Opens a connection pool to a new, filled database like {@link #open(String, String, int, int)}.
+     *
+     * @param statementCacheSize The maximum number of prepared statements kept per connection, {@code 0} disables it.
+     */
+    static ConnectionPool open(String storage, String name, int questions, int poolSize, int statementCacheSize)
+            throws SQLException, IOException {
+        String jdbcUrl = newJdbcUrl(storage, name);
+        ConnectionPool pool = new ConnectionPool(jdbcUrl, "sa", "", poolSize, Duration.ofSeconds(30), statementCacheSize);
+        try (ConnectionPool.Lease lease = pool.acquire();
+             Statement stmt = lease.connection().createStatement()) {
+            SchemaMigrator.migrate(lease.connection());
+            fill(stmt, questions);
+        }
+        return pool;
+    }
+
+    /**
+     * Returns the URL of a new, empty database, deleting the files of an earlier database of that name.
+     *
+     * @param storage {@code mem} for an in-memory database, {@code file} for a database below {@code target/}.
+     * @param name The name of the database, must be unique per benchmark.
+     * @return The JDBC URL of the database.
+     */
+    static String newJdbcUrl(String storage, String name) throws IOException {
+        if ("mem".equals(storage)) {
+            return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+        } else if ("file".equals(storage)) {
+            Path directory = Path.of("target", "jmh-databases", name);
+            deleteRecursively(directory);
+            return "jdbc:h2:./" + directory.resolve("databank").toString().replace('\\', '/');
+        }
+        throw new IllegalArgumentException("Unknown storage: " + storage);
+    }
+
+    /**
+     * Removes everything from the database and closes the pool.
+     *
+     * @param pool The pool returned by {@link #open}.
+     */
+    static void close(ConnectionPool pool) throws SQLException {
+        try (ConnectionPool.Lease lease = pool.acquire();
+             Statement stmt = lease.connection().createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        pool.close();
+    }
+
+    static String questionText(int index) {
+        return "Question " + index + "?";
+    }
+
+    private static void fill(Statement stmt, int questions) throws SQLException {
+        long questionBase = maxId(stmt, "questions");
+        long answerBase = maxId(stmt, "answers");
+
+        // Set based inserts are orders of magnitude faster than going through the DAO.
+        // The generated ids follow the insertion order, so the links can be computed from the offsets.
+        stmt.execute("INSERT INTO questions (question_text) "
+                + "SELECT 'Question ' || X || '?' FROM SYSTEM_RANGE(1, " + questions + ") ORDER BY X");
+        stmt.execute("INSERT INTO answers (answer_text) "
+                + "SELECT 'Answer ' || q.X || '-' || a.X "
+                + "FROM SYSTEM_RANGE(1, " + questions + ") q, SYSTEM_RANGE(1, " + ANSWERS_PER_QUESTION + ") a "
+                + "ORDER BY q.X, a.X");
+        stmt.execute("INSERT INTO question_answers (question_id, answer_id, answer_position) "
+                + "SELECT " + questionBase + " + q.X, " + answerBase + " + (q.X - 1) * " + ANSWERS_PER_QUESTION + " + a.X, a.X - 1 "
+                + "FROM SYSTEM_RANGE(1, " + questions + ") q, SYSTEM_RANGE(1, " + ANSWERS_PER_QUESTION + ") a");
+    }
+
+    private static long maxId(Statement stmt, String table) throws SQLException {
+        try (ResultSet resultSet = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
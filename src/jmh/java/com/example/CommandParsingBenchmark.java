@@ -0,0 +1,122 @@
+package com.example;
+
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import com.example.dto.ValidationError;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures classifying and parsing console commands, without any database access.
+ * The replaced regular expression based parser is measured alongside as baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class CommandParsingBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int answers;
+
+    @Param({"5", "50", "250"})
+    public int answerLength;
+
+    private String addCommand;
+    private String askCommand;
+    private String malformedCommand;
+
+    @Setup
+    public void setUp() {
+        StringBuilder command = new StringBuilder("What is the meaning of life?");
+        String answer = "x".repeat(answerLength);
+        for (int i = 0; i < answers; i++) {
+            command.append(" \"").append(answer).append('"');
+        }
+        addCommand = command.toString();
+        askCommand = "What is the meaning of life?";
+        // The closing quote of the last answer is missing, which makes a backtracking parser retry every split
+        malformedCommand = addCommand.substring(0, addCommand.length() - 1);
+    }
+
+    @Benchmark
+    public Main.CommandType getCommandTypeAdd() {
+        return Main.getCommandType(addCommand);
+    }
+
+    @Benchmark
+    public Main.CommandType getCommandTypeAsk() {
+        return Main.getCommandType(askCommand);
+    }
+
+    @Benchmark
+    public Question validateAndSplitCmd() {
+        return AppService.validateAndSplitCmd(addCommand);
+    }
+
+    @Benchmark
+    public ValidationError validateAndSplitCmdMalformed() {
+        try {
+            AppService.validateAndSplitCmd(malformedCommand);
+            return null;
+        } catch (InvalidCommandException e) {
+            return e.getError();
+        }
+    }
+
+    @Benchmark
+    public Question regexValidateAndSplitCmd() {
+        return regexParse(addCommand);
+    }
+
+    @Benchmark
+    public ValidationError regexValidateAndSplitCmdMalformed() {
+        try {
+            regexParse(malformedCommand);
+            return null;
+        } catch (InvalidCommandException e) {
+            return e.getError();
+        }
+    }
+
+    /**
+     * The regular expression based parser that was replaced by {@link CommandParser}, kept as baseline.
+     */
+    private static Question regexParse(String command) {
+        if (!command.contains("?")) {
+            throw new InvalidCommandException(ValidationError.INVALID_COMMAND);
+        }
+        List<Answer> answers = new ArrayList<>();
+        String[] cmdParts = command.split("\\?");
+        String question = cmdParts[0].trim() + "?";
+        if (cmdParts.length <= 1) {
+            throw new InvalidCommandException(ValidationError.MISSING_ANSWER);
+        }
+        String partAfterQuestionMark = cmdParts[1].trim();
+        if (!Pattern.compile("(\"[^\"]*\"\\s*)+").matcher(partAfterQuestionMark).matches()) {
+            throw new InvalidCommandException(ValidationError.NOT_QUOTED);
+        }
+        Matcher matcher = Pattern.compile("\"([^\"]*)\"").matcher(partAfterQuestionMark);
+        while (matcher.find()) {
+            answers.add(new Answer(matcher.group(1)));
+        }
+        return new Question(question, answers);
+    }
+}
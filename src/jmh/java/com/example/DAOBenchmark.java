@@ -0,0 +1,103 @@
+package com.example;
+
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the DAO against in-memory and file-backed H2 at different dataset sizes.
+ * The answer cache is bypassed for {@code getAnswersForQuestionText}, so every call reaches the database,
+ * {@code getAnswersForQuestionTextCached} shows the same lookup through the default cache.
+ * Run with {@code -Djmh.threads=N} to measure how the pooled DAO scales with concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class DAOBenchmark {
+    private static final List<Answer> ANSWERS = List.of(new Answer("Yes"), new Answer("No"), new Answer("Maybe"));
+
+    @Param({"mem", "file"})
+    public String storage;
+
+    @Param({"1000", "100000", "1000000"})
+    public int questions;
+
+    private ConnectionPool pool;
+    private DAO uncachedDao;
+    private DAO cachedDao;
+    private final AtomicLong addedQuestions = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = BenchmarkDatabase.open(storage, "dao-" + storage + "-" + questions, questions, 16);
+        uncachedDao = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+        cachedDao = new DAO(pool, new AnswerCache());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        BenchmarkDatabase.close(pool);
+    }
+
+    /**
+     * The random question each thread asks for.
+     */
+    @State(Scope.Thread)
+    public static class Lookup {
+        private final SplittableRandom random = new SplittableRandom(42);
+        private int questions;
+
+        @Setup(Level.Trial)
+        public void setUp(DAOBenchmark benchmark) {
+            questions = benchmark.questions;
+        }
+
+        String next() {
+            return BenchmarkDatabase.questionText(1 + random.nextInt(questions));
+        }
+    }
+
+    @Benchmark
+    public List<Answer> getAnswersForQuestionText(Lookup lookup) {
+        return uncachedDao.getAnswersForQuestionText(lookup.next());
+    }
+
+    @Benchmark
+    public List<Answer> getAnswersForQuestionTextCached(Lookup lookup) {
+        return cachedDao.getAnswersForQuestionText(lookup.next());
+    }
+
+    @Benchmark
+    public boolean isQuestionStored(Lookup lookup) {
+        return uncachedDao.isQuestionStored(lookup.next());
+    }
+
+    @Benchmark
+    public boolean addQuestion() throws SQLException {
+        String text = "Added question " + addedQuestions.incrementAndGet() + "?";
+        return uncachedDao.addQuestion(new Question(text, ANSWERS));
+    }
+}
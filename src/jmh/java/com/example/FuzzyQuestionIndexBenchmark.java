@@ -0,0 +1,115 @@
+package com.example;
+
+import com.example.dto.QuestionMatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures fuzzy searches in an index of generated questions.
+ * The questions are 3 to 7 words drawn from a vocabulary of 20,000 made-up words behind one of a few question openings,
+ * so the trigrams of the openings are shared by a large part of the index.
+ * <ul>
+ *     <li>{@code searchRewritten}: a stored question in lower case without spaces and punctuation.</li>
+ *     <li>{@code searchTypo}: a stored question with one letter replaced.</li>
+ *     <li>{@code searchUnknown}: a new question, usually without any match above the threshold.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dapp.log.level=OFF", "-Xmx2g"})
+public class FuzzyQuestionIndexBenchmark {
+    private static final String[] OPENINGS = {"What is", "How do", "Why does", "Who was", "When did", "Where is"};
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "1000000"})
+    public int questions;
+
+    private FuzzyQuestionIndex index;
+    private String[] rewritten;
+    private String[] typos;
+    private String[] unknown;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] vocabulary = new String[20_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        index = new FuzzyQuestionIndex();
+        String[] sample = new String[QUERIES];
+        for (int i = 0; i < questions; i++) {
+            String question = randomQuestion(random, vocabulary);
+            index.add(question);
+            if (i < QUERIES) {
+                sample[i] = question;
+            }
+        }
+
+        rewritten = new String[QUERIES];
+        typos = new String[QUERIES];
+        unknown = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            rewritten[i] = sample[i].toLowerCase().replaceAll("[^a-z0-9]", "");
+            char[] chars = sample[i].toCharArray();
+            int position = random.nextInt(chars.length - 1);
+            chars[position] = chars[position] == 'x' ? 'y' : 'x';
+            typos[i] = new String(chars);
+            unknown[i] = randomQuestion(random, vocabulary);
+        }
+    }
+
+    @Benchmark
+    public List<QuestionMatch> searchRewritten() {
+        return index.search(rewritten[nextQuery()], 1, FuzzyQuestionIndex.DEFAULT_THRESHOLD);
+    }
+
+    @Benchmark
+    public List<QuestionMatch> searchTypo() {
+        return index.search(typos[nextQuery()], 1, FuzzyQuestionIndex.DEFAULT_THRESHOLD);
+    }
+
+    @Benchmark
+    public List<QuestionMatch> searchUnknown() {
+        return index.search(unknown[nextQuery()], 1, FuzzyQuestionIndex.DEFAULT_THRESHOLD);
+    }
+
+    private int nextQuery() {
+        return next.getAndIncrement() & (QUERIES - 1);
+    }
+
+    private static String randomQuestion(SplittableRandom random, String[] vocabulary) {
+        StringBuilder question = new StringBuilder(OPENINGS[random.nextInt(OPENINGS.length)]);
+        for (int i = 0, words = 3 + random.nextInt(5); i < words; i++) {
+            question.append(' ').append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return question.append('?').toString();
+    }
+
+    private static String randomWord(SplittableRandom random) {
+        char[] word = new char[3 + random.nextInt(7)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
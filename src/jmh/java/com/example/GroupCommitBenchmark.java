@@ -0,0 +1,91 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares concurrent adds of new questions committed one transaction each ({@code sync}) with adds queued
+ * and committed in groups by a {@link WriteBehindQuestionStore} ({@code writeBehind}, {@code writeBehind1ms} with a
+ * time window of a millisecond). Every thread waits for its add to be committed. Throughput is the sustained adds
+ * per second, the sample time mode reports the distribution of the time until an add is committed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class GroupCommitBenchmark {
+    private static final List<Answer> ANSWERS = List.of(new Answer("Yes"), new Answer("No"), new Answer("Maybe"));
+
+    @Param({"file"})
+    public String storage;
+
+    @Param({"sync", "writeBehind", "writeBehind1ms"})
+    public String mode;
+
+    @Param({"100000"})
+    public int questions;
+
+    private ConnectionPool pool;
+    private QuestionStore store;
+    private final AtomicLong addedQuestions = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = BenchmarkDatabase.open(storage, "group-commit-" + storage + "-" + mode, questions, 16);
+        DAO dao = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+        switch (mode) {
+            case "sync":
+                store = dao;
+                break;
+            case "writeBehind":
+                store = new WriteBehindQuestionStore(dao);
+                break;
+            case "writeBehind1ms":
+                store = new WriteBehindQuestionStore(dao, WriteBehindQuestionStore.DEFAULT_CAPACITY,
+                        WriteBehindQuestionStore.DEFAULT_MAX_GROUP_SIZE, Duration.ofMillis(1));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode " + mode);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (store instanceof WriteBehindQuestionStore) {
+            WriteBehindQuestionStore writeBehind = (WriteBehindQuestionStore) store;
+            writeBehind.close();
+            System.out.printf("%n%d adds in %d commits%n", writeBehind.getCommittedAddCount(), writeBehind.getCommitCount());
+        }
+        BenchmarkDatabase.close(pool);
+    }
+
+    @Benchmark
+    public AddResult.Status addNewQuestion() throws SQLException {
+        return store.addQuestionIfAbsent(new Question("Added question " + addedQuestions.incrementAndGet() + "?", ANSWERS));
+    }
+}
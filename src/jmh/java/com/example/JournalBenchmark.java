@@ -0,0 +1,191 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Compares asks and adds of the file databank ({@code file}) with a {@link JournaledQuestionStore} over H2 in
+ * in-memory mode ({@code journaled}), both filled with the questions of {@link BenchmarkDatabase}.
+ * The answer cache of the DAO is bypassed, so every ask reaches H2.
+ * <p>
+ * {@link #main(String[])} measures the recovery of a journaled store instead, once from a snapshot and once from
+ * the journal alone: {@code java -Xmx4g -cp ... com.example.JournalBenchmark <questions> <h2mem|memory>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dapp.log.level=OFF", "-Xmx3g"})
+public class JournalBenchmark {
+    private static final int GROUP_SIZE = 1_000;
+
+    @Param({"file", "journaled"})
+    public String store;
+
+    @Param({"100000"})
+    public int questions;
+
+    private ConnectionPool pool;
+    private Path directory;
+    private QuestionStore questionStore;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final AtomicLong addedQuestions = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = BenchmarkDatabase.open("file".equals(store) ? "file" : "mem", "journal-" + store, questions, 4);
+        DAO dao = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+        if ("file".equals(store)) {
+            questionStore = dao;
+        } else {
+            directory = Files.createTempDirectory("journal-benchmark");
+            questionStore = JournaledQuestionStore.open(dao, directory, Duration.ZERO);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        if (directory != null) {
+            ((JournaledQuestionStore) questionStore).close();
+            deleteRecursively(directory);
+        }
+        BenchmarkDatabase.close(pool);
+    }
+
+    @Benchmark
+    public List<Answer> askStoredQuestion() {
+        return questionStore.getAnswersForQuestionText(BenchmarkDatabase.questionText(1 + random.nextInt(questions)));
+    }
+
+    @Benchmark
+    public AddResult.Status addNewQuestion() throws SQLException {
+        return questionStore.addQuestionIfAbsent(new Question("Added question " + addedQuestions.incrementAndGet() + "?",
+                List.of(new Answer("Yes"), new Answer("No"))));
+    }
+
+    /**
+     * Fills a journaled store and drops it without closing it, like a killed process, then prints how long a new
+     * store takes to recover from the journal alone and, after a checkpoint, from the snapshot.
+     * Only one store is held in memory at a time.
+     *
+     * @param args The number of questions, 5,000,000 by default, and the store in memory, {@code h2mem} for a DAO
+     *             on in-memory H2 (default) or {@code memory} for the {@link InMemoryQuestionStore}.
+     */
+    public static void main(String[] args) throws SQLException, IOException {
+        int questions = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        String primary = args.length > 1 ? args[1] : "h2mem";
+        Path directory = Files.createTempDirectory("journal-recovery");
+        try {
+            long start = System.nanoTime();
+            try (Primary filled = new Primary(primary, "fill")) {
+                JournaledQuestionStore journaled = JournaledQuestionStore.open(filled.store, directory, Duration.ZERO);
+                List<Question> group = new ArrayList<>(GROUP_SIZE);
+                for (int i = 1; i <= questions; i++) {
+                    List<Answer> answers = new ArrayList<>(BenchmarkDatabase.ANSWERS_PER_QUESTION);
+                    for (int a = 1; a <= BenchmarkDatabase.ANSWERS_PER_QUESTION; a++) {
+                        answers.add(new Answer("Answer " + i + "-" + a));
+                    }
+                    group.add(new Question(BenchmarkDatabase.questionText(i), answers));
+                    if (group.size() == GROUP_SIZE || i == questions) {
+                        journaled.addQuestionsIfAbsent(group);
+                        group.clear();
+                    }
+                }
+            }
+            System.out.printf("Filled %d questions into %s in %.1f s, journal of %d MB%n",
+                    questions, primary, (System.nanoTime() - start) / 1e9, directorySize(directory) / (1024 * 1024));
+
+            try (Primary recovered = new Primary(primary, "journal")) {
+                JournaledQuestionStore journaled = recover(recovered, directory, "journal");
+                start = System.nanoTime();
+                journaled.checkpoint();
+                System.out.printf("Checkpoint in %.1f s, snapshot of %d MB%n",
+                        (System.nanoTime() - start) / 1e9, directorySize(directory) / (1024 * 1024));
+                journaled.close();
+            }
+            try (Primary recovered = new Primary(primary, "snapshot")) {
+                recover(recovered, directory, "snapshot").close();
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private static JournaledQuestionStore recover(Primary primary, Path directory, String from) throws SQLException, IOException {
+        System.gc();
+        long start = System.nanoTime();
+        JournaledQuestionStore journaled = JournaledQuestionStore.open(primary.store, directory, Duration.ZERO);
+        System.out.printf("Recovered from the %s in %.1f s%n", from, (System.nanoTime() - start) / 1e9);
+        return journaled;
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * An empty store in memory, on H2 it is dropped again when closed.
+     */
+    private static final class Primary implements AutoCloseable {
+        private final ConnectionPool pool;
+        private final QuestionStore store;
+
+        private Primary(String primary, String name) throws SQLException {
+            if ("h2mem".equals(primary)) {
+                pool = new ConnectionPool("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "", 4, Duration.ofSeconds(30));
+                try (ConnectionPool.Lease lease = pool.acquire()) {
+                    SchemaMigrator.migrate(lease.connection());
+                }
+                store = new DAO(pool, new AnswerCache());
+            } else {
+                pool = null;
+                store = new InMemoryQuestionStore();
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (pool != null) {
+                BenchmarkDatabase.close(pool);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class is responsible for generating load against a running {@link QuestionServer}.
+ * A number of client threads send a mix of asks and adds and the latency of every request is recorded.
+ * At the end the throughput and the p50/p99 latencies are printed.
+ * <p>
+ * Usage: {@code LoadGenerator [baseUrl] [clients] [requestsPerClient] [addPercentage]},
+ * e.g. {@code LoadGenerator http://localhost:8080 16 2000 10}. Like the benchmarks it is compiled with
+ * {@code mvn -P jmh test-compile} and runs from {@code target/test-classes}.
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int requestsPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int addPercentage = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(clients);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            run(HttpClient.newBuilder().executor(clientExecutor).build(), executor, baseUrl, clients, requestsPerClient,
+                    addPercentage);
+        } finally {
+            executor.shutdown();
+            clientExecutor.shutdown();
+        }
+    }
+
+    private static void run(HttpClient client, ExecutorService executor, String baseUrl, int clients,
+                            int requestsPerClient, int addPercentage) throws Exception {
+        Future<?>[] futures = new Future<?>[clients];
+        long[][] latencies = new long[clients][requestsPerClient];
+        int[] failures = new int[clients];
+
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int clientIndex = c;
+            futures[c] = executor.submit(() -> {
+                for (int i = 0; i < requestsPerClient; i++) {
+                    HttpRequest request = ThreadLocalRandom.current().nextInt(100) < addPercentage
+                            ? addRequest(baseUrl)
+                            : askRequest(baseUrl);
+                    long requestStart = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() >= 400) {
+                            failures[clientIndex]++;
+                        }
+                    } catch (IOException e) {
+                        failures[clientIndex]++;
+                    }
+                    latencies[clientIndex][i] = System.nanoTime() - requestStart;
+                }
+                return null;
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        int failed = Arrays.stream(failures).sum();
+        System.out.printf("%d requests with %d clients in %.2f s, %d failed%n", all.length, clients, elapsed / 1e9, failed);
+        System.out.printf("throughput: %.0f requests/s%n", all.length / (elapsed / 1e9));
+        System.out.printf("p50: %.3f ms, p99: %.3f ms, max: %.3f ms%n",
+                percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[all.length - 1] / 1e6);
+    }
+
+    private static HttpRequest askRequest(String baseUrl) {
+        String question = URLEncoder.encode("What is the capital of France?", StandardCharsets.UTF_8);
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/ask?q=" + question)).GET().build();
+    }
+
+    private static HttpRequest addRequest(String baseUrl) {
+        String command = "Load test question " + UUID.randomUUID() + "? \"yes\" \"no\"";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/add"))
+                .POST(HttpRequest.BodyPublishers.ofString(command, StandardCharsets.UTF_8))
+                .build();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+}
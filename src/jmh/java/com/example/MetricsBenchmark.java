@@ -0,0 +1,47 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of recording a latency, which is paid on every command and database call,
+ * and of reading a percentile, which is paid per metric on every dump. Run with {@code -prof gc}
+ * to see that recording does not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class MetricsBenchmark {
+
+    private final LatencyHistogram histogram = new LatencyHistogram("benchmark");
+    private long value = 1;
+
+    @Benchmark
+    public void record() {
+        // Walks the buckets from nanoseconds to seconds
+        value = value * 6_364_136_223_846_793_005L + 1_442_695_040_888_963_407L;
+        histogram.record(value >>> 34);
+    }
+
+    @Benchmark
+    public void recordSince() {
+        histogram.recordSince(System.nanoTime());
+    }
+
+    @Benchmark
+    public long valueAtPercentile() {
+        return histogram.getValueAtPercentile(99);
+    }
+}
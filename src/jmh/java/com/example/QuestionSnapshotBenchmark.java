@@ -0,0 +1,85 @@
+package com.example;
+
+import com.example.dto.Answer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lookups in a memory-mapped snapshot with lookups in the file-backed database it was exported from.
+ * The answer cache of the DAO is bypassed, so both read the answers of a random question every time.
+ * {@code openSnapshot} measures opening the snapshot, which is independent of its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class QuestionSnapshotBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int questions;
+
+    private ConnectionPool pool;
+    private DAO uncachedDao;
+    private Path file;
+    private QuestionSnapshot snapshot;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = BenchmarkDatabase.open("file", "snapshot-" + questions, questions, 4);
+        uncachedDao = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+        file = Path.of("target", "jmh-databases", "snapshot-" + questions + ".snapshot");
+        QuestionSnapshot.export(uncachedDao, file);
+        snapshot = QuestionSnapshot.open(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        snapshot.close();
+        Files.deleteIfExists(file);
+        BenchmarkDatabase.close(pool);
+    }
+
+    @Benchmark
+    public List<Answer> snapshotLookup() {
+        return snapshot.getAnswersForQuestionText(nextQuestion());
+    }
+
+    @Benchmark
+    public List<Answer> databaseLookup() {
+        return uncachedDao.getAnswersForQuestionText(nextQuestion());
+    }
+
+    @Benchmark
+    public long openSnapshot() throws IOException {
+        try (QuestionSnapshot opened = QuestionSnapshot.open(file)) {
+            return opened.size();
+        }
+    }
+
+    private String nextQuestion() {
+        return BenchmarkDatabase.questionText(1 + random.nextInt(questions));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example;
+
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lookups in the {@link InMemoryQuestionStore} with the DAO on in-memory H2, both filled with the
+ * questions of {@link BenchmarkDatabase}. The answer cache of the DAO is bypassed, so every lookup reaches H2.
+ * <p>
+ * {@link #main(String[])} measures the heap used per question by both backends instead:
+ * {@code java -cp ... com.example.QuestionStoreBenchmark <questions>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dapp.log.level=OFF", "-Xmx3g"})
+public class QuestionStoreBenchmark {
+    private static final int CHUNK_SIZE = 10_000;
+
+    @Param({"h2mem", "memory"})
+    public String store;
+
+    @Param({"100000", "1000000"})
+    public int questions;
+
+    private ConnectionPool pool;
+    private QuestionStore questionStore;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        if ("h2mem".equals(store)) {
+            pool = BenchmarkDatabase.open("mem", "store-" + questions, questions, 4);
+            questionStore = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+        } else {
+            questionStore = fillMemoryStore(questions);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        if (pool != null) {
+            BenchmarkDatabase.close(pool);
+        }
+    }
+
+    @Benchmark
+    public List<Answer> lookup() {
+        return questionStore.getAnswersForQuestionText(BenchmarkDatabase.questionText(1 + random.nextInt(questions)));
+    }
+
+    @Benchmark
+    public List<Answer> lookupUnknown() {
+        return questionStore.getAnswersForQuestionText("Unknown " + random.nextInt(questions) + "?");
+    }
+
+    /**
+     * Prints the heap used per question by H2 in-memory mode and by the in-memory store.
+     *
+     * @param args The number of questions, 1,000,000 by default.
+     */
+    public static void main(String[] args) throws SQLException, IOException {
+        int questions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long before = usedHeap();
+        InMemoryQuestionStore memory = fillMemoryStore(questions);
+        long inMemory = usedHeap() - before;
+
+        before = usedHeap();
+        ConnectionPool pool = BenchmarkDatabase.open("mem", "footprint", questions, 1);
+        long h2 = usedHeap() - before;
+        BenchmarkDatabase.close(pool);
+
+        System.out.printf("%d questions with %d answers each%n", memory.size(), BenchmarkDatabase.ANSWERS_PER_QUESTION);
+        System.out.printf("H2 in-memory: %,d bytes, %d bytes per question%n", h2, h2 / questions);
+        System.out.printf("In-memory store: %,d bytes, %d bytes per question%n", inMemory, inMemory / questions);
+    }
+
+    private static InMemoryQuestionStore fillMemoryStore(int questions) {
+        InMemoryQuestionStore store = new InMemoryQuestionStore();
+        List<Question> chunk = new ArrayList<>();
+        for (int i = 1; i <= questions; i++) {
+            List<Answer> answers = new ArrayList<>();
+            for (int a = 1; a <= BenchmarkDatabase.ANSWERS_PER_QUESTION; a++) {
+                answers.add(new Answer("Answer " + i + "-" + a));
+            }
+            chunk.add(new Question(BenchmarkDatabase.questionText(i), answers));
+            if (chunk.size() == CHUNK_SIZE || i == questions) {
+                store.addQuestions(chunk);
+                chunk.clear();
+            }
+        }
+        return store;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
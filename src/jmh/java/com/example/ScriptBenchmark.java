@@ -0,0 +1,99 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+/**
+ * Runs the same script through the console loop and through the {@link ScriptRunner}, each on a new databank
+ * filled like {@link BenchmarkDatabase}, and prints the time of both:
+ * {@code java -cp ... com.example.ScriptBenchmark <lines> <questions> <mem|file>}.
+ * <p>
+ * Of the script lines 60% ask a stored question, 10% ask an unknown one and 30% add a new question,
+ * in random order. Replies are counted and discarded.
+ */
+public final class ScriptBenchmark {
+
+    private ScriptBenchmark() {
+    }
+
+    /**
+     * Writes the script and runs it in both modes.
+     *
+     * @param args The number of script lines, 1,000,000 by default, of stored questions, 100,000 by default,
+     *             and the storage of the databank, {@code file} by default.
+     */
+    public static void main(String[] args) throws IOException, SQLException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int questions = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        String storage = args.length > 2 ? args[2] : "file";
+        Path script = Files.createTempFile("script-benchmark", ".txt");
+        try {
+            writeScript(script, lines, questions);
+            System.out.printf("Script of %d lines, %d MB%n", lines, Files.size(script) / (1024 * 1024));
+            run("console", script, questions, storage);
+            run("script", script, questions, storage);
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+
+    private static void writeScript(Path script, int lines, int questions) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        try (BufferedWriter out = Files.newBufferedWriter(script, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                int kind = random.nextInt(10);
+                if (kind < 6) {
+                    out.write(BenchmarkDatabase.questionText(1 + random.nextInt(questions)));
+                } else if (kind < 7) {
+                    out.write("Unknown question " + i + "?");
+                } else {
+                    out.write("Script question " + i + "? \"Script answer " + i + "\" \"Yes\"");
+                }
+                out.write('\n');
+            }
+        }
+    }
+
+    private static void run(String mode, Path script, int questions, String storage) throws IOException, SQLException {
+        ConnectionPool pool = BenchmarkDatabase.open(storage, "script-" + storage + "-" + mode, questions, 4);
+        try (BufferedReader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            AppService appService = new AppService(new DAO(pool, new AnswerCache()));
+            CountingWriter output = new CountingWriter();
+            long start = System.nanoTime();
+            if ("console".equals(mode)) {
+                Main.runInteractive(appService, reader, new BufferedWriter(output));
+            } else {
+                new ScriptRunner(appService).run(reader, output);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-8s %6.1f s, %8.0f lines/s, %d MB of replies%n",
+                    mode, seconds, Files.lines(script).count() / seconds, output.chars / (1024 * 1024));
+        } finally {
+            BenchmarkDatabase.close(pool);
+        }
+    }
+
+    private static final class CountingWriter extends Writer {
+        private long chars;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            chars += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
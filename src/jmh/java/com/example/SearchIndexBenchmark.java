@@ -0,0 +1,119 @@
+package com.example;
+
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import com.example.dto.SearchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures full-text searches in an index of generated questions with two answers each.
+ * The questions are 3 to 7 words behind one of a few question openings, the answers 1 to 3 words,
+ * all drawn from a vocabulary of 20,000 made-up words.
+ * <ul>
+ *     <li>{@code searchRareWords}: two words of a stored question, each contained in a few hundred questions at 1M.</li>
+ *     <li>{@code searchCommonAndRareWord}: a word of every sixth question and a rare word.</li>
+ *     <li>{@code searchCommonWord}: a word of every sixth question alone, the first page of a sixth of the index.</li>
+ *     <li>{@code searchCommonWordDeepPage}: the same word on page 100.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dapp.log.level=OFF", "-Xmx2g"})
+public class SearchIndexBenchmark {
+    private static final String[] OPENINGS = {"What is", "How do", "Why does", "Who was", "When did", "Where is"};
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "1000000"})
+    public int questions;
+
+    private SearchIndex index;
+    private String[] rareWords;
+    private String[] commonAndRareWord;
+    private String[] commonWord;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] vocabulary = new String[20_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            vocabulary[i] = randomWord(random);
+        }
+
+        index = new SearchIndex();
+        rareWords = new String[QUERIES];
+        commonAndRareWord = new String[QUERIES];
+        commonWord = new String[QUERIES];
+        for (int i = 0; i < questions; i++) {
+            String opening = OPENINGS[random.nextInt(OPENINGS.length)];
+            String[] words = randomWords(random, vocabulary, 3 + random.nextInt(5));
+            index.add(new Question(opening + " " + String.join(" ", words) + "?", List.of(
+                    new Answer(String.join(" ", randomWords(random, vocabulary, 1 + random.nextInt(3)))),
+                    new Answer(String.join(" ", randomWords(random, vocabulary, 1 + random.nextInt(3)))))));
+            if (i < QUERIES) {
+                String common = opening.split(" ")[0];
+                rareWords[i] = words[0] + " " + words[1];
+                commonAndRareWord[i] = common + " " + words[2];
+                commonWord[i] = OPENINGS[i % OPENINGS.length].split(" ")[0];
+            }
+        }
+    }
+
+    @Benchmark
+    public SearchResult searchRareWords() {
+        return index.search(rareWords[nextQuery()], 1, SearchIndex.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchResult searchCommonAndRareWord() {
+        return index.search(commonAndRareWord[nextQuery()], 1, SearchIndex.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchResult searchCommonWord() {
+        return index.search(commonWord[nextQuery()], 1, SearchIndex.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public SearchResult searchCommonWordDeepPage() {
+        return index.search(commonWord[nextQuery()], 100, SearchIndex.DEFAULT_PAGE_SIZE);
+    }
+
+    private int nextQuery() {
+        return next.getAndIncrement() & (QUERIES - 1);
+    }
+
+    private static String[] randomWords(SplittableRandom random, String[] vocabulary, int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = vocabulary[random.nextInt(vocabulary.length)];
+        }
+        return words;
+    }
+
+    private static String randomWord(SplittableRandom random) {
+        char[] word = new char[3 + random.nextInt(7)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how the throughput of concurrent asks and adds and the time of a full scan change with the number of
+ * shards of a {@link ShardedQuestionStore}. Every shard is a file databank of its own, filled with its part of
+ * the questions of {@link BenchmarkDatabase}. With one shard the store only adds the routing to a single {@link DAO}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class ShardingBenchmark {
+    private static final List<Answer> ANSWERS = List.of(new Answer("Yes"), new Answer("No"), new Answer("Maybe"));
+    private static final int FILL_GROUP_SIZE = 1_000;
+
+    @Param({"file"})
+    public String storage;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"100000"})
+    public int questions;
+
+    private final List<String> jdbcUrls = new ArrayList<>();
+    private ShardedQuestionStore store;
+    private final AtomicLong addedQuestions = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        for (int i = 0; i < shards; i++) {
+            jdbcUrls.add(BenchmarkDatabase.newJdbcUrl(storage, "sharding-" + storage + "-" + shards + "-" + i));
+        }
+        store = ShardedQuestionStore.open(jdbcUrls);
+        List<Question> group = new ArrayList<>(FILL_GROUP_SIZE);
+        for (int i = 1; i <= questions; i++) {
+            List<Answer> answers = new ArrayList<>(BenchmarkDatabase.ANSWERS_PER_QUESTION);
+            for (int a = 1; a <= BenchmarkDatabase.ANSWERS_PER_QUESTION; a++) {
+                answers.add(new Answer("Answer " + i + "-" + a));
+            }
+            group.add(new Question(BenchmarkDatabase.questionText(i), answers));
+            if (group.size() == FILL_GROUP_SIZE || i == questions) {
+                store.addQuestionsIfAbsent(group);
+                group.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        store.close();
+        for (String jdbcUrl : jdbcUrls) {
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "");
+                 Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Answer> askStoredQuestion() {
+        int index = 1 + ThreadLocalRandom.current().nextInt(questions);
+        return store.getAnswersForQuestionText(BenchmarkDatabase.questionText(index));
+    }
+
+    @Benchmark
+    public AddResult.Status addNewQuestion() throws SQLException {
+        return store.addQuestionIfAbsent(new Question("Added question " + addedQuestions.incrementAndGet() + "?", ANSWERS));
+    }
+
+    /**
+     * Reads all questions of all shards, the shards in parallel.
+     */
+    @Benchmark
+    @Threads(1)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @BenchmarkMode(Mode.AverageTime)
+    public long scanAllQuestions() {
+        long[] count = new long[1];
+        store.forEachQuestion(question -> count[0]++);
+        return count[0];
+    }
+}
@@ -0,0 +1,82 @@
+package com.example;
+
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the DAO with and without the prepared statement cache of the connection pool.
+ * A cache size of {@code 0} prepares every statement for every operation, like the DAO did before.
+ * The answer cache is bypassed, so every call reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.log.level=OFF")
+public class StatementCacheBenchmark {
+    private static final List<Answer> ANSWERS = List.of(new Answer("Yes"), new Answer("No"), new Answer("Maybe"));
+
+    @Param({"mem", "file"})
+    public String storage;
+
+    @Param({"0", "32"})
+    public int statementCacheSize;
+
+    @Param({"100000"})
+    public int questions;
+
+    private ConnectionPool pool;
+    private DAO dao;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private final AtomicLong addedQuestions = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        pool = BenchmarkDatabase.open(storage, "statements-" + storage + "-" + statementCacheSize, questions, 4,
+                statementCacheSize);
+        dao = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        BenchmarkDatabase.close(pool);
+    }
+
+    @Benchmark
+    public List<Answer> getAnswersForQuestionText() {
+        return dao.getAnswersForQuestionText(BenchmarkDatabase.questionText(1 + random.nextInt(questions)));
+    }
+
+    @Benchmark
+    public boolean isQuestionStored() {
+        return dao.isQuestionStored(BenchmarkDatabase.questionText(1 + random.nextInt(questions)));
+    }
+
+    @Benchmark
+    public boolean addQuestion() throws SQLException {
+        String text = "Added question " + addedQuestions.incrementAndGet() + "?";
+        return dao.addQuestion(new Question(text, ANSWERS));
+    }
+}
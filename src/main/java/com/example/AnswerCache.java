@@ -0,0 +1,198 @@
+package com.example;
+
+import com.example.dto.Answer;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is responsible for caching the answers of questions in memory.
+ * The cache is bounded by a maximum number of entries, evicting the least recently used question,
+ * and by a time to live after which an entry is loaded again from the database.
+ * Empty answer lists are cached as well, so repeated asks of unknown questions do not reach the database.
+ * <p>
+ * A value loaded before its question was invalidated is not stored, so an add is never hidden by a stale load.
+ * The invalidations are remembered per question, so an add does not keep the loads of other questions from being
+ * cached. Only the most recent {@code maxEntries} invalidations are remembered, a load older than a forgotten one
+ * is not stored either.
+ */
+public class AnswerCache {
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private final int maxEntries;
+    private final long timeToLiveNanos;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    // Incremented on every invalidation, the generation a question was last invalidated in is kept in invalidations
+    private final AtomicLong generation = new AtomicLong();
+    private final LinkedHashMap<String, Long> invalidations;
+    // Values loaded before this generation are not stored, their invalidations may have been forgotten
+    private long oldestKnownGeneration;
+
+    /**
+     * Constructs an instance of the AnswerCache class with the default limits.
+     */
+    public AnswerCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * Constructs an instance of the AnswerCache class.
+     *
+     * @param maxEntries The maximum number of questions held in the cache.
+     * @param timeToLive The time after which a cached entry is no longer used.
+     */
+    public AnswerCache(int maxEntries, Duration timeToLive) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("The cache needs room for at least one entry.");
+        }
+        this.maxEntries = maxEntries;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > AnswerCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.invalidations = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                if (size() > AnswerCache.this.maxEntries) {
+                    oldestKnownGeneration = eldest.getValue();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached answers of a question.
+     *
+     * @param questionText The text of the question.
+     * @return The cached answers, or {@code null} if the question is not cached or its entry expired.
+     */
+    public List<Answer> get(String questionText) {
+        synchronized (entries) {
+            Entry entry = entries.get(questionText);
+            if (entry != null && System.nanoTime() - entry.loadedAt > timeToLiveNanos) {
+                entries.remove(questionText);
+                expirations.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.answers;
+        }
+    }
+
+    /**
+     * Returns the current generation of the cache, to be passed to {@link #put} after loading a value.
+     *
+     * @return The current generation.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Stores the answers of a question, unless the question was invalidated since the answers were loaded.
+     *
+     * @param questionText The text of the question.
+     * @param answers The answers loaded from the database, may be empty.
+     * @param loadedInGeneration The generation returned by {@link #generation()} before the answers were loaded.
+     * @return An unmodifiable copy of the answers, the same kind of list {@link #get} returns, stored or not.
+     */
+    public List<Answer> put(String questionText, List<Answer> answers, long loadedInGeneration) {
+        List<Answer> copy = List.copyOf(answers);
+        synchronized (entries) {
+            Long invalidatedInGeneration = invalidations.get(questionText);
+            if (loadedInGeneration >= oldestKnownGeneration
+                    && (invalidatedInGeneration == null || loadedInGeneration >= invalidatedInGeneration)) {
+                entries.put(questionText, new Entry(copy, System.nanoTime()));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Removes the cached answers of a question, e.g. because the question was added.
+     *
+     * @param questionText The text of the question.
+     */
+    public void invalidate(String questionText) {
+        synchronized (entries) {
+            // Removed first, so the question moves to the end of the invalidations and is forgotten last
+            invalidations.remove(questionText);
+            invalidations.put(questionText, generation.incrementAndGet());
+            entries.remove(questionText);
+        }
+    }
+
+    /**
+     * Removes all cached answers.
+     */
+    public void clear() {
+        synchronized (entries) {
+            oldestKnownGeneration = generation.incrementAndGet();
+            invalidations.clear();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getExpirations() {
+        return expirations.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d entries, %d hits, %d misses, %d evictions, %d expirations",
+                size(), getHits(), getMisses(), getEvictions(), getExpirations());
+    }
+
+    /**
+     * A cached answer list with the time it was loaded.
+     */
+    private static class Entry {
+        private final List<Answer> answers;
+        private final long loadedAt;
+
+        private Entry(List<Answer> answers, long loadedAt) {
+            this.answers = answers;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -1,19 +1,50 @@
 package com.example;
 
+import com.example.dto.AddResult;
 import com.example.dto.Answer;
+import com.example.dto.AnswerPage;
+import com.example.dto.AskResult;
 import com.example.dto.Question;
+import com.example.dto.QuestionMatch;
+import com.example.dto.SearchResult;
+import com.example.dto.ValidationError;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class is responsible for handling the application logic.
+ * The latency of every command is recorded in the histogram {@code command.<type>} of {@link Metrics#getDefault()}.
  */
 public class AppService {
-    private DAO dao;
+    /**
+     * The number of answers on a page of {@link #handleAskQuestionPage}, unless another one is requested.
+     */
+    public static final int DEFAULT_ANSWER_PAGE_SIZE = 100;
+    private static final Map<Main.CommandType, LatencyHistogram> COMMAND_LATENCIES = new EnumMap<>(Main.CommandType.class);
+
+    static {
+        for (Main.CommandType type : Main.CommandType.values()) {
+            COMMAND_LATENCIES.put(type, Metrics.getDefault().histogram("command." + type.name().toLowerCase(Locale.ROOT)));
+        }
+    }
+
+    private final QuestionStore store;
+    // null if fuzzy asks are disabled
+    private final FuzzyQuestionIndex fuzzyIndex;
+    // Built on the first search without blocking adds. Adds hold the read lock, so the build can wait for the adds in
+    // progress before it starts the scan and before it replays the questions added during the scan
+    private final ReadWriteLock searchIndexLock = new ReentrantReadWriteLock();
+    private final Object searchIndexBuild = new Object();
+    private volatile SearchIndex searchIndex;
+    // The questions added while the index is built, null if no build runs
+    private List<Question> addedDuringBuild;
 
     /**
      * Constructs an instance of the AppService class.
@@ -21,33 +52,70 @@ public class AppService {
      * @throws SQLException if connection to the database cannot be established.
      */
     public AppService() throws SQLException {
-        this.dao = new DAO();
+        this(new DAO());
     }
 
     /**
-     * Constructs an instance of the AppService class with a provided DAO.
+     * Constructs an instance of the AppService class with a provided store, e.g. a DAO.
      *
-     * @param dao The Data Access Object (DAO) to be used for database operations.
+     * @param store The store the questions and answers are kept in.
      */
-    public AppService(DAO dao) {
-        this.dao = dao;
+    public AppService(QuestionStore store) {
+        this(store, null);
+    }
+
+    /**
+     * Constructs an instance of the AppService class with a provided store and fuzzy asks.
+     * An asked question that is not stored is answered with the most similar stored question, if any is similar enough.
+     *
+     * @param store The store the questions and answers are kept in, adds are rejected if it is read-only.
+     * @param fuzzyIndex The index of the stored questions, kept up to date by this service,
+     *                   or {@code null} to disable fuzzy asks.
+     */
+    public AppService(QuestionStore store, FuzzyQuestionIndex fuzzyIndex) {
+        this.store = store;
+        this.fuzzyIndex = fuzzyIndex;
     }
 
     /**
      * handles the exit command
+     *
+     * @return The message shown when the application exits
      */
-    public void handleExit() {
-        System.out.println("Exiting...");
+    public String handleExit() {
+        long start = System.nanoTime();
+        try {
+            return "Exiting...";
+        } finally {
+            COMMAND_LATENCIES.get(Main.CommandType.EXIT).recordSince(start);
+        }
     }
 
     /**
-     * Displays the help message
+     * Returns the help message
+     *
+     * @return The lines of the help message
      */
-    public void displayHelp() {
-        System.out.println("To add a question, type the question followed by the answers in quotes.");
-        System.out.println("Example: What is the meaning of life? \"42\" \"To live\" \"To love\"");
-        System.out.println("To ask a question, type the question followed by a question mark.");
-        System.out.println("Example: What is the meaning of life?");
+    public List<String> getHelp() {
+        long start = System.nanoTime();
+        try {
+            return help();
+        } finally {
+            COMMAND_LATENCIES.get(Main.CommandType.HELP).recordSince(start);
+        }
+    }
+
+    private static List<String> help() {
+        return List.of(
+                "To add a question, type the question followed by the answers in quotes.",
+                "Example: What is the meaning of life? \"42\" \"To live\" \"To love\"",
+                "Inside an answer, type \\\" for a quote and \\\\ for a backslash that ends an answer followed by another one.",
+                "To ask a question, type the question followed by a question mark.",
+                "Example: What is the meaning of life?",
+                "To search the stored questions and answers, type search followed by the words to find.",
+                "Example: search meaning life, or search --page 2 meaning life for the next results",
+                "To ask several questions at once, type batch, then one question per line and an empty line to finish.",
+                "Example: batch, What is the meaning of life?, What is 2 + 2?, empty line");
     }
 
     /**
@@ -55,118 +123,369 @@ public class AppService {
      * Validates the command and adds the question to the database
      *
      * @param command The command string containing the question and answers
+     * @return The outcome of the add, including the validation error if the command was rejected
      * @throws SQLException if an error occurs while adding the question to the database
      */
-    public void handleAddQuestion(String command) throws SQLException {
-        Question questionToAdd = validateAndSplitCmd(command, dao);
-        if (questionToAdd != null) {
-            boolean addSuccess = dao.addQuestion(questionToAdd);
-            if (addSuccess) {
-                System.out.println("Question added successfully.");
-            } else {
-                System.out.println("Failed to add question.");
+    public AddResult handleAddQuestion(String command) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return addQuestion(command);
+        } finally {
+            COMMAND_LATENCIES.get(Main.CommandType.ADD_QUESTION).recordSince(start);
+        }
+    }
+
+    private AddResult addQuestion(String command) throws SQLException {
+        Question questionToAdd;
+        try {
+            questionToAdd = validateAndSplitCmd(command);
+        } catch (InvalidCommandException e) {
+            return AddResult.invalid(e.getError());
+        }
+
+        // The store detects a stored question itself, in the same step as the add
+        AddResult.Status status;
+        searchIndexLock.readLock().lock();
+        try {
+            status = store.addQuestionIfAbsent(questionToAdd);
+            if (status == AddResult.Status.ADDED) {
+                indexAddedQuestion(questionToAdd);
             }
+        } finally {
+            searchIndexLock.readLock().unlock();
+        }
+        return toAddResult(questionToAdd, status);
+    }
+
+    /**
+     * Handles several add commands that are validated and split already, e.g. by {@link ScriptRunner}
+     * The store adds them together, which takes one transaction instead of one per question for the database,
+     * so every add is recorded with the latency of the whole group
+     *
+     * @param questions The questions to be added, in the order of the commands
+     * @return The outcome of every add, in the order of the questions
+     * @throws SQLException if an error occurs while adding the questions to the database
+     */
+    public List<AddResult> handleAddQuestions(List<Question> questions) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return addQuestions(questions);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            LatencyHistogram latencies = COMMAND_LATENCIES.get(Main.CommandType.ADD_QUESTION);
+            for (int i = 0; i < questions.size(); i++) {
+                latencies.record(elapsed);
+            }
+        }
+    }
+
+    private List<AddResult> addQuestions(List<Question> questions) throws SQLException {
+        List<AddResult.Status> statuses;
+        searchIndexLock.readLock().lock();
+        try {
+            statuses = store.addQuestionsIfAbsent(questions);
+            for (int i = 0; i < questions.size(); i++) {
+                if (statuses.get(i) == AddResult.Status.ADDED) {
+                    indexAddedQuestion(questions.get(i));
+                }
+            }
+        } finally {
+            searchIndexLock.readLock().unlock();
+        }
+        List<AddResult> results = new ArrayList<>(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            results.add(toAddResult(questions.get(i), statuses.get(i)));
+        }
+        return results;
+    }
+
+    /**
+     * Adds a question to the search index, or remembers it for the build in progress. The caller holds the read lock.
+     */
+    private void indexAddedQuestion(Question question) {
+        SearchIndex index = searchIndex;
+        if (index != null) {
+            index.add(question);
+        } else if (addedDuringBuild != null) {
+            synchronized (addedDuringBuild) {
+                addedDuringBuild.add(question);
+            }
+        }
+    }
+
+    private AddResult toAddResult(Question question, AddResult.Status status) {
+        switch (status) {
+            case ADDED:
+                if (fuzzyIndex != null) {
+                    fuzzyIndex.add(question.getQuestionText());
+                }
+                return AddResult.added(question);
+            case ALREADY_EXISTS:
+                return AddResult.alreadyExists(question);
+            case READ_ONLY:
+                return AddResult.readOnly(question);
+            default:
+                return AddResult.failed(question);
         }
     }
 
     /**
      * Handles the ask question command
-     * Retrieves the answers for the question from the database
+     * Retrieves the answers for the question from the database,
+     * with fuzzy asks enabled the answers of the most similar question if the question is unknown
      *
      * @param command The command string containing the question
+     * @return The answers of the question, empty if the question is unknown
      */
-    public void handleAskQuestion(String command) {
-        String questionText = command.trim();
-        List<Answer> answers = dao.getAnswersForQuestionText(questionText);
-        if (answers.isEmpty()) {
-            System.out.println("The answer to life, universe, and everything is 42.");
-        } else {
-            for (Answer answer : answers) {
-                System.out.println(" - " + answer.getAnswerText());
-            }
+    public AskResult handleAskQuestion(String command) {
+        long start = System.nanoTime();
+        try {
+            return askQuestion(command.trim());
+        } finally {
+            COMMAND_LATENCIES.get(Main.CommandType.ASK_QUESTION).recordSince(start);
+        }
+    }
+
+    private AskResult askQuestion(String questionText) {
+        AskResult result = new AskResult(questionText, store.getAnswersForQuestionText(questionText));
+        if (result.isAnswered() || fuzzyIndex == null) {
+            return result;
         }
+
+        List<QuestionMatch> matches = fuzzyIndex.search(questionText, 1, FuzzyQuestionIndex.DEFAULT_THRESHOLD);
+        if (matches.isEmpty()) {
+            return result;
+        }
+        String matchedText = matches.get(0).getQuestionText();
+        return new AskResult(questionText, store.getAnswersForQuestionText(matchedText), matchedText);
     }
 
     /**
-     * Handles unknown commands
+     * Handles the ask question command one page of answers at a time
+     * Retrieves only the answers of the page from the store, so a question with very many answers is not read at once.
+     * With fuzzy asks an unknown question is answered with the page of the most similar question,
+     * the following pages are asked with the text of that question.
+     * An ask spread over several pages is one command, the caller records it once with {@link #recordAskQuestion}
+     *
+     * @param command The command string containing the question
+     * @param after The position of the last answer already read, {@code -1} for the first page
+     * @param limit The maximum number of answers on the page
+     * @return The page of answers, empty if the question is unknown or no answers follow the position
      */
-    public void handleUnknownCommand() {
-        System.out.println("Unknown command. If you are having problems try help.");
+    public AnswerPage handleAskQuestionPage(String command, int after, int limit) {
+        return askQuestionPage(command.trim(), after, limit);
     }
 
     /**
-     * Validates the command and splits it into a Question object
+     * Records the latency of an ask command answered with {@link #handleAskQuestionPage}, once however many pages
+     * it was read in
      *
-     * @param command The string containing the question and the answers.
-     * @param dao The Data Access Object (DAO) used to interact with the database.
-     * @return Question object if the command is valid, null otherwise
-     */
-    private static Question validateAndSplitCmd(String command, DAO dao) {
-        // Check if the command has a question part
-        if (command.contains("?")) {
-            List<Answer> answers = new ArrayList<>();
-            Question questionToAdd;
-
-            String[] cmdParts = command.split("\\?");
-            String question = cmdParts[0].trim() + "?";
-
-            //Check if the question already exists in the database
-            if (dao.isQuestionStored(question)) {
-                System.out.println("Question already exists in the database.");
-                return null;
-            }
+     * @param startNanos The {@link System#nanoTime()} before the first page was read
+     */
+    public void recordAskQuestion(long startNanos) {
+        COMMAND_LATENCIES.get(Main.CommandType.ASK_QUESTION).recordSince(startNanos);
+    }
 
-            // Check if the command has an answer part
-            if (cmdParts.length > 1) {
-                String partAfterQuestionMark = cmdParts[1].trim();
+    private AnswerPage askQuestionPage(String questionText, int after, int limit) {
+        AnswerPage page = readAnswerPage(questionText, questionText, after, limit);
+        // A later page may be empty because all answers were read, only an unknown question is matched
+        if (!page.getAnswers().isEmpty() || fuzzyIndex == null
+                || (after >= 0 && store.isQuestionStored(questionText))) {
+            return page;
+        }
 
-                String patternString = "(\"[^\"]*\"\\s*)+";
-                Pattern fullPattern = Pattern.compile(patternString);
-                Matcher fullMatcher = fullPattern.matcher(partAfterQuestionMark);
+        List<QuestionMatch> matches = fuzzyIndex.search(questionText, 1, FuzzyQuestionIndex.DEFAULT_THRESHOLD);
+        if (matches.isEmpty()) {
+            return page;
+        }
+        return readAnswerPage(questionText, matches.get(0).getQuestionText(), after, limit);
+    }
+
+    private AnswerPage readAnswerPage(String questionText, String matchedText, int after, int limit) {
+        // One answer more than the page tells if another page follows
+        List<Answer> answers = store.getAnswersAfter(matchedText, after, limit + 1);
+        boolean hasMore = answers.size() > limit;
+        if (hasMore) {
+            answers = answers.subList(0, limit);
+        }
+        return new AnswerPage(questionText, matchedText, after, answers, hasMore);
+    }
 
-                // If the whole string matches the pattern, it is a valid command
-                if (fullMatcher.matches()) {
-                    // Extract all the strings between quotes -> answers
-                    Pattern quotePattern = Pattern.compile("\"([^\"]*)\"");
-                    Matcher matcher = quotePattern.matcher(partAfterQuestionMark);
+    /**
+     * Handles several ask question commands at once
+     * Retrieves the answers of all questions from the store together, which takes one query instead of one per
+     * question for the database. With fuzzy asks the unknown questions are answered like in {@link #handleAskQuestion}
+     *
+     * @param commands The command strings, each containing a question
+     * @return The answers of every question, in the order of the commands
+     */
+    public List<AskResult> handleAskQuestions(List<String> commands) {
+        long start = System.nanoTime();
+        try {
+            return askQuestions(commands);
+        } finally {
+            COMMAND_LATENCIES.get(Main.CommandType.BATCH_ASK).recordSince(start);
+        }
+    }
 
-                    // Add all the extracted strings to the answers list
-                    while (matcher.find()) {
-                        String extractedString = matcher.group(1);
-                        answers.add(new Answer(extractedString));
-                    }
+    private List<AskResult> askQuestions(List<String> commands) {
+        List<String> questionTexts = new ArrayList<>(commands.size());
+        for (String command : commands) {
+            questionTexts.add(command.trim());
+        }
+        Map<String, List<Answer>> answers = store.getAnswersForQuestionTexts(questionTexts);
 
-                } else {
-                    System.out.println("Invalid format. Strings must be properly quoted.");
-                    return null;
+        // The most similar stored question of every unanswered one, resolved in a second batch
+        Map<String, List<Answer>> similarAnswers = Map.of();
+        List<String> matchedTexts = new ArrayList<>(questionTexts.size());
+        for (String questionText : questionTexts) {
+            String matchedText = questionText;
+            if (fuzzyIndex != null && answers.get(questionText).isEmpty()) {
+                List<QuestionMatch> matches = fuzzyIndex.search(questionText, 1, FuzzyQuestionIndex.DEFAULT_THRESHOLD);
+                if (!matches.isEmpty()) {
+                    matchedText = matches.get(0).getQuestionText();
+                }
+            }
+            matchedTexts.add(matchedText);
+        }
+        if (fuzzyIndex != null) {
+            List<String> similarTexts = new ArrayList<>();
+            for (int i = 0; i < questionTexts.size(); i++) {
+                if (!matchedTexts.get(i).equals(questionTexts.get(i))) {
+                    similarTexts.add(matchedTexts.get(i));
                 }
+            }
+            if (!similarTexts.isEmpty()) {
+                similarAnswers = store.getAnswersForQuestionTexts(similarTexts);
+            }
+        }
 
+        List<AskResult> results = new ArrayList<>(questionTexts.size());
+        for (int i = 0; i < questionTexts.size(); i++) {
+            String questionText = questionTexts.get(i);
+            String matchedText = matchedTexts.get(i);
+            if (matchedText.equals(questionText)) {
+                results.add(new AskResult(questionText, answers.get(questionText)));
             } else {
-                System.out.println("A question needs at least one answer.");
-                return null;
+                results.add(new AskResult(questionText, similarAnswers.get(matchedText), matchedText));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Handles the search command, {@code search [--page <n>] <terms>}
+     * Finds the stored questions containing all terms in their text or answers, the first search indexes them
+     *
+     * @param command The command string starting with search
+     * @return The requested page of the questions found, the most relevant first
+     * @throws InvalidCommandException if no terms are given or the page is not a positive number
+     * @throws IllegalStateException if the questions could not be read to build the index
+     */
+    public SearchResult handleSearch(String command) {
+        String[] parts = command.trim().split("\\s+", 2);
+        String terms = parts.length > 1 ? parts[1] : "";
+        int page = 1;
+        String[] pageParts = terms.split("\\s+", 3);
+        if (pageParts[0].equals("--page")) {
+            try {
+                page = Integer.parseInt(pageParts.length > 1 ? pageParts[1] : "");
+            } catch (NumberFormatException e) {
+                throw new InvalidCommandException(ValidationError.INVALID_COMMAND);
             }
+            terms = pageParts.length > 2 ? pageParts[2] : "";
+        }
+        if (terms.isBlank() || page < 1) {
+            throw new InvalidCommandException(ValidationError.INVALID_COMMAND);
+        }
+        return search(terms, page);
+    }
+
+    /**
+     * Finds the stored questions containing all terms in their text or answers, the first search indexes them.
+     *
+     * @param terms The words to find.
+     * @param page The number of the page of {@value SearchIndex#DEFAULT_PAGE_SIZE} questions, starting at 1.
+     * @return The requested page of the questions found, the most relevant first.
+     * @throws IllegalStateException if the questions could not be read to build the index.
+     */
+    public SearchResult search(String terms, int page) {
+        long start = System.nanoTime();
+        try {
+            return getSearchIndex().search(terms, page, SearchIndex.DEFAULT_PAGE_SIZE);
+        } finally {
+            COMMAND_LATENCIES.get(Main.CommandType.SEARCH).recordSince(start);
+        }
+    }
 
-            // Check if the question is within the length limits
-            if (question.length() > 255) {
-                System.out.println("Question is too long. Maximum length is 255 characters.");
-                return null;
+    /**
+     * Returns the search index, the first call builds it. Concurrent searches wait for the build, adds do not:
+     * the questions added during the scan are added to the index afterwards, unless the scan found them already.
+     *
+     * @throws IllegalStateException if the build failed, the next search builds the index again.
+     */
+    private SearchIndex getSearchIndex() {
+        SearchIndex index = searchIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (searchIndexBuild) {
+            if (searchIndex != null) {
+                return searchIndex;
+            }
+            // Every add in progress is stored before the scan starts, every later one is remembered
+            searchIndexLock.writeLock().lock();
+            try {
+                addedDuringBuild = new ArrayList<>();
+            } finally {
+                searchIndexLock.writeLock().unlock();
             }
 
-            // Check if the answers are within the length limits
-            for (Answer answer : answers) {
-                if (answer.getAnswerText().length() > 255) {
-                    System.out.println("Answer is too long. Maximum length is 255 characters.");
-                    return null;
+            SearchIndex built = null;
+            try {
+                built = SearchIndex.build(store);
+            } finally {
+                searchIndexLock.writeLock().lock();
+                try {
+                    if (built != null) {
+                        for (Question question : addedDuringBuild) {
+                            if (!built.contains(question.getQuestionText())) {
+                                built.add(question);
+                            }
+                        }
+                        searchIndex = built;
+                    }
+                    addedDuringBuild = null;
+                } finally {
+                    searchIndexLock.writeLock().unlock();
                 }
             }
+            return built;
+        }
+    }
 
-            // Create a new Question object with the validated question and answers
-            questionToAdd = new Question(question, answers);
-            return questionToAdd;
-
-        } else {
-            System.out.println("Invalid command. Please enter a valid command.");
-            return null;
+    /**
+     * Handles unknown commands
+     *
+     * @return The message shown for an unknown command
+     */
+    public String handleUnknownCommand() {
+        long start = System.nanoTime();
+        try {
+            return "Unknown command. If you are having problems try help.";
+        } finally {
+            COMMAND_LATENCIES.get(Main.CommandType.UNKNOWN).recordSince(start);
         }
     }
+
+    /**
+     * Validates the command and splits it into a Question object without touching the database.
+     *
+     * @param command The string containing the question and the answers.
+     * @return The parsed Question object.
+     * @throws InvalidCommandException if the command is invalid, the error describes the problem.
+     */
+    static Question validateAndSplitCmd(String command) {
+        return CommandParser.parseAddCommand(command);
+    }
 }
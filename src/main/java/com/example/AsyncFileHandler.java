@@ -0,0 +1,160 @@
+package com.example;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * This class is responsible for writing log records to a file without blocking the logging thread.
+ * Records are put into a bounded queue and a background thread writes them in batches,
+ * flushing the file once per batch instead of once per record.
+ * <p>
+ * When the queue is full, the {@link OverflowPolicy} decides whether the record is dropped or the caller waits.
+ * Records at {@link Level#SEVERE} are never dropped.
+ */
+public class AsyncFileHandler extends Handler {
+    private static final int MAX_BATCH_SIZE = 512;
+
+    /**
+     * What happens to a record that is published while the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** The record is discarded and counted. */
+        DROP,
+        /** The caller waits until the writer thread made room. */
+        BLOCK
+    }
+
+    private final ArrayBlockingQueue<LogRecord> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final Writer writer;
+    private final Thread writerThread;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a handler appending to the given file.
+     *
+     * @param fileName The file the records are appended to.
+     * @param capacity The maximum number of records waiting to be written.
+     * @param overflowPolicy What happens to records published while the queue is full.
+     * @param formatter The formatter turning records into text.
+     * @throws IOException if the file cannot be opened.
+     */
+    public AsyncFileHandler(String fileName, int capacity, OverflowPolicy overflowPolicy, Formatter formatter) throws IOException {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName, true), StandardCharsets.UTF_8));
+        setFormatter(formatter);
+
+        this.writerThread = new Thread(this::writeLoop, "async-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        // The caller's stack is gone once the writer thread formats the record, so capture the source now
+        record.getSourceClassName();
+
+        if (queue.offer(record)) {
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.DROP && record.getLevel().intValue() < Level.SEVERE.intValue()) {
+            dropped.incrementAndGet();
+            return;
+        }
+        try {
+            queue.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void writeLoop() {
+        List<LogRecord> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                LogRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Interrupted by close(), the loop condition drains what is left
+            }
+        }
+    }
+
+    private void writeBatch(List<LogRecord> batch) {
+        try {
+            long droppedSinceLastBatch = dropped.getAndSet(0);
+            if (droppedSinceLastBatch > 0) {
+                writer.write("Dropped " + droppedSinceLastBatch + " log records because the log queue was full."
+                        + System.lineSeparator());
+            }
+            for (LogRecord record : batch) {
+                writer.write(getFormatter().format(record));
+            }
+            writer.flush();
+        } catch (IOException | RuntimeException e) {
+            reportError("Failed to write log records.", e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /**
+     * Returns the number of records dropped since the last batch was written.
+     *
+     * @return The number of dropped records.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public void flush() {
+        // Records are flushed by the writer thread after every batch
+    }
+
+    /**
+     * Writes all queued records and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writerThread.interrupt();
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            reportError("Failed to close log file.", e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Question;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for importing large files of add commands into the database.
+ * Every line of the file has the same format as an add command in the console,
+ * e.g. {@code What is the meaning of life? "42" "To live"}.
+ * <p>
+ * The file is streamed in chunks: a chunk is read, parsed on a worker thread and written in one transaction,
+ * while only a bounded number of chunks is in flight at the same time.
+ * Duplicates are detected with an in-memory set of all question texts instead of a query per line. A question that is
+ * added concurrently, e.g. over HTTP, is still skipped by the store and counted as a duplicate instead of failing the
+ * import, because the chunks written before are already committed.
+ */
+public class BulkImporter {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    private static final int DEFAULT_CHUNK_SIZE = 10_000;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final QuestionStore store;
+    private final int chunkSize;
+    private final int parserThreads;
+
+    /**
+     * Constructs an instance of the BulkImporter class with default chunk size and one parser thread per core.
+     *
+     * @param store The store the questions are written to.
+     */
+    public BulkImporter(QuestionStore store) {
+        this(store, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an instance of the BulkImporter class.
+     *
+     * @param store The store the questions are written to.
+     * @param chunkSize The number of lines parsed together and written in one transaction.
+     * @param parserThreads The number of threads parsing chunks in parallel.
+     */
+    public BulkImporter(QuestionStore store, int chunkSize, int parserThreads) {
+        this.store = store;
+        this.chunkSize = chunkSize;
+        this.parserThreads = parserThreads;
+    }
+
+    /**
+     * Imports all add commands of the given file.
+     *
+     * @param file The file containing one add command per line.
+     * @return The statistics of the import.
+     * @throws IOException if the file cannot be read.
+     * @throws SQLException if a chunk cannot be written to the database.
+     */
+    public ImportResult importFile(Path file) throws IOException, SQLException {
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+
+        // Load the stored question texts once, so the duplicate check does not need a query per line
+        Set<String> knownQuestions = new HashSet<>();
+        store.forEachQuestionText(knownQuestions::add);
+        sampleHeap(result);
+
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads);
+        ArrayDeque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<String> lines = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == chunkSize) {
+                    List<String> chunk = lines;
+                    inFlight.add(parsers.submit(() -> parseChunk(chunk)));
+                    lines = new ArrayList<>(chunkSize);
+
+                    // Keep at most two chunks per parser in memory
+                    if (inFlight.size() >= parserThreads * 2) {
+                        writeChunk(await(inFlight.poll()), knownQuestions, result);
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                List<String> chunk = lines;
+                inFlight.add(parsers.submit(() -> parseChunk(chunk)));
+            }
+            while (!inFlight.isEmpty()) {
+                writeChunk(await(inFlight.poll()), knownQuestions, result);
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+
+        result.elapsedNanos = System.nanoTime() - start;
+        LOGGER.log(Level.INFO, "Bulk import of {0} finished: {1}", new Object[]{file, result});
+        return result;
+    }
+
+    /**
+     * Parses all lines of a chunk, blank lines are skipped.
+     *
+     * @param lines The lines of the chunk.
+     * @return The parsed questions and the number of rejected lines.
+     */
+    private static ParsedChunk parseChunk(List<String> lines) {
+        ParsedChunk chunk = new ParsedChunk();
+        for (String line : lines) {
+            String command = line.trim();
+            if (command.isEmpty()) {
+                continue;
+            }
+            try {
+                chunk.questions.add(AppService.validateAndSplitCmd(command));
+            } catch (InvalidCommandException e) {
+                chunk.invalid++;
+            }
+        }
+        return chunk;
+    }
+
+    /**
+     * Removes already known questions from a parsed chunk and writes the rest, each one unless it is stored meanwhile.
+     *
+     * @param chunk The parsed chunk.
+     * @param knownQuestions The texts of all questions that are already stored or written.
+     * @param result The statistics to update.
+     * @throws SQLException if the store fails in a way it cannot report per question.
+     */
+    private void writeChunk(ParsedChunk chunk, Set<String> knownQuestions, ImportResult result) throws SQLException {
+        // Sampled while the chunks in flight are held, when the heap of the import is the largest
+        sampleHeap(result);
+        List<Question> newQuestions = new ArrayList<>(chunk.questions.size());
+        for (Question question : chunk.questions) {
+            if (knownQuestions.add(question.getQuestionText())) {
+                newQuestions.add(question);
+            } else {
+                result.duplicates++;
+            }
+        }
+        result.invalid += chunk.invalid;
+
+        if (newQuestions.isEmpty()) {
+            return;
+        }
+        for (AddResult.Status status : store.addQuestionsIfAbsent(newQuestions)) {
+            if (status == AddResult.Status.ADDED) {
+                result.imported++;
+            } else if (status == AddResult.Status.ALREADY_EXISTS) {
+                result.duplicates++;
+            } else {
+                result.failed++;
+            }
+        }
+    }
+
+    private static ParsedChunk await(Future<ParsedChunk> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk import was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parsing a chunk failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Samples the used heap. The peaks of the single memory pools are not summed up instead,
+     * eden and survivor spaces reach them at different times, so their sum overstates the peak of the heap.
+     */
+    private static void sampleHeap(ImportResult result) {
+        result.peakHeapBytes = Math.max(result.peakHeapBytes, MEMORY.getHeapMemoryUsage().getUsed());
+    }
+
+    /**
+     * The questions parsed from one chunk of lines.
+     */
+    private static class ParsedChunk {
+        private final List<Question> questions = new ArrayList<>();
+        private int invalid;
+    }
+
+    /**
+     * The statistics of a bulk import.
+     */
+    public static class ImportResult {
+        private long imported;
+        private long duplicates;
+        private long invalid;
+        private long failed;
+        private long elapsedNanos;
+        private long peakHeapBytes;
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getDuplicates() {
+            return duplicates;
+        }
+
+        public long getInvalid() {
+            return invalid;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public double getRowsPerSecond() {
+            long rows = imported + duplicates + invalid + failed;
+            return elapsedNanos == 0 ? 0 : rows / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * @return The largest used heap sampled after loading the stored questions and before writing every chunk.
+         */
+        public long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d imported, %d duplicates, %d invalid, %d failed in %.1f s (%.0f rows/s, peak heap %d MB)",
+                    imported, duplicates, invalid, failed, elapsedNanos / 1e9, getRowsPerSecond(), peakHeapBytes / (1024 * 1024));
+        }
+    }
+}
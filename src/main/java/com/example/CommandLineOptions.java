@@ -0,0 +1,218 @@
+package com.example;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * This class is responsible for parsing the command line arguments of {@link Main}.
+ * <p>
+ * The options may be given in any order, each at most once. At most one of {@code --server}, {@code --script},
+ * {@code --import} and {@code --export} selects the mode, without one the console runs.
+ * Unknown options, options that contradict each other and invalid numbers are rejected with an
+ * {@link IllegalArgumentException} whose message names the problem, followed by {@link #USAGE} for the user.
+ */
+public final class CommandLineOptions {
+    public static final String USAGE = String.join("\n",
+            "Usage: Main [options] [--server <port> | --script [<file>] | --import <file> | --export <file>]",
+            "Options:",
+            "  --shards <n>       spread the questions across n databanks",
+            "  --journal <dir>    keep the databank in memory, durable through a journal in dir",
+            "  --snapshot <file>  serve a read-only snapshot instead of the databank",
+            "  --write-behind     commit concurrent adds in groups",
+            "  --fuzzy            answer unknown questions with the most similar stored question",
+            "  --metrics <file>   write the metrics into file every ten seconds and on exit");
+
+    /**
+     * What the application does once the store is open.
+     */
+    public enum Mode {
+        INTERACTIVE,
+        SERVER,
+        SCRIPT,
+        IMPORT,
+        EXPORT
+    }
+
+    private Mode mode = Mode.INTERACTIVE;
+    private int port;
+    private Path file;
+    private int shards;
+    private Path journal;
+    private Path snapshot;
+    private Path metrics;
+    private boolean writeBehind;
+    private boolean fuzzy;
+
+    private CommandLineOptions() {
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args The arguments passed to {@link Main#main(String[])}.
+     * @return The parsed options.
+     * @throws IllegalArgumentException if an option is unknown, given twice, misses its value, has an invalid number
+     *                                  or contradicts another option.
+     */
+    public static CommandLineOptions parse(String... args) {
+        CommandLineOptions options = new CommandLineOptions();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (!seen.add(option)) {
+                throw new IllegalArgumentException("The option " + option + " is given twice.");
+            }
+            switch (option) {
+                case "--server":
+                    options.setMode(Mode.SERVER, option);
+                    options.port = parseNumber(option, value(args, ++i, option), 0, 65_535);
+                    break;
+                case "--script":
+                    options.setMode(Mode.SCRIPT, option);
+                    // The file is optional, without it the script is read from the standard input
+                    if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                        options.file = Path.of(args[++i]);
+                    }
+                    break;
+                case "--import":
+                    options.setMode(Mode.IMPORT, option);
+                    options.file = Path.of(value(args, ++i, option));
+                    break;
+                case "--export":
+                    options.setMode(Mode.EXPORT, option);
+                    options.file = Path.of(value(args, ++i, option));
+                    break;
+                case "--shards":
+                    options.shards = parseNumber(option, value(args, ++i, option), 1, 1_024);
+                    break;
+                case "--journal":
+                    options.journal = Path.of(value(args, ++i, option));
+                    break;
+                case "--snapshot":
+                    options.snapshot = Path.of(value(args, ++i, option));
+                    break;
+                case "--metrics":
+                    options.metrics = Path.of(value(args, ++i, option));
+                    break;
+                case "--write-behind":
+                    options.writeBehind = true;
+                    break;
+                case "--fuzzy":
+                    options.fuzzy = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        options.checkCombination();
+        return options;
+    }
+
+    private void setMode(Mode newMode, String option) {
+        if (mode != Mode.INTERACTIVE) {
+            throw new IllegalArgumentException("The option " + option + " cannot be combined with "
+                    + optionOf(mode) + ".");
+        }
+        mode = newMode;
+    }
+
+    private void checkCombination() {
+        if (snapshot != null) {
+            // A snapshot is served instead of the databank, the options of the databank would be ignored
+            rejectWith("--snapshot", "--shards", shards > 0);
+            rejectWith("--snapshot", "--journal", journal != null);
+            rejectWith("--snapshot", "--write-behind", writeBehind);
+            rejectWith("--snapshot", optionOf(mode), mode == Mode.IMPORT || mode == Mode.EXPORT);
+        }
+        if (mode == Mode.IMPORT || mode == Mode.EXPORT) {
+            rejectWith(optionOf(mode), "--write-behind", writeBehind);
+            rejectWith(optionOf(mode), "--fuzzy", fuzzy);
+        }
+    }
+
+    private static void rejectWith(String option, String otherOption, boolean given) {
+        if (given) {
+            throw new IllegalArgumentException("The option " + option + " cannot be combined with " + otherOption + ".");
+        }
+    }
+
+    private static String optionOf(Mode mode) {
+        return "--" + mode.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length || args[index].startsWith("--")) {
+            throw new IllegalArgumentException("The option " + option + " needs a value.");
+        }
+        return args[index];
+    }
+
+    private static int parseNumber(String option, String value, int min, int max) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= min && number <= max) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below like a number out of range
+        }
+        throw new IllegalArgumentException("The value of " + option + " has to be a number from " + min + " to " + max
+                + ", not " + value + ".");
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return The port of the server, {@code 0} picks a free port.
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * @return The file to import, export or run as a script, {@code null} for a script read from the standard input.
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return The number of shards, {@code 0} for the single databank.
+     */
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * @return The directory of the journal of an in-memory databank, or {@code null} for databanks on disk.
+     */
+    public Path getJournal() {
+        return journal;
+    }
+
+    /**
+     * @return The snapshot file to serve, or {@code null} to serve the databank.
+     */
+    public Path getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return The file the metrics are dumped into, or {@code null} if they are not dumped.
+     */
+    public Path getMetrics() {
+        return metrics;
+    }
+
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public boolean isFuzzy() {
+        return fuzzy;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example;
+
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import com.example.dto.ValidationError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class is responsible for parsing add commands in a single pass over the input.
+ * <p>
+ * An add command consists of the question, ending with a question mark, followed by one or more quoted answers:
+ * {@code What is the meaning of life? "42" "To live"}.
+ * The question ends at the first question mark that is followed by a quote or the end of the command,
+ * so questions may contain further question marks and quotes, e.g. {@code Is "it" A? Or B? "A"}.
+ * Inside an answer, {@code \"} stands for a quote and {@code \\} for a backslash. A {@code \"} that is not followed
+ * by another quote ends the answer with a backslash, so {@code Path? "C:\"} stays valid as before the escapes.
+ * A backslash at the end of an answer that is followed by further answers has to be written as {@code \\},
+ * e.g. {@code Paths? "C:\\" "D:\"}.
+ * <p>
+ * The parser runs in linear time on any input and allocates nothing but the resulting question and answers.
+ */
+public final class CommandParser {
+    public static final int MAX_LENGTH = 255;
+
+    private CommandParser() {
+    }
+
+    /**
+     * Parses an add command into a Question object.
+     *
+     * @param command The string containing the question and the answers.
+     * @return The parsed Question object.
+     * @throws InvalidCommandException if the command is invalid, the error describes the problem.
+     */
+    public static Question parseAddCommand(String command) {
+        int length = command.length();
+        int questionEnd = findQuestionEnd(command);
+        if (questionEnd < 0) {
+            // A question mark that is not followed by answers means the answers are not quoted properly
+            throw new InvalidCommandException(command.indexOf('?') < 0
+                    ? ValidationError.INVALID_COMMAND
+                    : ValidationError.NOT_QUOTED);
+        }
+
+        int position = skipWhitespace(command, questionEnd + 1);
+        if (position == length) {
+            throw new InvalidCommandException(ValidationError.MISSING_ANSWER);
+        }
+
+        // A quote after the last one cannot close an answer, so a backslash in front of it is not an escape
+        int lastQuote = command.lastIndexOf('"');
+        List<Answer> answers = new ArrayList<>();
+        boolean answerTooLong = false;
+        while (position < length) {
+            if (command.charAt(position) != '"') {
+                throw new InvalidCommandException(ValidationError.NOT_QUOTED);
+            }
+            int start = position + 1;
+            int end = start;
+            boolean escaped = false;
+            // Find the closing quote, remembering whether the answer contains escapes
+            while (end < length && command.charAt(end) != '"') {
+                if (command.charAt(end) == '\\' && end + 1 < length
+                        && ((command.charAt(end + 1) == '"' && end + 1 < lastQuote) || command.charAt(end + 1) == '\\')) {
+                    escaped = true;
+                    end++;
+                }
+                end++;
+            }
+            if (end == length) {
+                throw new InvalidCommandException(ValidationError.NOT_QUOTED);
+            }
+
+            String answerText = escaped ? unescape(command, start, end) : command.substring(start, end);
+            answerTooLong |= answerText.length() > MAX_LENGTH;
+            answers.add(new Answer(answerText));
+            position = skipWhitespace(command, end + 1);
+        }
+
+        // The question text is trimmed, also in front of its question mark
+        int questionStart = skipWhitespace(command, 0);
+        int textEnd = questionEnd;
+        while (textEnd > questionStart && Character.isWhitespace(command.charAt(textEnd - 1))) {
+            textEnd--;
+        }
+        // Check if the question is within the length limits
+        if (textEnd + 1 - questionStart > MAX_LENGTH) {
+            throw new InvalidCommandException(ValidationError.QUESTION_TOO_LONG);
+        }
+        // Check if the answers are within the length limits
+        if (answerTooLong) {
+            throw new InvalidCommandException(ValidationError.ANSWER_TOO_LONG);
+        }
+
+        String questionText = textEnd == questionEnd
+                ? command.substring(questionStart, questionEnd + 1)
+                : command.substring(questionStart, textEnd) + "?";
+        return new Question(questionText, answers);
+    }
+
+    /**
+     * Finds the question mark that ends the question: the first one followed by a quote or the end of the command.
+     *
+     * @param command The command to search.
+     * @return The index of the question mark, or {@code -1} if there is none.
+     */
+    private static int findQuestionEnd(String command) {
+        int length = command.length();
+        int position = command.indexOf('?');
+        while (position >= 0) {
+            int next = skipWhitespace(command, position + 1);
+            if (next == length || command.charAt(next) == '"') {
+                return position;
+            }
+            // No question mark can occur in the skipped whitespace, so the search continues behind it
+            position = command.indexOf('?', next);
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(String command, int position) {
+        int length = command.length();
+        while (position < length && Character.isWhitespace(command.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static String unescape(String command, int start, int end) {
+        StringBuilder answer = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = command.charAt(i);
+            if (c == '\\' && i + 1 < end && (command.charAt(i + 1) == '"' || command.charAt(i + 1) == '\\')) {
+                c = command.charAt(++i);
+            }
+            answer.append(c);
+        }
+        return answer.toString();
+    }
+}
@@ -0,0 +1,318 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for sharing a bounded number of database connections between threads.
+ * Connections are opened lazily up to the maximum size, validated when they are handed out
+ * and replaced if they are no longer usable.
+ * <p>
+ * Every connection keeps the statements prepared on it through {@link Lease#prepareStatement(String)}, up to a
+ * bounded number per connection with the least recently used one closed first. A statement prepared again on the
+ * same connection is taken from there, so the database does not parse and plan the same SQL again.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long acquireTimeoutNanos;
+    private final int statementCacheSize;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<PooledConnection> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a pool opening its connections with {@link DriverManager}.
+     *
+     * @param jdbcUrl The JDBC URL of the database.
+     * @param user The database user.
+     * @param password The password of the database user.
+     * @param maxSize The maximum number of connections.
+     * @param acquireTimeout The maximum time to wait for a free connection.
+     */
+    public ConnectionPool(String jdbcUrl, String user, String password, int maxSize, Duration acquireTimeout) {
+        this(jdbcUrl, user, password, maxSize, acquireTimeout, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a pool opening its connections with {@link DriverManager}.
+     *
+     * @param jdbcUrl The JDBC URL of the database.
+     * @param user The database user.
+     * @param password The password of the database user.
+     * @param maxSize The maximum number of connections.
+     * @param acquireTimeout The maximum time to wait for a free connection.
+     * @param statementCacheSize The maximum number of prepared statements kept per connection, {@code 0} disables it.
+     */
+    public ConnectionPool(String jdbcUrl, String user, String password, int maxSize, Duration acquireTimeout,
+                          int statementCacheSize) {
+        this(() -> DriverManager.getConnection(jdbcUrl, user, password), maxSize, acquireTimeout, statementCacheSize);
+    }
+
+    private ConnectionPool(ConnectionFactory factory, int maxSize, Duration acquireTimeout, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("A connection pool needs at least one connection.");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("The statement cache size cannot be negative.");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Creates a pool around a single existing connection.
+     * Callers are serialized on that connection. If it becomes invalid, it cannot be replaced.
+     *
+     * @param connection The existing connection.
+     * @return A pool of size one handing out the given connection.
+     */
+    public static ConnectionPool of(Connection connection) {
+        ConnectionPool pool = new ConnectionPool(() -> {
+            throw new SQLException("The connection of a single connection pool cannot be replaced.");
+        }, 1, Duration.ofDays(1), DEFAULT_STATEMENT_CACHE_SIZE);
+        pool.idle.add(pool.new PooledConnection(connection));
+        return pool;
+    }
+
+    /**
+     * Takes a connection from the pool, waiting at most the acquisition timeout for a free one.
+     * The returned lease must be closed to give the connection back.
+     *
+     * @return A lease on a valid connection.
+     * @throws SQLException if no connection became free in time or a new connection could not be opened.
+     */
+    public Lease acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLException("Timed out waiting for one of " + maxSize + " pooled connections.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a pooled connection.", e);
+        }
+
+        try {
+            return new Lease(takeValidConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection takeValidConnection() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            if (pooled.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return pooled;
+            }
+            LOGGER.log(Level.WARNING, "Discarding invalid pooled connection.");
+            // Closing the connection closes its statements as well
+            closeQuietly(pooled.connection);
+        }
+        return new PooledConnection(factory.open());
+    }
+
+    private void release(PooledConnection pooled) {
+        if (closed) {
+            closeQuietly(pooled.connection);
+        } else {
+            idle.add(pooled);
+        }
+        permits.release();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of connections that are currently handed out.
+     *
+     * @return The number of leased connections.
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * Returns the number of open connections waiting in the pool.
+     *
+     * @return The number of idle connections.
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Returns how often a prepared statement was taken from the cache of its connection.
+     *
+     * @return The number of statement cache hits.
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    /**
+     * Returns how often a statement had to be prepared because its connection did not hold it.
+     *
+     * @return The number of statement cache misses.
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    /**
+     * Closes all idle connections. Leased connections are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection pooled;
+        while ((pooled = idle.poll()) != null) {
+            closeQuietly(pooled.connection);
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to close pooled connection.", e);
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to close cached statement.", e);
+        }
+    }
+
+    /**
+     * Opens new connections for the pool.
+     */
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * A pooled connection with the statements prepared on it, only used by the thread holding its lease.
+     */
+    private final class PooledConnection {
+        private final Connection connection;
+        // Access ordered, the least recently used statement comes first
+        private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    /**
+     * A connection taken from the pool. Closing the lease gives the connection back instead of closing it.
+     */
+    public class Lease implements AutoCloseable {
+        private final PooledConnection pooled;
+        // Statements that are no longer cached but may still be in use by the holder of this lease
+        private final List<PreparedStatement> toClose = new ArrayList<>();
+        private boolean released;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        public Connection connection() {
+            return pooled.connection;
+        }
+
+        /**
+         * Returns a prepared statement for the SQL, taken from the statements of this connection if it was prepared
+         * on it before. Its parameters and batch are cleared.
+         * The statement belongs to the pool: it must not be closed and not be used after the lease is closed.
+         *
+         * @param sql The SQL of the statement.
+         * @return The prepared statement.
+         * @throws SQLException if the statement cannot be prepared.
+         */
+        public PreparedStatement prepareStatement(String sql) throws SQLException {
+            return prepareStatement(sql, Statement.NO_GENERATED_KEYS);
+        }
+
+        /**
+         * Returns a prepared statement for the SQL like {@link #prepareStatement(String)}.
+         *
+         * @param sql The SQL of the statement.
+         * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} to read the generated keys of inserts.
+         * @return The prepared statement.
+         * @throws SQLException if the statement cannot be prepared.
+         */
+        public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+            String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K" + sql : "N" + sql;
+            PreparedStatement statement = pooled.statements.get(key);
+            if (statement != null && !statement.isClosed()) {
+                statementCacheHits.incrementAndGet();
+                statement.clearParameters();
+                statement.clearBatch();
+                return statement;
+            }
+
+            statementCacheMisses.incrementAndGet();
+            statement = pooled.connection.prepareStatement(sql, autoGeneratedKeys);
+            if (statementCacheSize == 0) {
+                toClose.add(statement);
+                return statement;
+            }
+            pooled.statements.put(key, statement);
+            if (pooled.statements.size() > statementCacheSize) {
+                Map.Entry<String, PreparedStatement> eldest = pooled.statements.entrySet().iterator().next();
+                pooled.statements.remove(eldest.getKey());
+                toClose.add(eldest.getValue());
+            }
+            return statement;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                for (PreparedStatement statement : toClose) {
+                    closeQuietly(statement);
+                }
+                release(pooled);
+            }
+        }
+    }
+}
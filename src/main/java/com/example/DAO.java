@@ -1,33 +1,85 @@
 package com.example;
 
 
+import com.example.dto.AddResult;
 import com.example.dto.Answer;
 import com.example.dto.Question;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.*;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Locale;
 
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import java.util.logging.*;
 
 /**
  * This class is responsible for handling the database operations.
+ * Every operation borrows a connection from a {@link ConnectionPool}, so one instance can be shared by many threads.
+ * Statements are prepared through the lease of the connection, which keeps them for the next operation on it.
+ * The latency of every lookup and add is recorded in the histogram {@code dao.<method>} of {@link Metrics#getDefault()},
+ * the scans of all questions are not.
  */
-public class DAO {
+public class DAO implements QuestionStore {
     private static final Logger LOGGER = LoggerConfig.getLogger();
-    private final Connection CONNECTION;
+    private static final LatencyHistogram GET_ANSWERS_LATENCY = Metrics.getDefault().histogram("dao.getAnswersForQuestionText");
+    private static final LatencyHistogram GET_ANSWERS_BATCH_LATENCY = Metrics.getDefault().histogram("dao.getAnswersForQuestionTexts");
+    private static final LatencyHistogram GET_ANSWERS_AFTER_LATENCY = Metrics.getDefault().histogram("dao.getAnswersAfter");
+    private static final LatencyHistogram FOR_EACH_ANSWER_LATENCY = Metrics.getDefault().histogram("dao.forEachAnswer");
+    private static final LatencyHistogram ADD_QUESTION_LATENCY = Metrics.getDefault().histogram("dao.addQuestion");
+    private static final LatencyHistogram ADD_QUESTIONS_LATENCY = Metrics.getDefault().histogram("dao.addQuestions");
+    private static final LatencyHistogram ADD_QUESTIONS_IF_ABSENT_LATENCY = Metrics.getDefault().histogram("dao.addQuestionsIfAbsent");
+    private static final LatencyHistogram IS_QUESTION_STORED_LATENCY = Metrics.getDefault().histogram("dao.isQuestionStored");
+    private static final String JDBC_URL = "jdbc:h2:./data/databank";
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final Duration DEFAULT_ACQUIRE_TIMEOUT = Duration.ofSeconds(30);
+    private static final int ANSWER_LOOKUP_CHUNK_SIZE = 1024;
+    private static final int QUESTION_LOOKUP_CHUNK_SIZE = 1024;
+    private static final int ANSWER_PAGE_SIZE = 1024;
+    private static final int MAX_INSERT_ATTEMPTS = 2;
+    private static final String UNIQUE_VIOLATION = "23505";
+    // The unique index on the question texts, see V1__initial_schema.sql
+    private static final String QUESTION_TEXT_INDEX = "IDX_QUESTIONS_QUESTION_TEXT";
+
+    private final ConnectionPool connectionPool;
+    private final AnswerCache answerCache;
 
     /**
-     * Constructs an instance of DAO and establishes a database connection.
+     * Constructs an instance of DAO with a pool of connections to the databank and migrates its schema.
+     * The stored data is kept, only missing schema migrations are applied.
      *
-     * @throws SQLException if a database access error occurs or the URL is incorrect.
+     * @throws SQLException if a database access error occurs, the URL is incorrect or a migration fails.
      */
     public DAO() throws SQLException {
-        // JDBC URL with INIT parameter to run the SQL script
-        String jdbcUrl = "jdbc:h2:./data/databank;INIT=RUNSCRIPT FROM 'classpath:schema.sql'";
-        try {
-            CONNECTION = DriverManager.getConnection(jdbcUrl, "sa", "");
+        this(JDBC_URL);
+    }
+
+    /**
+     * Constructs an instance of DAO with a pool of connections to the given database and migrates its schema,
+     * like {@link #DAO()}. The caller closes the pool when the database is not used anymore.
+     *
+     * @param jdbcUrl The URL of the H2 database, e.g. {@code jdbc:h2:./data/shard-0}.
+     * @throws SQLException if a database access error occurs, the URL is incorrect or a migration fails.
+     */
+    public DAO(String jdbcUrl) throws SQLException {
+        this.connectionPool = new ConnectionPool(jdbcUrl, "sa", "", DEFAULT_POOL_SIZE, DEFAULT_ACQUIRE_TIMEOUT);
+        this.answerCache = new AnswerCache();
+        // Migrate once, not for every pooled connection
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            SchemaMigrator.migrate(lease.connection());
             LOGGER.log(Level.INFO, "Database connection established.");
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to establish database connection.", e);
@@ -36,30 +88,118 @@ public class DAO {
     }
 
     /**
-     * Constructs an instance of DAO with an existing connection.
+     * Constructs an instance of DAO with an existing connection and an answer cache with the default limits.
+     * All callers of this DAO are serialized on that connection.
      *
      * @param connection An existing database connection.
      */
     public DAO(Connection connection) {
-        this.CONNECTION = connection;
+        this(connection, new AnswerCache());
+    }
+
+    /**
+     * Constructs an instance of DAO with an existing connection and answer cache.
+     * All callers of this DAO are serialized on that connection.
+     *
+     * @param connection An existing database connection.
+     * @param answerCache The cache answers are read through.
+     */
+    public DAO(Connection connection, AnswerCache answerCache) {
+        this(ConnectionPool.of(connection), answerCache);
+    }
+
+    /**
+     * Constructs an instance of DAO with an existing connection pool and answer cache.
+     * The caller stays responsible for closing the pool.
+     *
+     * @param connectionPool The pool providing the database connections.
+     * @param answerCache The cache answers are read through.
+     */
+    public DAO(ConnectionPool connectionPool, AnswerCache answerCache) {
+        this.connectionPool = connectionPool;
+        this.answerCache = answerCache;
+    }
+
+    /**
+     * Returns the pool the connections of this DAO are borrowed from, e.g. to read its usage.
+     *
+     * @return The connection pool of this DAO.
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Publishes the counters of the answer cache and the usage of the connection pool of this DAO as gauges.
+     *
+     * @param metrics The registry the gauges are registered in.
+     */
+    public void registerMetrics(Metrics metrics) {
+        metrics.gauge("answerCache.size", answerCache::size);
+        metrics.gauge("answerCache.hits", answerCache::getHits);
+        metrics.gauge("answerCache.misses", answerCache::getMisses);
+        metrics.gauge("answerCache.evictions", answerCache::getEvictions);
+        metrics.gauge("answerCache.expirations", answerCache::getExpirations);
+        metrics.gauge("connectionPool.active", connectionPool::getActiveCount);
+        metrics.gauge("connectionPool.idle", connectionPool::getIdleCount);
+        metrics.gauge("connectionPool.statementCacheHits", connectionPool::getStatementCacheHits);
+        metrics.gauge("connectionPool.statementCacheMisses", connectionPool::getStatementCacheMisses);
     }
 
     /**
-     * Retrieves a list of answers associated with a given question text from the database.
+     * Returns the cache in front of {@link #getAnswersForQuestionText(String)}, e.g. to read its counters.
+     *
+     * @return The answer cache of this DAO.
+     */
+    public AnswerCache getAnswerCache() {
+        return answerCache;
+    }
+
+    /**
+     * Retrieves a list of answers associated with a given question text.
+     * The answers are read through the answer cache, only a cache miss queries the database.
      *
      * @param questionText The text of the question for which the answers should be returned.
-     * @return A {@link List} of {@link Answer} objects belonging to the question.
+     * @return An unmodifiable {@link List} of {@link Answer} objects belonging to the question, whether cached or not.
      * If no answers are found, an empty list is returned.
      */
+    @Override
     public List<Answer> getAnswersForQuestionText(String questionText) {
+        long start = System.nanoTime();
+        try {
+            List<Answer> cached = answerCache.get(questionText);
+            if (cached != null) {
+                return cached;
+            }
+
+            long generation = answerCache.generation();
+            List<Answer> answers = loadAnswersForQuestionText(questionText);
+            if (answers == null) {
+                return List.of();
+            }
+            return answerCache.put(questionText, answers, generation);
+        } finally {
+            GET_ANSWERS_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Loads the answers associated with a given question text from the database.
+     *
+     * @param questionText The text of the question for which the answers should be returned.
+     * @return The answers of the question, or {@code null} if the query failed.
+     */
+    private List<Answer> loadAnswersForQuestionText(String questionText) {
         List<Answer> answers = new ArrayList<>();
         String query = "SELECT a.answer_text " +
                 "FROM questions q " +
                 "JOIN question_answers qa ON q.id = qa.question_id " +
                 "JOIN answers a ON qa.answer_id = a.id " +
-                "WHERE q.question_text = ?";
+                "WHERE q.question_text = ? " +
+                "ORDER BY qa.answer_position";
 
-        try (var stmt = CONNECTION.prepareStatement(query)) {
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            PreparedStatement stmt = lease.prepareStatement(query);
             stmt.setString(1, questionText);
             try (var resultSet = stmt.executeQuery()) {
                 while (resultSet.next()) {
@@ -68,66 +208,656 @@ public class DAO {
                 }
             }
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error occurred while fetching answers for question: " + questionText, e);
+            LOGGER.log(Level.SEVERE, e, () -> "Error occurred while fetching answers for question: " + questionText);
+            return null;
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Fetched {0} answers for question: {1}", new Object[]{answers.size(), questionText});
+        }
+        return answers;
+    }
+
+    /**
+     * Retrieves a page of the answers of a question. The answers of a cached question are paged from the cache,
+     * otherwise the query seeks to the position with the index on the answer positions instead of skipping the
+     * answers before it. A first page holding all answers of the question is put into the cache.
+     */
+    @Override
+    public List<Answer> getAnswersAfter(String questionText, int afterPosition, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (limit < 1) {
+                return new ArrayList<>();
+            }
+            List<Answer> cached = answerCache.get(questionText);
+            if (cached != null) {
+                int from = Math.min(Math.max(afterPosition + 1, 0), cached.size());
+                return new ArrayList<>(cached.subList(from, Math.min(from + limit, cached.size())));
+            }
+
+            long generation = answerCache.generation();
+            List<Answer> answers = loadAnswersAfter(questionText, afterPosition, limit);
+            if (answers == null) {
+                return new ArrayList<>();
+            }
+            if (afterPosition < 0 && answers.size() < limit) {
+                answerCache.put(questionText, answers, generation);
+            }
+            return answers;
+        } finally {
+            GET_ANSWERS_AFTER_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Passes the answers of a question to the consumer in pages of {@value #ANSWER_PAGE_SIZE} answers, one query per
+     * page, so only one page is held at a time however many answers the question has. An embedded H2 databank
+     * reads the whole result of a query before returning its first row, a fetch size alone would not bound it.
+     * The answers are not cached, unless the question is cached already.
+     */
+    @Override
+    public boolean forEachAnswer(String questionText, Consumer<Answer> consumer) {
+        long start = System.nanoTime();
+        try {
+            List<Answer> cached = answerCache.get(questionText);
+            if (cached != null) {
+                cached.forEach(consumer);
+                return true;
+            }
+            int afterPosition = -1;
+            while (true) {
+                List<Answer> page = loadAnswersAfter(questionText, afterPosition, ANSWER_PAGE_SIZE);
+                if (page == null) {
+                    return false;
+                }
+                page.forEach(consumer);
+                if (page.size() < ANSWER_PAGE_SIZE) {
+                    return true;
+                }
+                afterPosition += page.size();
+            }
+        } finally {
+            FOR_EACH_ANSWER_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Loads the answers of a question following a position from the database.
+     *
+     * @param questionText The text of the question for which the answers should be returned.
+     * @param afterPosition The position of the last answer already read, {@code -1} for the first page.
+     * @param limit The maximum number of answers, also the fetch size of the query.
+     * @return The answers of the page, or {@code null} if the query failed.
+     */
+    private List<Answer> loadAnswersAfter(String questionText, int afterPosition, int limit) {
+        List<Answer> answers = new ArrayList<>(Math.min(limit, ANSWER_PAGE_SIZE));
+        // Starting at question_answers and ordering by both index columns lets H2 read the index in order and stop
+        // at the limit, joined from questions it sorts all following answers for every page
+        String query = "SELECT a.answer_text " +
+                "FROM question_answers qa " +
+                "JOIN answers a ON qa.answer_id = a.id " +
+                "WHERE qa.question_id = (SELECT id FROM questions WHERE question_text = ?) " +
+                "AND qa.answer_position > ? " +
+                "ORDER BY qa.question_id, qa.answer_position " +
+                "LIMIT ?";
+
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            PreparedStatement stmt = lease.prepareStatement(query);
+            stmt.setString(1, questionText);
+            stmt.setInt(2, afterPosition);
+            stmt.setInt(3, limit);
+            stmt.setFetchSize(Math.min(limit, ANSWER_PAGE_SIZE));
+            try (var resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    answers.add(new Answer(resultSet.getString(1)));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Error occurred while fetching answers after position " + afterPosition
+                    + " for question: " + questionText);
+            return null;
+        }
+        return answers;
+    }
+
+    /**
+     * Retrieves the answers of several questions in one query per {@value #QUESTION_LOOKUP_CHUNK_SIZE} questions,
+     * instead of one query per question. Questions found in the answer cache are not queried,
+     * the loaded answers are put into the cache.
+     *
+     * @param questionTexts The texts of the questions for which the answers should be returned.
+     * @return The answers of every distinct question text in the order the texts were given,
+     *         an empty list for a question that is not stored or could not be loaded. The lists are unmodifiable.
+     */
+    @Override
+    public Map<String, List<Answer>> getAnswersForQuestionTexts(Collection<String> questionTexts) {
+        long start = System.nanoTime();
+        try {
+            Map<String, List<Answer>> answers = new LinkedHashMap<>();
+            List<String> textsToLoad = new ArrayList<>();
+            for (String questionText : questionTexts) {
+                if (answers.containsKey(questionText)) {
+                    continue;
+                }
+                List<Answer> cached = answerCache.get(questionText);
+                answers.put(questionText, cached);
+                if (cached == null) {
+                    textsToLoad.add(questionText);
+                }
+            }
+
+            for (int from = 0; from < textsToLoad.size(); from += QUESTION_LOOKUP_CHUNK_SIZE) {
+                List<String> chunk = textsToLoad.subList(from, Math.min(from + QUESTION_LOOKUP_CHUNK_SIZE, textsToLoad.size()));
+                long generation = answerCache.generation();
+                Map<String, List<Answer>> loaded = loadAnswersForQuestionTexts(chunk);
+                for (String questionText : chunk) {
+                    if (loaded == null) {
+                        answers.put(questionText, List.of());
+                        continue;
+                    }
+                    List<Answer> questionAnswers = loaded.getOrDefault(questionText, List.of());
+                    answers.put(questionText, answerCache.put(questionText, questionAnswers, generation));
+                }
+            }
+            return answers;
+        } finally {
+            GET_ANSWERS_BATCH_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Loads the answers of several questions from the database in a single query.
+     * The texts are passed as one array and joined as a table, so every text is looked up in the index once.
+     * A condition {@code question_text = ANY(?)} would use the index as well, but H2 checks every found row against
+     * the whole array again. The answers are put into their stored order here, like in {@link #forEachQuestion}.
+     *
+     * @param questionTexts The distinct texts of the questions.
+     * @return The answers of every stored question among them, or {@code null} if the query failed.
+     */
+    private Map<String, List<Answer>> loadAnswersForQuestionTexts(List<String> questionTexts) {
+        Map<String, List<Answer>> answers = new HashMap<>();
+        Map<String, List<Integer>> positions = new HashMap<>();
+        String query = "SELECT q.question_text, a.answer_text, qa.answer_position " +
+                "FROM UNNEST(CAST(? AS VARCHAR ARRAY)) t(question_text) " +
+                "JOIN questions q ON q.question_text = t.question_text " +
+                "JOIN question_answers qa ON q.id = qa.question_id " +
+                "JOIN answers a ON qa.answer_id = a.id";
+
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            PreparedStatement stmt = lease.prepareStatement(query);
+            stmt.setObject(1, questionTexts.toArray(new String[0]));
+            try (var resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    String questionText = resultSet.getString(1);
+                    answers.computeIfAbsent(questionText, text -> new ArrayList<>()).add(new Answer(resultSet.getString(2)));
+                    positions.computeIfAbsent(questionText, text -> new ArrayList<>()).add(resultSet.getInt(3));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Error occurred while fetching answers for " + questionTexts.size() + " questions.");
+            return null;
+        }
+        for (Map.Entry<String, List<Answer>> entry : answers.entrySet()) {
+            inStoredOrder(entry.getValue(), positions.get(entry.getKey()));
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Fetched answers for {0} of {1} questions", new Object[]{answers.size(), questionTexts.size()});
         }
-        LOGGER.log(Level.INFO, "Fetched {0} answers for question: {1}", new Object[]{answers.size(), questionText});
         return answers;
     }
 
     /**
      * Adds a question with its answers to the database.
+     * The question, its answers and the links between them are written in a single transaction,
+     * the answer and link inserts are sent as JDBC batches. If any insert fails, the whole question is rolled back.
+     * Answers whose text is already stored are linked instead of inserted again.
      *
      * @param question The question to be added to the database.
      * @return {@code true} if the question was successfully added, {@code false} otherwise.
      */
+    @Override
     public boolean addQuestion(Question question) throws SQLException {
-        String insertQuestionSQL = "INSERT INTO questions (question_text) VALUES (?)";
-        boolean isSuccessful = false;
+        return addQuestionIfAbsent(question) == AddResult.Status.ADDED;
+    }
 
-        // Insert the question
-        try (PreparedStatement pstmt = CONNECTION.prepareStatement(insertQuestionSQL, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, question.getQuestionText());
-            pstmt.executeUpdate();
-
-            ResultSet generatedKeys = pstmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                int questionId = generatedKeys.getInt(1);
-
-                // Insert each answer and link it to the question
-                String insertAnswerSQL = "INSERT INTO answers (answer_text) VALUES (?)";
-                try (PreparedStatement pstmtAnswer = CONNECTION.prepareStatement(insertAnswerSQL, Statement.RETURN_GENERATED_KEYS)) {
-                    for (Answer answer : question.getAnswers()) {
-                        pstmtAnswer.setString(1, answer.getAnswerText());
-                        pstmtAnswer.executeUpdate();
-
-                        ResultSet generatedAnswerKeys = pstmtAnswer.getGeneratedKeys();
-                        if (generatedAnswerKeys.next()) {
-                            int answerId = generatedAnswerKeys.getInt(1);
-
-                            String insertQuestionAnswerSQL = "INSERT INTO question_answers (question_id, answer_id) VALUES (?, ?)";
-                            try (PreparedStatement pstmtQuestionAnswer = CONNECTION.prepareStatement(insertQuestionAnswerSQL)) {
-                                pstmtQuestionAnswer.setInt(1, questionId);
-                                pstmtQuestionAnswer.setInt(2, answerId);
-                                pstmtQuestionAnswer.executeUpdate();
-                            }
-                        }
+    /**
+     * Adds a question with its answers to the database, unless it is stored already, like {@link #addQuestion}.
+     * The question is not looked up first, the insert itself only inserts it if it is not stored.
+     * If another connection adds the same question at the same time, the unique index of the question texts
+     * rejects the later insert, which is reported as stored as well.
+     *
+     * @param question The question to be added to the database.
+     * @return {@link AddResult.Status#ADDED}, {@link AddResult.Status#ALREADY_EXISTS} if the question is stored
+     *         or {@link AddResult.Status#FAILED} if any other insert failed.
+     */
+    @Override
+    public AddResult.Status addQuestionIfAbsent(Question question) throws SQLException {
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            if (!insertInTransaction(lease, List.of(question))) {
+                LOGGER.log(Level.INFO, "Question already stored: {0}", question.getQuestionText());
+                return AddResult.Status.ALREADY_EXISTS;
+            }
+            answerCache.invalidate(question.getQuestionText());
+
+            // Only build the answers string if the message is actually logged
+            if (LOGGER.isLoggable(Level.INFO)) {
+                String answersString = question.getAnswers().stream()
+                        .map(Answer::getAnswerText)
+                        .collect(Collectors.joining(", "));
+                LOGGER.log(Level.INFO, "Question with answers added successfully: {0} {1}", new Object[]{question.getQuestionText(), answersString});
+            }
+            return AddResult.Status.ADDED;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Error while inserting question and answers: " + question.getQuestionText());
+            return AddResult.Status.FAILED;
+        } finally {
+            ADD_QUESTION_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Adds several questions with their answers to the database in a single transaction.
+     * Questions, answers and links are each sent as one JDBC batch. If any insert fails, all questions are rolled back.
+     *
+     * @param questions The questions to be added to the database.
+     * @return {@code true} if all questions were successfully added, {@code false} otherwise.
+     */
+    @Override
+    public boolean addQuestions(List<Question> questions) throws SQLException {
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            if (!insertInTransaction(lease, questions)) {
+                LOGGER.log(Level.INFO, "Batch of {0} questions not added, one of them is already stored.", questions.size());
+                return false;
+            }
+            for (Question question : questions) {
+                answerCache.invalidate(question.getQuestionText());
+            }
+            LOGGER.log(Level.INFO, "Batch of {0} questions added successfully.", questions.size());
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Error while inserting batch of " + questions.size() + " questions.");
+            return false;
+        } finally {
+            ADD_QUESTIONS_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Adds several questions with their answers to the database in a single transaction, each one unless it is stored.
+     * The questions are inserted as JDBC batches like {@link #addQuestions}, a stored question is skipped by its insert.
+     * A question given twice is found stored by its second insert, as the transaction sees its own inserts.
+     * If an insert fails, the batches are rolled back and every question is inserted on its own behind a savepoint
+     * instead, so a failing question is rolled back to it alone and the others are still committed together.
+     *
+     * @param questions The questions to be added to the database.
+     * @return The status of every question, {@link AddResult.Status#FAILED} for all of them if the commit failed.
+     */
+    @Override
+    public List<AddResult.Status> addQuestionsIfAbsent(List<Question> questions) throws SQLException {
+        long start = System.nanoTime();
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            List<AddResult.Status> statuses = new ArrayList<>(questions.size());
+            Connection connection = lease.connection();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try {
+                    for (boolean inserted : insertQuestions(lease, questions, false)) {
+                        statuses.add(inserted ? AddResult.Status.ADDED : AddResult.Status.ALREADY_EXISTS);
+                    }
+                } catch (SQLException e) {
+                    connection.rollback();
+                    statuses.clear();
+                    for (Question question : questions) {
+                        statuses.add(insertBehindSavepoint(lease, question));
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+
+            int added = 0;
+            for (int i = 0; i < questions.size(); i++) {
+                if (statuses.get(i) == AddResult.Status.ADDED) {
+                    answerCache.invalidate(questions.get(i).getQuestionText());
+                    added++;
+                }
+            }
+            LOGGER.log(Level.INFO, "Group of {0} questions committed, {1} added.", new Object[]{questions.size(), added});
+            return statuses;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Error while committing group of " + questions.size() + " questions.");
+            return new ArrayList<>(Collections.nCopies(questions.size(), AddResult.Status.FAILED));
+        } finally {
+            ADD_QUESTIONS_IF_ABSENT_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Inserts a question in the running transaction behind a savepoint and rolls back to it if the question
+     * is stored or an insert fails. Like {@link #insertInTransaction} an answer stored concurrently is retried once.
+     */
+    private static AddResult.Status insertBehindSavepoint(ConnectionPool.Lease lease, Question question) throws SQLException {
+        Connection connection = lease.connection();
+        for (int attempt = 1; ; attempt++) {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                boolean inserted = insertQuestions(lease, List.of(question), true) != null;
+                if (!inserted) {
+                    connection.rollback(savepoint);
+                }
+                connection.releaseSavepoint(savepoint);
+                return inserted ? AddResult.Status.ADDED : AddResult.Status.ALREADY_EXISTS;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+                if (isQuestionTextViolation(e)) {
+                    return AddResult.Status.ALREADY_EXISTS;
+                }
+                if (attempt == MAX_INSERT_ATTEMPTS || !UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                    LOGGER.log(Level.SEVERE, e, () -> "Error while inserting question and answers: " + question.getQuestionText());
+                    return AddResult.Status.FAILED;
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts the questions in a single transaction on the given connection, unless one of them is stored.
+     * If any insert fails, the transaction is rolled back. The auto-commit mode of the connection is restored afterwards.
+     * <p>
+     * A concurrent transaction may store one of the new answers first, which makes the insert of that answer
+     * violate the unique hash. The transaction is then retried once and links the answer stored by the other one.
+     * A concurrent transaction storing one of the questions first violates the unique question texts instead,
+     * the questions are then stored.
+     *
+     * @param lease The lease of the connection to insert with.
+     * @param questions The questions to be inserted.
+     * @return {@code true} if the questions were inserted, {@code false} if one of them is stored and none was inserted.
+     * @throws SQLException if any of the inserts fails.
+     */
+    private static boolean insertInTransaction(ConnectionPool.Lease lease, List<Question> questions) throws SQLException {
+        Connection connection = lease.connection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    if (insertQuestions(lease, questions, true) == null) {
+                        connection.rollback();
+                        return false;
+                    }
+                    connection.commit();
+                    return true;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    if (isQuestionTextViolation(e)) {
+                        return false;
                     }
-                    isSuccessful = true;
+                    if (attempt == MAX_INSERT_ATTEMPTS || !UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Checks if an exception, or one chained to it by a batch, is a violation of the unique question texts.
+     * H2 names the violated index in the message only.
+     */
+    private static boolean isQuestionTextViolation(SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            if (UNIQUE_VIOLATION.equals(next.getSQLState()) && next.getMessage() != null
+                    && next.getMessage().toUpperCase(Locale.ROOT).contains(QUESTION_TEXT_INDEX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Inserts the questions and links them to their answers, each as one JDBC batch.
+     * A question is only inserted if its text is not stored, checked by the insert itself without another round trip.
+     * The caller is responsible for the surrounding transaction and rolls it back if a question was stored.
+     *
+     * @param lease The lease of the connection to insert with, the statements are taken from its cache.
+     * @param questions The questions to be inserted.
+     * @param allOrNone Whether to stop before the answers are inserted if one of the questions is stored.
+     * @return Whether each question was inserted, {@code null} if one of them is stored and all or none are inserted.
+     * @throws SQLException if any of the inserts fails.
+     */
+    private static boolean[] insertQuestions(ConnectionPool.Lease lease, List<Question> questions, boolean allOrNone) throws SQLException {
+        String insertQuestionSQL = "INSERT INTO questions (question_text) SELECT ? "
+                + "WHERE NOT EXISTS (SELECT 1 FROM questions WHERE question_text = ?)";
+        String insertQuestionAnswerSQL = "INSERT INTO question_answers (question_id, answer_id, answer_position) VALUES (?, ?, ?)";
+        PreparedStatement pstmt = lease.prepareStatement(insertQuestionSQL, Statement.RETURN_GENERATED_KEYS);
+
+        // Insert all questions in one batch
+        for (Question question : questions) {
+            pstmt.setString(1, question.getQuestionText());
+            pstmt.setString(2, question.getQuestionText());
+            pstmt.addBatch();
+        }
+        int[] insertedRows = pstmt.executeBatch();
+        boolean[] inserted = new boolean[questions.size()];
+        List<Question> insertedQuestions = new ArrayList<>(questions.size());
+        for (int i = 0; i < inserted.length; i++) {
+            inserted[i] = insertedRows[i] != 0;
+            if (inserted[i]) {
+                insertedQuestions.add(questions.get(i));
+            } else if (allOrNone) {
+                return null;
+            }
+        }
+        if (insertedQuestions.isEmpty()) {
+            return inserted;
+        }
+        // Only the inserted questions generated a key
+        int[] questionIds = readGeneratedKeys(pstmt, insertedQuestions.size());
+
+        Map<String, Integer> answerIds = resolveAnswerIds(lease, insertedQuestions);
 
-                    //for logging
-                    String answersString = question.getAnswers().stream()
-                            .map(Answer::getAnswerText)
-                            .reduce((a, b) -> a + ", " + b)
-                            .orElse("No answers");
+        // Link every question to its answers in a second batch, an answer given twice is linked once
+        PreparedStatement pstmtQuestionAnswer = lease.prepareStatement(insertQuestionAnswerSQL);
+        Set<Integer> linkedAnswerIds = new LinkedHashSet<>();
+        for (int i = 0; i < insertedQuestions.size(); i++) {
+            linkedAnswerIds.clear();
+            for (Answer answer : insertedQuestions.get(i).getAnswers()) {
+                int answerId = answerIds.get(answer.getAnswerText());
+                if (linkedAnswerIds.add(answerId)) {
+                    pstmtQuestionAnswer.setInt(1, questionIds[i]);
+                    pstmtQuestionAnswer.setInt(2, answerId);
+                    pstmtQuestionAnswer.setInt(3, linkedAnswerIds.size() - 1);
+                    pstmtQuestionAnswer.addBatch();
+                }
+            }
+        }
+        pstmtQuestionAnswer.executeBatch();
+        return inserted;
+    }
+
+    /**
+     * Returns the ids of all answer texts of the questions, every text is stored only once.
+     * Stored answers are looked up in bulk by the SHA-256 hash of their text, only the missing ones are inserted.
+     *
+     * @param lease The lease of the connection to query and insert with, the statements are taken from its cache.
+     * @param questions The questions whose answers are resolved.
+     * @return The id of every answer text.
+     * @throws SQLException if the lookup or an insert fails.
+     */
+    private static Map<String, Integer> resolveAnswerIds(ConnectionPool.Lease lease, List<Question> questions) throws SQLException {
+        Set<String> answerTexts = new LinkedHashSet<>();
+        for (Question question : questions) {
+            for (Answer answer : question.getAnswers()) {
+                answerTexts.add(answer.getAnswerText());
+            }
+        }
+
+        Map<String, Integer> answerIds = new HashMap<>();
+        List<String> textsToLookUp = new ArrayList<>(answerTexts);
+        MessageDigest digest = sha256();
+        // Joined with the array instead of answer_hash = ANY(?), which H2 checks against the whole array for every row
+        PreparedStatement lookup = lease.prepareStatement("SELECT a.id, a.answer_text "
+                + "FROM UNNEST(CAST(? AS VARBINARY ARRAY)) t(answer_hash) JOIN answers a ON a.answer_hash = t.answer_hash");
+        for (int from = 0; from < textsToLookUp.size(); from += ANSWER_LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = textsToLookUp.subList(from, Math.min(from + ANSWER_LOOKUP_CHUNK_SIZE, textsToLookUp.size()));
+            byte[][] hashes = new byte[chunk.size()][];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = digest.digest(chunk.get(i).getBytes(StandardCharsets.UTF_8));
+            }
+            lookup.setObject(1, hashes);
+            try (ResultSet resultSet = lookup.executeQuery()) {
+                while (resultSet.next()) {
+                    answerIds.put(resultSet.getString(2), resultSet.getInt(1));
+                }
+            }
+        }
+
+        answerTexts.removeAll(answerIds.keySet());
+        if (!answerTexts.isEmpty()) {
+            PreparedStatement insert = lease.prepareStatement("INSERT INTO answers (answer_text) VALUES (?)", Statement.RETURN_GENERATED_KEYS);
+            for (String answerText : answerTexts) {
+                insert.setString(1, answerText);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            int[] insertedIds = readGeneratedKeys(insert, answerTexts.size());
+            int index = 0;
+            for (String answerText : answerTexts) {
+                answerIds.put(answerText, insertedIds[index++]);
+            }
+        }
+        return answerIds;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reads the keys generated by the last batch of a statement.
+     *
+     * @param statement The statement that executed the batch.
+     * @param expected The number of keys the batch must have generated.
+     * @return The generated keys in insertion order.
+     * @throws SQLException if fewer keys than expected were generated.
+     */
+    private static int[] readGeneratedKeys(PreparedStatement statement, int expected) throws SQLException {
+        int[] keys = new int[expected];
+        int count = 0;
+        try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+            while (count < expected && generatedKeys.next()) {
+                keys[count++] = generatedKeys.getInt(1);
+            }
+        }
+        if (count != expected) {
+            throw new SQLException("Expected " + expected + " generated keys but got " + count);
+        }
+        return keys;
+    }
 
-                    LOGGER.log(Level.INFO, "Question with answers added successfully: {0} {1}", new Object[]{question.getQuestionText(), answersString});
+    /**
+     * Passes the text of every stored question to the given consumer, this method holds one text at a time.
+     * An embedded H2 databank reads the whole result before returning its first row, the fetch size does not change
+     * that: a databank on disk moves a result of more than {@code MAX_MEMORY_ROWS} rows into a temporary file,
+     * which bounds the memory, an in-memory databank holds all texts.
+     *
+     * @param consumer The consumer receiving the question texts.
+     */
+    @Override
+    public void forEachQuestionText(Consumer<String> consumer) {
+        String query = "SELECT question_text FROM questions";
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            PreparedStatement stmt = lease.prepareStatement(query);
+            stmt.setFetchSize(10_000);
+            try (var resultSet = stmt.executeQuery()) {
+                while (resultSet.next()) {
+                    consumer.accept(resultSet.getString(1));
                 }
             }
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error while inserting question and answers: " + question.getQuestionText(), e);
-            isSuccessful = false;
+            LOGGER.log(Level.SEVERE, "Error while reading stored questions.", e);
         }
-        return isSuccessful;
+    }
+
+    /**
+     * Passes every stored question with its answers to the given consumer, in the order the questions were stored.
+     * The rows are read ordered by the primary key of the questions and this method only holds the answers of the
+     * current question. They are put into their stored order here, sorting by the position in the query would make
+     * the database sort the whole result first. An embedded H2 databank reads the whole result before returning its
+     * first row, the fetch size does not change that: a databank on disk moves a result of more than
+     * {@code MAX_MEMORY_ROWS} rows into a temporary file, which bounds the memory, an in-memory databank holds it all.
+     *
+     * @param consumer The consumer receiving the questions.
+     * @return {@code true} if all questions were passed, {@code false} if reading them failed part way.
+     */
+    @Override
+    public boolean forEachQuestion(Consumer<Question> consumer) {
+        String query = "SELECT q.id, q.question_text, a.answer_text, qa.answer_position FROM questions q "
+                + "LEFT JOIN question_answers qa ON q.id = qa.question_id "
+                + "LEFT JOIN answers a ON qa.answer_id = a.id "
+                + "ORDER BY q.id";
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            PreparedStatement stmt = lease.prepareStatement(query);
+            stmt.setFetchSize(10_000);
+            try (var resultSet = stmt.executeQuery()) {
+                long currentId = -1;
+                String currentText = null;
+                List<Answer> answers = new ArrayList<>();
+                List<Integer> positions = new ArrayList<>();
+                while (resultSet.next()) {
+                    long id = resultSet.getLong(1);
+                    if (id != currentId) {
+                        if (currentText != null) {
+                            consumer.accept(new Question(currentText, inStoredOrder(answers, positions)));
+                            answers = new ArrayList<>();
+                            positions.clear();
+                        }
+                        currentId = id;
+                        currentText = resultSet.getString(2);
+                    }
+                    String answerText = resultSet.getString(3);
+                    if (answerText != null) {
+                        answers.add(new Answer(answerText));
+                        positions.add(resultSet.getInt(4));
+                    }
+                }
+                if (currentText != null) {
+                    consumer.accept(new Question(currentText, inStoredOrder(answers, positions)));
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error while reading stored questions with their answers.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Sorts the few answers of a question by their position with an insertion sort, moving the positions along.
+     */
+    private static List<Answer> inStoredOrder(List<Answer> answers, List<Integer> positions) {
+        for (int i = 1; i < answers.size(); i++) {
+            for (int j = i; j > 0 && positions.get(j - 1) > positions.get(j); j--) {
+                answers.set(j, answers.set(j - 1, answers.get(j)));
+                positions.set(j, positions.set(j - 1, positions.get(j)));
+            }
+        }
+        return answers;
     }
 
     /**
@@ -136,19 +866,26 @@ public class DAO {
      * @param questionText The text of the question to check.
      * @return {@code true} if the question is already stored, {@code false} otherwise.
      */
+    @Override
     public boolean isQuestionStored(String questionText) {
-        String query = "SELECT * FROM questions WHERE question_text = ?";
-        try (var stmt = CONNECTION.prepareStatement(query)) {
+        long start = System.nanoTime();
+        String query = "SELECT 1 FROM questions WHERE question_text = ?";
+        try (ConnectionPool.Lease lease = connectionPool.acquire()) {
+            PreparedStatement stmt = lease.prepareStatement(query);
             stmt.setString(1, questionText);
             try (var resultSet = stmt.executeQuery()) {
                 boolean exists = resultSet.next();
-                LOGGER.log(Level.INFO, "Question {0} exists: {1}", new Object[]{questionText, exists});
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Question {0} exists: {1}", new Object[]{questionText, exists});
+                }
                 return exists;
             }
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error checking if question is stored: " + questionText, e);
+            LOGGER.log(Level.SEVERE, e, () -> "Error checking if question is stored: " + questionText);
+            return false;
+        } finally {
+            IS_QUESTION_STORED_LATENCY.recordSince(start);
         }
-        return false;
     }
 
 }
\ No newline at end of file
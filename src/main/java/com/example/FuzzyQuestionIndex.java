@@ -0,0 +1,385 @@
+package com.example;
+
+import com.example.dto.QuestionMatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for finding stored questions that are similar to an asked text.
+ * <p>
+ * Questions are normalized to their lower-case letters and digits, so case, spacing and punctuation do not matter,
+ * and split into overlapping character trigrams. The similarity of two texts is the Jaccard index of their trigram sets.
+ * An inverted index maps every trigram to the questions containing it, in the order the questions were added.
+ * <p>
+ * A question reaching the threshold {@code t} shares at least {@code t * n} of the {@code n} trigrams of the text.
+ * A search counts how many trigrams every question shares with the text by scanning the posting lists,
+ * except for the few very long lists of trigrams contained in a large part of the questions.
+ * Only questions whose count can still reach the minimum are then looked up in the long lists by binary search,
+ * so the cost of a search depends on the rare trigrams of the text rather than on the number of questions.
+ * A search for the single best match first looks for a question with the same normalized text, which needs no scan.
+ * <p>
+ * Searches run concurrently, adding a question blocks them for the duration of the add.
+ */
+public class FuzzyQuestionIndex {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    public static final double DEFAULT_THRESHOLD = 0.5;
+    // A posting list is long if it contains more than this fraction of the questions
+    private static final int LONG_LIST_DIVISOR = 16;
+    // Longer texts are cut, so the count of shared trigrams always fits into COUNT_BITS
+    private static final int MAX_NORMALIZED_LENGTH = 1000;
+    // The scratch counts of a search hold the search stamp above the count of shared trigrams
+    private static final int COUNT_BITS = 10;
+    private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+
+    // Marks the start and the end of a normalized text, it is neither a letter nor a digit
+    private static final char BOUNDARY = '\0';
+    private static final int[] EMPTY = new int[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongIntMap trigramIds = new LongIntMap();
+    // The fingerprint of a normalized text maps to the first question with that text, to find equal texts at once
+    private final LongIntMap normalizedQuestions = new LongIntMap();
+    private int[][] postings = new int[1024][];
+    private int[] postingSizes = new int[1024];
+    private String[] questions = new String[1024];
+    private int[] questionTrigramCounts = new int[1024];
+    private int size;
+
+    private final ThreadLocal<SearchScratch> scratch = ThreadLocal.withInitial(SearchScratch::new);
+
+    /**
+     * Builds an index over all questions of a store.
+     *
+     * @param store The store whose questions are indexed.
+     * @return The index of the stored questions.
+     */
+    public static FuzzyQuestionIndex build(QuestionStore store) {
+        long start = System.nanoTime();
+        FuzzyQuestionIndex index = new FuzzyQuestionIndex();
+        store.forEachQuestionText(index::add);
+        LOGGER.log(Level.INFO, "Indexed {0} questions for fuzzy asks in {1} ms.",
+                new Object[]{index.size(), (System.nanoTime() - start) / 1_000_000});
+        return index;
+    }
+
+    /**
+     * Adds a question to the index. The caller makes sure a question is only added once.
+     *
+     * @param questionText The text of the question.
+     */
+    public void add(String questionText) {
+        String normalized = normalize(questionText);
+        long[] trigrams = trigrams(normalized);
+        lock.writeLock().lock();
+        try {
+            int questionId = size;
+            if (normalizedQuestions.get(fingerprint(normalized)) < 0) {
+                normalizedQuestions.put(fingerprint(normalized), questionId);
+            }
+            if (questionId == questions.length) {
+                questions = Arrays.copyOf(questions, questionId * 2);
+                questionTrigramCounts = Arrays.copyOf(questionTrigramCounts, questionId * 2);
+            }
+            for (long trigram : trigrams) {
+                appendPosting(trigramId(trigram), questionId);
+            }
+            questions[questionId] = questionText;
+            questionTrigramCounts[questionId] = trigrams.length;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the stored questions most similar to a text.
+     *
+     * @param text The text to search for.
+     * @param limit The maximum number of matches.
+     * @param threshold The minimum similarity of a match, between 0 (exclusive) and 1.
+     * @return The matches, the most similar first.
+     */
+    public List<QuestionMatch> search(String text, int limit, double threshold) {
+        if (threshold <= 0 || threshold > 1) {
+            throw new IllegalArgumentException("The threshold has to be in (0, 1].");
+        }
+        String normalized = normalize(text);
+        long[] trigrams = trigrams(normalized);
+        if (trigrams.length == 0 || limit < 1) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            // A question with the same normalized text is the best possible match
+            if (limit == 1) {
+                int equalId = normalizedQuestions.get(fingerprint(normalized));
+                if (equalId >= 0 && normalize(questions[equalId]).equals(normalized)) {
+                    List<QuestionMatch> matches = new ArrayList<>();
+                    matches.add(new QuestionMatch(questions[equalId], 1.0));
+                    return matches;
+                }
+            }
+
+            // Trigrams no question contains only count towards the size of the text
+            int textSize = trigrams.length;
+            int known = 0;
+            Integer[] byRarity = new Integer[textSize];
+            for (long trigram : trigrams) {
+                int trigramId = trigramIds.get(trigram);
+                if (trigramId >= 0) {
+                    byRarity[known++] = trigramId;
+                }
+            }
+            int minOverlap = Math.max(1, (int) Math.ceil(threshold * textSize - 1e-9));
+            if (known < minOverlap) {
+                return new ArrayList<>();
+            }
+            Arrays.sort(byRarity, 0, known, (a, b) -> Integer.compare(postingSizes[a], postingSizes[b]));
+
+            // Leave out long lists as long as a question has to appear in at least one scanned list
+            int longLists = 0;
+            while (longLists < minOverlap - 1
+                    && postingSizes[byRarity[known - 1 - longLists]] > size / LONG_LIST_DIVISOR) {
+                longLists++;
+            }
+            int scannedLists = known - longLists;
+            int minScannedOverlap = minOverlap - longLists;
+
+            SearchScratch searchScratch = scratch.get();
+            int stamp = searchScratch.nextStamp(size) << COUNT_BITS;
+            int[] counts = searchScratch.counts;
+            int candidates = 0;
+            for (int i = 0; i < scannedLists; i++) {
+                int trigramId = byRarity[i];
+                int[] questionIds = postings[trigramId];
+                for (int p = 0, end = postingSizes[trigramId]; p < end; p++) {
+                    int questionId = questionIds[p];
+                    int count = counts[questionId];
+                    // A count of an earlier search starts again at 0
+                    count = (count & ~COUNT_MASK) == stamp ? count + 1 : stamp + 1;
+                    counts[questionId] = count;
+                    if ((count & COUNT_MASK) == minScannedOverlap) {
+                        candidates = searchScratch.addCandidate(candidates, questionId);
+                    }
+                }
+            }
+
+            PriorityQueue<QuestionMatch> best = new PriorityQueue<>(
+                    (a, b) -> Double.compare(a.getSimilarity(), b.getSimilarity()));
+            int[] candidateIds = searchScratch.candidates;
+            for (int c = 0; c < candidates; c++) {
+                int questionId = candidateIds[c];
+                int overlap = counts[questionId] & COUNT_MASK;
+                for (int i = scannedLists; i < known; i++) {
+                    if (Arrays.binarySearch(postings[byRarity[i]], 0, postingSizes[byRarity[i]], questionId) >= 0) {
+                        overlap++;
+                    }
+                }
+                double similarity = (double) overlap / (textSize + questionTrigramCounts[questionId] - overlap);
+                if (similarity < threshold) {
+                    continue;
+                }
+                best.add(new QuestionMatch(questions[questionId], similarity));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<QuestionMatch> matches = new ArrayList<>(best);
+            matches.sort((a, b) -> Double.compare(b.getSimilarity(), a.getSimilarity()));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed questions.
+     *
+     * @return The number of indexed questions.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int trigramId(long trigram) {
+        int id = trigramIds.get(trigram);
+        if (id < 0) {
+            id = trigramIds.size();
+            trigramIds.put(trigram, id);
+            if (id == postings.length) {
+                postings = Arrays.copyOf(postings, id * 2);
+                postingSizes = Arrays.copyOf(postingSizes, id * 2);
+            }
+            postings[id] = EMPTY;
+        }
+        return id;
+    }
+
+    private void appendPosting(int trigramId, int questionId) {
+        int[] list = postings[trigramId];
+        int count = postingSizes[trigramId];
+        if (count == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, count * 2));
+            postings[trigramId] = list;
+        }
+        list[count] = questionId;
+        postingSizes[trigramId] = count + 1;
+    }
+
+    /**
+     * Returns the lower-case letters and digits of a text, at most {@value #MAX_NORMALIZED_LENGTH} of them.
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(Math.min(text.length(), MAX_NORMALIZED_LENGTH));
+        for (int i = 0; i < text.length() && normalized.length() < MAX_NORMALIZED_LENGTH; i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Returns the distinct trigrams of a normalized text, each packed into a long of three 16-bit chars.
+     * The text is framed by a boundary char, so its first and last chars form trigrams of their own.
+     */
+    static long[] trigrams(String normalized) {
+        if (normalized.isEmpty()) {
+            return new long[0];
+        }
+        String framed = BOUNDARY + normalized + BOUNDARY;
+        long[] trigrams = new long[framed.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) framed.charAt(i) << 32) | ((long) framed.charAt(i + 1) << 16) | framed.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[i - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return Arrays.copyOf(trigrams, distinct);
+    }
+
+    private static long fingerprint(String normalized) {
+        long hash = 1125899906842597L;
+        for (int i = 0; i < normalized.length(); i++) {
+            hash = 31 * hash + normalized.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * Holds the shared trigram count of every question for the searches of the current thread.
+     * Every count is tagged with the stamp of the search that wrote it, so the array never has to be cleared.
+     */
+    private static final class SearchScratch {
+        private static final int MAX_STAMP = (1 << (Integer.SIZE - COUNT_BITS - 1)) - 1;
+
+        private int[] counts = new int[0];
+        private int[] candidates = new int[64];
+        private int stamp;
+
+        int nextStamp(int questions) {
+            if (counts.length < questions || stamp == MAX_STAMP) {
+                counts = new int[Math.max(questions, counts.length * 2)];
+                stamp = 0;
+            }
+            return ++stamp;
+        }
+
+        int addCandidate(int count, int questionId) {
+            if (count == candidates.length) {
+                candidates = Arrays.copyOf(candidates, count * 2);
+            }
+            candidates[count] = questionId;
+            return count + 1;
+        }
+    }
+
+    /**
+     * Maps longs to non-negative ints with open addressing.
+     * A HashMap of Long would box every key and spread the packed trigrams badly.
+     */
+    private static final class LongIntMap {
+        private long[] keys = new long[1 << 12];
+        private int[] values = new int[1 << 12];
+        private int size;
+
+        LongIntMap() {
+            Arrays.fill(values, -1);
+        }
+
+        /**
+         * @return The value of the key, or {@code -1} if the key was never put.
+         */
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = slot(key, mask); values[slot] >= 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Puts a key that is not contained yet.
+         */
+        void put(long key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            insert(key, value);
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void insert(long key, int value) {
+            int mask = keys.length - 1;
+            int slot = slot(key, mask);
+            while (values[slot] >= 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldValues.length * 2];
+            Arrays.fill(values, -1);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] >= 0) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & mask;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * This class is responsible for keeping questions and answers in compact arrays on the heap, without a database.
+ * <p>
+ * Every text is stored once as its UTF-8 bytes, answers shared by several questions are stored a single time.
+ * A question refers to its answers by an {@code int[]} of answer ids in their order, instead of a list of objects.
+ * Questions and answers are found by their text in open-addressing hash tables of ids, the hash of every text
+ * is kept next to it, so a lookup only compares the bytes of texts with the same hash.
+ * Texts are decoded into strings only when they are returned.
+ * <p>
+ * Nothing is persisted, the store can be filled from another store with {@link #copyOf(QuestionStore)}.
+ * Lookups run concurrently, adding questions blocks them for the duration of the add.
+ */
+public class InMemoryQuestionStore implements QuestionStore {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TextTable questions = new TextTable();
+    private final TextTable answers = new TextTable();
+    // The answer ids of question i, in their order
+    private int[][] questionAnswers = new int[1024][];
+
+    /**
+     * Creates a store holding all questions of another store, e.g. to serve the databank from memory.
+     *
+     * @param source The store whose questions are copied.
+     * @return The filled store.
+     */
+    public static InMemoryQuestionStore copyOf(QuestionStore source) {
+        InMemoryQuestionStore store = new InMemoryQuestionStore();
+        source.forEachQuestion(store::addQuestion);
+        return store;
+    }
+
+    @Override
+    public List<Answer> getAnswersForQuestionText(String questionText) {
+        byte[] key = utf8(questionText);
+        int hash = hash(key);
+        List<Answer> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int questionId = questions.find(key, hash);
+            if (questionId >= 0) {
+                for (int answerId : questionAnswers[questionId]) {
+                    result.add(new Answer(answers.text(answerId)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves a page of the answers of a question, only the answers of the page are decoded.
+     */
+    @Override
+    public List<Answer> getAnswersAfter(String questionText, int afterPosition, int limit) {
+        byte[] key = utf8(questionText);
+        int hash = hash(key);
+        List<Answer> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int questionId = questions.find(key, hash);
+            if (questionId >= 0) {
+                int[] answerIds = questionAnswers[questionId];
+                int from = Math.min(Math.max(afterPosition + 1, 0), answerIds.length);
+                int to = (int) Math.min((long) from + Math.max(limit, 0), answerIds.length);
+                for (int i = from; i < to; i++) {
+                    result.add(new Answer(answers.text(answerIds[i])));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Adds a question with its answers, unless the question is already stored.
+     *
+     * @param question The question to be added.
+     * @return {@code true} if the question was added, {@code false} if it is already stored.
+     */
+    @Override
+    public boolean addQuestion(Question question) {
+        byte[] key = utf8(question.getQuestionText());
+        int hash = hash(key);
+        lock.writeLock().lock();
+        try {
+            if (questions.find(key, hash) >= 0) {
+                return false;
+            }
+            insert(key, hash, question.getAnswers());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a question with its answers, unless the question is already stored.
+     *
+     * @param question The question to be added.
+     * @return {@link AddResult.Status#ADDED}, or {@link AddResult.Status#ALREADY_EXISTS} if the question is stored.
+     */
+    @Override
+    public AddResult.Status addQuestionIfAbsent(Question question) {
+        return addQuestion(question) ? AddResult.Status.ADDED : AddResult.Status.ALREADY_EXISTS;
+    }
+
+    /**
+     * Adds several questions with their answers, unless one of them is stored already or given twice.
+     *
+     * @param questionsToAdd The questions to be added.
+     * @return {@code true} if all questions were added, {@code false} if none was.
+     */
+    @Override
+    public boolean addQuestions(List<Question> questionsToAdd) {
+        byte[][] keys = new byte[questionsToAdd.size()][];
+        int[] hashes = new int[keys.length];
+        Set<String> texts = new HashSet<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (!texts.add(questionsToAdd.get(i).getQuestionText())) {
+                return false;
+            }
+            keys[i] = utf8(questionsToAdd.get(i).getQuestionText());
+            hashes[i] = hash(keys[i]);
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                if (questions.find(keys[i], hashes[i]) >= 0) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < keys.length; i++) {
+                insert(keys[i], hashes[i], questionsToAdd.get(i).getAnswers());
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isQuestionStored(String questionText) {
+        byte[] key = utf8(questionText);
+        int hash = hash(key);
+        lock.readLock().lock();
+        try {
+            return questions.find(key, hash) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEachQuestionText(Consumer<String> consumer) {
+        for (int questionId = 0, count = size(); questionId < count; questionId++) {
+            String questionText;
+            lock.readLock().lock();
+            try {
+                questionText = questions.text(questionId);
+            } finally {
+                lock.readLock().unlock();
+            }
+            consumer.accept(questionText);
+        }
+    }
+
+    /**
+     * Passes every question with its answers to the given consumer, in the order the questions were added.
+     * The lock is only held while a single question is read, so the consumer may add questions.
+     *
+     * @param consumer The consumer receiving the questions.
+     * @return Always {@code true}.
+     */
+    @Override
+    public boolean forEachQuestion(Consumer<Question> consumer) {
+        for (int questionId = 0, count = size(); questionId < count; questionId++) {
+            Question question;
+            lock.readLock().lock();
+            try {
+                List<Answer> answerList = new ArrayList<>();
+                for (int answerId : questionAnswers[questionId]) {
+                    answerList.add(new Answer(answers.text(answerId)));
+                }
+                question = new Question(questions.text(questionId), answerList);
+            } finally {
+                lock.readLock().unlock();
+            }
+            consumer.accept(question);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of stored questions.
+     *
+     * @return The number of stored questions.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return questions.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct stored answer texts.
+     *
+     * @return The number of distinct stored answer texts.
+     */
+    public int answerCount() {
+        lock.readLock().lock();
+        try {
+            return answers.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a new question, the caller holds the write lock and checked that the question is not stored.
+     */
+    private void insert(byte[] key, int hash, List<Answer> answerList) {
+        int[] answerIds = new int[answerList.size()];
+        int count = 0;
+        for (Answer answer : answerList) {
+            byte[] answerKey = utf8(answer.getAnswerText());
+            int answerHash = hash(answerKey);
+            int answerId = answers.find(answerKey, answerHash);
+            if (answerId < 0) {
+                answerId = answers.add(answerKey, answerHash);
+            }
+            if (!contains(answerIds, count, answerId)) {
+                answerIds[count++] = answerId;
+            }
+        }
+
+        int questionId = questions.add(key, hash);
+        if (questionId == questionAnswers.length) {
+            questionAnswers = Arrays.copyOf(questionAnswers, questionId * 2);
+        }
+        questionAnswers[questionId] = count == answerIds.length ? answerIds : Arrays.copyOf(answerIds, count);
+    }
+
+    private static boolean contains(int[] ids, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * FNV-1a over the bytes, finished with a multiplication so the low bits used for the slot are mixed well.
+     */
+    private static int hash(byte[] bytes) {
+        int hash = 0x811C9DC5;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x01000193;
+        }
+        hash ^= hash >>> 16;
+        return hash * 0x9E3779B9;
+    }
+
+    /**
+     * Holds distinct texts by id, in the order they were added, and finds the id of a text by linear probing.
+     */
+    private static final class TextTable {
+        private byte[][] texts = new byte[1024][];
+        private int[] hashes = new int[1024];
+        // The id of a text plus 1 in every used slot, 0 in empty slots
+        private int[] slots = new int[2048];
+        private int size;
+
+        /**
+         * @return The id of the text, or {@code -1} if it is not stored.
+         */
+        int find(byte[] text, int hash) {
+            int mask = slots.length - 1;
+            for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+                int id = slots[slot] - 1;
+                if (hashes[id] == hash && Arrays.equals(texts[id], text)) {
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a text that is not stored yet.
+         *
+         * @return The id of the text.
+         */
+        int add(byte[] text, int hash) {
+            int id = size;
+            if (id == texts.length) {
+                texts = Arrays.copyOf(texts, id * 2);
+                hashes = Arrays.copyOf(hashes, id * 2);
+            }
+            texts[id] = text;
+            hashes[id] = hash;
+            size++;
+            if (size * 2 > slots.length) {
+                slots = new int[slots.length * 2];
+                for (int i = 0; i < size; i++) {
+                    place(i);
+                }
+            } else {
+                place(id);
+            }
+            return id;
+        }
+
+        String text(int id) {
+            return new String(texts[id], StandardCharsets.UTF_8);
+        }
+
+        private void place(int id) {
+            int mask = slots.length - 1;
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+}
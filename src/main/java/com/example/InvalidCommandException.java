@@ -0,0 +1,21 @@
+package com.example;
+
+import com.example.dto.ValidationError;
+
+/**
+ * Thrown when an add or search command does not match the expected format.
+ */
+public class InvalidCommandException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    private final ValidationError error;
+
+    public InvalidCommandException(ValidationError error) {
+        super(error.getMessage());
+        this.error = error;
+    }
+
+    public ValidationError getError() {
+        return error;
+    }
+}
@@ -0,0 +1,500 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class is responsible for making a store in memory durable, e.g. a {@link DAO} on an in-memory H2 database,
+ * with an append-only journal of the added questions and periodic compressed snapshots in a directory.
+ * <p>
+ * Every question added to the store is appended to the journal before the add returns, a record holds the question
+ * and its answers with its length and a CRC32 in front. A checkpoint starts a new journal and writes all questions of
+ * the store into a GZIP-compressed snapshot in the background; once the snapshot is complete the older journals are
+ * deleted. Reads are passed to the store directly and never wait, adds only wait while the journal is switched.
+ * <p>
+ * {@link #open(QuestionStore, Path, Duration)} rebuilds the store by loading the snapshot and replaying the journals
+ * written since. Questions added while the snapshot was written are in the snapshot and in the journal, replaying
+ * adds them only if absent. A record cut off by a crash ends the replay of its journal.
+ * <p>
+ * The journal is written to the operating system with every add, so adds survive a crash of the process;
+ * with {@code fsync} they are also forced to the disk before the add returns.
+ * The latency of every append is recorded in the histogram {@code journal.append} and of every checkpoint in
+ * {@code journal.checkpoint} of {@link Metrics#getDefault()}.
+ */
+public class JournaledQuestionStore implements QuestionStore, AutoCloseable {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    private static final LatencyHistogram APPEND_LATENCY = Metrics.getDefault().histogram("journal.append");
+    private static final LatencyHistogram CHECKPOINT_LATENCY = Metrics.getDefault().histogram("journal.checkpoint");
+    private static final long SNAPSHOT_MAGIC = 0x514153474A4E4C32L; // "QASGJNL2"
+    private static final String SNAPSHOT_FILE = "snapshot.gz";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+    private static final int RECOVERY_GROUP_SIZE = 1_000;
+    private static final int MAX_RECORD_BYTES = 1 << 24;
+    public static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofMinutes(5);
+
+    private final QuestionStore store;
+    private final Path directory;
+    private final boolean fsync;
+    // Adds hold the read lock while they append, switching the journal takes the write lock
+    private final ReadWriteLock journalLock = new ReentrantReadWriteLock();
+    private final Object checkpointLock = new Object();
+    private final ScheduledExecutorService checkpointer;
+    private FileChannel journal;
+    private long generation;
+    private volatile boolean closed;
+
+    private JournaledQuestionStore(QuestionStore store, Path directory, long generation, boolean fsync) throws IOException {
+        this.store = store;
+        this.directory = directory;
+        this.fsync = fsync;
+        this.generation = generation;
+        this.journal = openJournal(generation);
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Rebuilds an empty store from the snapshot and journals in the directory and starts the periodic checkpoints.
+     * Adds are written to the operating system, not forced to the disk.
+     *
+     * @param store The empty store in memory that serves the questions.
+     * @param directory The directory of the snapshot and the journals, created if it does not exist.
+     * @param checkpointInterval The time between checkpoints, {@link Duration#ZERO} for checkpoints on close only.
+     * @return The store, recovered and journaling adds.
+     * @throws IOException if the snapshot or a journal cannot be read or the new journal cannot be created.
+     * @throws SQLException if the store fails to add the recovered questions.
+     */
+    public static JournaledQuestionStore open(QuestionStore store, Path directory, Duration checkpointInterval)
+            throws IOException, SQLException {
+        return open(store, directory, checkpointInterval, false);
+    }
+
+    /**
+     * Rebuilds an empty store like {@link #open(QuestionStore, Path, Duration)}.
+     *
+     * @param fsync Whether every add is forced to the disk before it returns.
+     */
+    public static JournaledQuestionStore open(QuestionStore store, Path directory, Duration checkpointInterval, boolean fsync)
+            throws IOException, SQLException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        long snapshotGeneration = 0;
+        long recovered = 0;
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    new GZIPInputStream(Files.newInputStream(snapshot), 1 << 16), 1 << 16))) {
+                if (in.readLong() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not a journal snapshot: " + snapshot);
+                }
+                snapshotGeneration = in.readLong();
+                List<Question> group = new ArrayList<>(RECOVERY_GROUP_SIZE);
+                while (in.readByte() != 0) {
+                    group.add(readQuestion(in));
+                    recovered++;
+                    if (group.size() == RECOVERY_GROUP_SIZE) {
+                        store.addQuestionsIfAbsent(group);
+                        group.clear();
+                    }
+                }
+                store.addQuestionsIfAbsent(group);
+            }
+        }
+
+        long lastGeneration = snapshotGeneration;
+        long replayed = 0;
+        for (long journalGeneration : journalGenerations(directory)) {
+            if (journalGeneration >= snapshotGeneration) {
+                replayed += replay(store, journalFile(directory, journalGeneration));
+            }
+            lastGeneration = Math.max(lastGeneration, journalGeneration);
+        }
+
+        // A journal may end with a cut off record, so new adds go into a new one
+        JournaledQuestionStore journaled = new JournaledQuestionStore(store, directory, lastGeneration + 1, fsync);
+        LOGGER.log(Level.INFO, "Recovered {0} questions from the snapshot and {1} from the journals in {2} ms.",
+                new Object[]{recovered, replayed, (System.nanoTime() - start) / 1_000_000});
+        if (!checkpointInterval.isZero()) {
+            long intervalMillis = checkpointInterval.toMillis();
+            journaled.checkpointer.scheduleWithFixedDelay(journaled::checkpointQuietly,
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return journaled;
+    }
+
+    private static long replay(QuestionStore store, Path journalFile) throws IOException, SQLException {
+        long replayed = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile), 1 << 16))) {
+            List<Question> group = new ArrayList<>(RECOVERY_GROUP_SIZE);
+            CRC32 crc = new CRC32();
+            while (true) {
+                byte[] record;
+                try {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length < 0 || length > MAX_RECORD_BYTES) {
+                        throw new EOFException("Invalid record length " + length);
+                    }
+                    record = in.readNBytes(length);
+                    crc.reset();
+                    crc.update(record);
+                    if (record.length != length || (int) crc.getValue() != checksum) {
+                        throw new EOFException("Cut off record");
+                    }
+                } catch (EOFException e) {
+                    if (in.available() > 0 || e.getMessage() != null) {
+                        LOGGER.log(Level.WARNING, "Journal {0} ends with an incomplete record after {1} questions.",
+                                new Object[]{journalFile, replayed});
+                    }
+                    break;
+                }
+                group.add(readQuestion(new DataInputStream(new ByteArrayInputStream(record))));
+                replayed++;
+                if (group.size() == RECOVERY_GROUP_SIZE) {
+                    store.addQuestionsIfAbsent(group);
+                    group.clear();
+                }
+            }
+            store.addQuestionsIfAbsent(group);
+        }
+        return replayed;
+    }
+
+    @Override
+    public List<Answer> getAnswersForQuestionText(String questionText) {
+        return store.getAnswersForQuestionText(questionText);
+    }
+
+    @Override
+    public Map<String, List<Answer>> getAnswersForQuestionTexts(Collection<String> questionTexts) {
+        return store.getAnswersForQuestionTexts(questionTexts);
+    }
+
+    @Override
+    public List<Answer> getAnswersAfter(String questionText, int afterPosition, int limit) {
+        return store.getAnswersAfter(questionText, afterPosition, limit);
+    }
+
+    @Override
+    public boolean forEachAnswer(String questionText, Consumer<Answer> consumer) {
+        return store.forEachAnswer(questionText, consumer);
+    }
+
+    @Override
+    public boolean addQuestion(Question question) throws SQLException {
+        return addQuestionIfAbsent(question) == AddResult.Status.ADDED;
+    }
+
+    @Override
+    public AddResult.Status addQuestionIfAbsent(Question question) throws SQLException {
+        journalLock.readLock().lock();
+        try {
+            AddResult.Status status = store.addQuestionIfAbsent(question);
+            if (status == AddResult.Status.ADDED) {
+                append(List.of(question));
+            }
+            return status;
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean addQuestions(List<Question> questions) throws SQLException {
+        return !addQuestionsInParts(questions).contains(AddResult.Status.FAILED);
+    }
+
+    /**
+     * Adds the questions to the store and appends the ones it added to the journal with one write,
+     * also if a store committing in parts added only some of them.
+     */
+    @Override
+    public List<AddResult.Status> addQuestionsInParts(List<Question> questions) throws SQLException {
+        journalLock.readLock().lock();
+        try {
+            List<AddResult.Status> statuses = store.addQuestionsInParts(questions);
+            append(added(questions, statuses));
+            return statuses;
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the questions to the store as one group and appends the added ones to the journal with one write.
+     */
+    @Override
+    public List<AddResult.Status> addQuestionsIfAbsent(List<Question> questions) throws SQLException {
+        journalLock.readLock().lock();
+        try {
+            List<AddResult.Status> statuses = store.addQuestionsIfAbsent(questions);
+            append(added(questions, statuses));
+            return statuses;
+        } finally {
+            journalLock.readLock().unlock();
+        }
+    }
+
+    private static List<Question> added(List<Question> questions, List<AddResult.Status> statuses) {
+        List<Question> added = new ArrayList<>(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            if (statuses.get(i) == AddResult.Status.ADDED) {
+                added.add(questions.get(i));
+            }
+        }
+        return added;
+    }
+
+    @Override
+    public boolean isQuestionStored(String questionText) {
+        return store.isQuestionStored(questionText);
+    }
+
+    @Override
+    public void forEachQuestionText(Consumer<String> consumer) {
+        store.forEachQuestionText(consumer);
+    }
+
+    @Override
+    public boolean forEachQuestion(Consumer<Question> consumer) {
+        return store.forEachQuestion(consumer);
+    }
+
+    /**
+     * Appends the records of added questions to the journal, the caller holds the read lock.
+     * The store already holds the questions; if the journal cannot be written the add fails all the same,
+     * so the caller does not rely on a question that would be lost on a restart.
+     */
+    private void append(List<Question> questions) throws SQLException {
+        if (questions.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        ByteBuffer records;
+        try {
+            records = ByteBuffer.wrap(encode(questions));
+        } catch (IOException e) {
+            throw new SQLException("A question cannot be journaled.", e);
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("The journal is closed.");
+            }
+            try {
+                while (records.hasRemaining()) {
+                    journal.write(records);
+                }
+                if (fsync) {
+                    journal.force(false);
+                }
+            } catch (IOException e) {
+                throw new SQLException("Failed to append to the journal.", e);
+            }
+        }
+        APPEND_LATENCY.recordSince(start);
+    }
+
+    private static byte[] encode(List<Question> questions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(questions.size() * 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+        DataOutputStream record = new DataOutputStream(recordBytes);
+        CRC32 crc = new CRC32();
+        for (Question question : questions) {
+            recordBytes.reset();
+            writeQuestion(record, question);
+            crc.reset();
+            crc.update(recordBytes.toByteArray());
+            out.writeInt(recordBytes.size());
+            out.writeInt((int) crc.getValue());
+            recordBytes.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeQuestion(DataOutputStream out, Question question) throws IOException {
+        out.writeUTF(question.getQuestionText());
+        out.writeInt(question.getAnswers().size());
+        for (Answer answer : question.getAnswers()) {
+            out.writeUTF(answer.getAnswerText());
+        }
+    }
+
+    private static Question readQuestion(DataInputStream in) throws IOException {
+        String questionText = in.readUTF();
+        int answerCount = in.readInt();
+        List<Answer> answers = new ArrayList<>(answerCount);
+        for (int i = 0; i < answerCount; i++) {
+            answers.add(new Answer(in.readUTF()));
+        }
+        return new Question(questionText, answers);
+    }
+
+    /**
+     * Starts a new journal and writes all questions of the store into a new snapshot, then deletes the journals
+     * the snapshot replaces. Runs on the calling thread, adds only wait while the journal is switched.
+     *
+     * @return The number of questions in the snapshot.
+     * @throws IOException if the snapshot cannot be written, the old snapshot and journals are kept then.
+     */
+    public long checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            long start = System.nanoTime();
+            long snapshotGeneration;
+            // Every add in the older journals is in the store once no add holds the read lock
+            journalLock.writeLock().lock();
+            try {
+                synchronized (this) {
+                    FileChannel next = openJournal(generation + 1);
+                    journal.force(false);
+                    journal.close();
+                    journal = next;
+                    generation++;
+                    snapshotGeneration = generation;
+                }
+            } finally {
+                journalLock.writeLock().unlock();
+            }
+
+            long count = writeSnapshot(snapshotGeneration);
+            for (long journalGeneration : journalGenerations(directory)) {
+                if (journalGeneration < snapshotGeneration) {
+                    Files.deleteIfExists(journalFile(directory, journalGeneration));
+                }
+            }
+            CHECKPOINT_LATENCY.recordSince(start);
+            LOGGER.log(Level.INFO, "Checkpoint of {0} questions written in {1} ms.",
+                    new Object[]{count, (System.nanoTime() - start) / 1_000_000});
+            return count;
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Checkpoint failed, the journals are kept.");
+        }
+    }
+
+    /**
+     * Writes the snapshot into a temporary file and replaces the old snapshot only when it is complete and on the disk.
+     * Every question is preceded by a marker byte and the snapshot ends with a zero byte, so the count of questions
+     * does not have to be known up front.
+     */
+    private long writeSnapshot(long snapshotGeneration) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        long[] count = new long[1];
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile())) {
+            GZIPOutputStream gzip = new GZIPOutputStream(file, 1 << 16);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(gzip, 1 << 16));
+            out.writeLong(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotGeneration);
+            boolean complete = store.forEachQuestion(question -> {
+                try {
+                    out.writeByte(1);
+                    writeQuestion(out, question);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!complete) {
+                throw new IOException("The questions could not be read from the store.");
+            }
+            out.writeByte(0);
+            out.flush();
+            gzip.finish();
+            file.getChannel().force(true);
+        } catch (UncheckedIOException | IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count[0];
+    }
+
+    private FileChannel openJournal(long journalGeneration) throws IOException {
+        return FileChannel.open(journalFile(directory, journalGeneration),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private static Path journalFile(Path directory, long journalGeneration) {
+        return directory.resolve(String.format("%s%019d%s", JOURNAL_PREFIX, journalGeneration, JOURNAL_SUFFIX));
+    }
+
+    private static List<Long> journalGenerations(Path directory) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(JOURNAL_PREFIX) && name.endsWith(JOURNAL_SUFFIX))
+                    .forEach(name -> generations.add(Long.parseLong(
+                            name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length()))));
+        }
+        generations.sort(null);
+        return generations;
+    }
+
+    /**
+     * Stops the periodic checkpoints, writes a last checkpoint, so the next start only loads the snapshot,
+     * and closes the journal. The store itself is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpoint();
+        synchronized (this) {
+            closed = true;
+            journal.force(false);
+            journal.close();
+        }
+    }
+}
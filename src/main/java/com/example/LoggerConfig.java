@@ -5,19 +5,24 @@ import java.util.logging.*;
 
 /**
  * This class is responsible for configuring the logger.
- * It sets up a FileHandler to log everything (FINE and above) to app.log
+ * It sets up an AsyncFileHandler to log to app.log without blocking the caller
  * and a ConsoleHandler to only log SEVERE messages to the console.
+ * The level of the logger is INFO, it can be changed with the system property {@code app.log.level},
+ * e.g. {@code -Dapp.log.level=FINE} to also log every lookup or {@code OFF} to disable logging.
+ * An unknown level is logged as a warning and INFO is used instead.
  */
 public class LoggerConfig {
 
     private static final Logger LOGGER = Logger.getLogger(LoggerConfig.class.getName());
+    private static final int LOG_QUEUE_CAPACITY = 8192;
+    private static final Level DEFAULT_LEVEL = Level.INFO;
 
     static {
         try {
-            // FileHandler to log everything (FINE and above)
-            FileHandler fileHandler = new FileHandler("app.log", true);
+            // AsyncFileHandler to write everything the logger lets through in batches on a background thread
+            AsyncFileHandler fileHandler = new AsyncFileHandler("app.log", LOG_QUEUE_CAPACITY,
+                    AsyncFileHandler.OverflowPolicy.DROP, new SimpleFormatter());
             fileHandler.setLevel(Level.ALL);
-            fileHandler.setFormatter(new SimpleFormatter());
 
             // ConsoleHandler to only log SEVERE messages
             ConsoleHandler consoleHandler = new ConsoleHandler();
@@ -35,13 +40,32 @@ public class LoggerConfig {
             LOGGER.addHandler(fileHandler);
             LOGGER.addHandler(consoleHandler);
 
-            LOGGER.setLevel(Level.ALL);
+            LOGGER.setLevel(parseLevel(System.getProperty("app.log.level")));
 
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "Failed to initialize logger", e);
         }
     }
 
+    /**
+     * Parses the configured level, an invalid one must not keep every class that logs from loading.
+     *
+     * @param name The name or number of the level, or {@code null} if none is configured.
+     * @return The parsed level, or the default level if the name is missing or invalid.
+     */
+    private static Level parseLevel(String name) {
+        if (name == null) {
+            return DEFAULT_LEVEL;
+        }
+        try {
+            return Level.parse(name.trim());
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Unknown log level {0} in app.log.level, using {1} instead.",
+                    new Object[]{name, DEFAULT_LEVEL});
+            return DEFAULT_LEVEL;
+        }
+    }
+
     public static Logger getLogger() {
         return LOGGER;
     }
@@ -1,59 +1,376 @@
 package com.example;
 
+import com.example.dto.AnswerPage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
-import java.util.Scanner;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
+    private static final int SERVER_THREADS = 32;
+    private static final Duration METRICS_DUMP_INTERVAL = Duration.ofSeconds(10);
+    private static final String SHARD_JDBC_URL_PREFIX = "jdbc:h2:./data/shard-";
+    private static final String IN_MEMORY_JDBC_URL = "jdbc:h2:mem:databank";
+    private static final String IN_MEMORY_JDBC_OPTIONS = ";DB_CLOSE_DELAY=-1";
 
     /**
      * Enum representing the different types of commands that can be entered by the user.
      */
-    private enum CommandType {
+    enum CommandType {
         EXIT,
         HELP,
         ADD_QUESTION,
         ASK_QUESTION,
+        BATCH_ASK,
+        SEARCH,
         UNKNOWN
     }
 
     public static void main(String[] args) {
+        CommandLineOptions options;
         try {
-            AppService appService = new AppService();
-            Scanner scanner = new Scanner(System.in);
-            String commandString;
-            CommandType command;
+            options = CommandLineOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CommandLineOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        AutoCloseable metricsDump = null;
+        if (options.getMetrics() != null) {
+            metricsDump = Metrics.getDefault().startDump(options.getMetrics(), METRICS_DUMP_INTERVAL);
+        }
+        switch (options.getMode()) {
+            case IMPORT:
+                runImport(options.getFile(), options.getShards(), options.getJournal());
+                closeQuietly(metricsDump);
+                return;
+            case EXPORT:
+                runExport(options.getFile(), options.getShards(), options.getJournal());
+                closeQuietly(metricsDump);
+                return;
+            case SERVER:
+                runServer(options, metricsDump);
+                return;
+            default:
+                break;
+        }
 
-            System.out.println("Database application running. Type 'exit' to stop.");
+        QuestionStore databank = null;
+        QuestionStore store = null;
+        try {
+            databank = openStore(options.getSnapshot(), options.getShards(), options.getJournal());
+            store = withWriteBehind(databank, options.isWriteBehind());
+            AppService appService = createAppService(store, options.isFuzzy());
+            if (options.getMode() == CommandLineOptions.Mode.SCRIPT) {
+                runScript(appService, options.getFile());
+                return;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            runInteractive(appService, reader, out);
+            reader.close();
 
-            while (true) {
-                System.out.println("Add or ask a question:");
-                commandString = scanner.nextLine().trim();
-                command = getCommandType(commandString);
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeStore(store, databank);
+            closeQuietly(metricsDump);
+        }
+    }
 
-                if (command == CommandType.EXIT) {
-                    appService.handleExit();
-                    break;
-                }
+    /**
+     * Runs the console: prompts for a command, executes it and writes its reply, until exit or the end of the input.
+     *
+     * @param appService The service handling the commands.
+     * @param reader The commands, one per line.
+     * @param out The target of the prompts and replies.
+     * @throws SQLException if a command fails in the database.
+     * @throws IOException if the input cannot be read or the output cannot be written.
+     */
+    static void runInteractive(AppService appService, BufferedReader reader, BufferedWriter out) throws SQLException, IOException {
+        String commandString;
+        CommandType command;
 
-                if (command == CommandType.HELP) {
-                    appService.displayHelp();
+        out.write("Database application running. Type 'exit' to stop.\n");
+
+        while (true) {
+            out.write("Add or ask a question:\n");
+            // Only flush when the next read would block, so piped sessions are written in large chunks
+            if (!reader.ready()) {
+                out.flush();
+            }
+            commandString = reader.readLine();
+            command = commandString == null ? CommandType.EXIT : getCommandType(commandString.trim());
+
+            if (command == CommandType.EXIT) {
+                out.write(appService.handleExit());
+                out.write('\n');
+                break;
+            }
+
+            commandString = commandString.trim();
+            if (command == CommandType.HELP) {
+                for (String line : appService.getHelp()) {
+                    out.write(line);
+                    out.write('\n');
                 }
+            }
 
-                else if (command == CommandType.ADD_QUESTION) {
-                    appService.handleAddQuestion(commandString);
+            else if (command == CommandType.ADD_QUESTION) {
+                out.write(appService.handleAddQuestion(commandString).getMessage());
+                out.write('\n');
+            }
+
+            else if (command == CommandType.ASK_QUESTION) {
+                // Written a page at a time, so the answers of a question are never all held at once
+                long start = System.nanoTime();
+                AnswerPage page = appService.handleAskQuestionPage(commandString, -1, AppService.DEFAULT_ANSWER_PAGE_SIZE);
+                ResultFormatter.writeAnswerPage(page, out);
+                while (page.hasMore()) {
+                    if (!reader.ready()) {
+                        out.flush();
+                    }
+                    page = appService.handleAskQuestionPage(page.getMatchedQuestionText(), page.getNextAfter(),
+                            AppService.DEFAULT_ANSWER_PAGE_SIZE);
+                    ResultFormatter.writeAnswerPage(page, out);
                 }
+                appService.recordAskQuestion(start);
+            }
 
-                else if (command == CommandType.ASK_QUESTION) {
-                    appService.handleAskQuestion(commandString);
+            else if (command == CommandType.BATCH_ASK) {
+                out.write("Type one question per line, finish with an empty line:\n");
+                if (!reader.ready()) {
+                    out.flush();
                 }
+                List<String> questions = new ArrayList<>();
+                String line;
+                while ((line = reader.readLine()) != null && !line.isBlank()) {
+                    questions.add(line);
+                }
+                ResultFormatter.writeAskResults(appService.handleAskQuestions(questions), out);
+            }
 
-                else if (command == CommandType.UNKNOWN){
-                    appService.handleUnknownCommand();
+            else if (command == CommandType.SEARCH) {
+                try {
+                    ResultFormatter.writeSearchResult(appService.handleSearch(commandString), out);
+                } catch (InvalidCommandException | IllegalStateException e) {
+                    out.write(e.getMessage());
+                    out.write('\n');
                 }
             }
-            scanner.close();
 
-        } catch (SQLException e) {
+            else if (command == CommandType.UNKNOWN){
+                out.write(appService.handleUnknownCommand());
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Runs a script of console commands without prompts and writes the replies to the standard output.
+     *
+     * @param appService The service handling the commands.
+     * @param script The file of the script, or {@code null} to read it from the standard input.
+     * @throws SQLException if a command fails in the database.
+     * @throws IOException if the script cannot be read or the output cannot be written.
+     */
+    private static void runScript(AppService appService, Path script) throws SQLException, IOException {
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        ScriptRunner runner = new ScriptRunner(appService);
+        if (script == null) {
+            runner.run(new InputStreamReader(System.in, StandardCharsets.UTF_8), out);
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+            runner.run(reader, out);
+        }
+    }
+
+    /**
+     * Imports a file of add commands into the database and prints the statistics of the import.
+     *
+     * @param file The file containing one add command per line.
+     * @param shards The number of databases the questions are sharded across, 0 for the single databank.
+     * @param journal The directory of the journal of an in-memory databank, or {@code null} for databanks on disk.
+     */
+    private static void runImport(Path file, int shards, Path journal) {
+        QuestionStore store = null;
+        try {
+            store = openDatabank(shards, journal);
+            BulkImporter importer = new BulkImporter(store);
+            BulkImporter.ImportResult result = importer.importFile(file);
+            System.out.println("Import finished: " + result);
+        } catch (IOException | SQLException e) {
+            e.printStackTrace();
+        } finally {
+            closeStore(store, store);
+        }
+    }
+
+    /**
+     * Exports all stored questions and answers into a read-only snapshot file.
+     *
+     * @param file The snapshot file, replaced if it exists.
+     * @param shards The number of databases the questions are sharded across, 0 for the single databank.
+     * @param journal The directory of the journal of an in-memory databank, or {@code null} for databanks on disk.
+     */
+    private static void runExport(Path file, int shards, Path journal) {
+        QuestionStore store = null;
+        try {
+            store = openDatabank(shards, journal);
+            long questions = QuestionSnapshot.export(store, file);
+            System.out.println("Exported " + questions + " questions to " + file);
+        } catch (IOException | SQLException e) {
+            e.printStackTrace();
+        } finally {
+            closeStore(store, store);
+        }
+    }
+
+    /**
+     * Opens the databank, or with shards one databank per shard with the questions partitioned across them.
+     * With a journal the databanks are in memory and recovered from the snapshot and journals in its directory.
+     *
+     * @param shards The number of databases the questions are sharded across, 0 for the single databank.
+     * @param journal The directory of the journal of an in-memory databank, or {@code null} for databanks on disk.
+     * @return The store of the questions.
+     * @throws SQLException if connection to a database cannot be established.
+     * @throws IOException if the journal cannot be read or written.
+     */
+    private static QuestionStore openDatabank(int shards, Path journal) throws SQLException, IOException {
+        QuestionStore databank;
+        if (shards < 1) {
+            DAO dao = journal == null ? new DAO() : new DAO(IN_MEMORY_JDBC_URL + IN_MEMORY_JDBC_OPTIONS);
+            dao.registerMetrics(Metrics.getDefault());
+            databank = dao;
+        } else {
+            List<String> jdbcUrls = new ArrayList<>(shards);
+            for (int i = 0; i < shards; i++) {
+                jdbcUrls.add(journal == null ? SHARD_JDBC_URL_PREFIX + i : IN_MEMORY_JDBC_URL + "-shard-" + i + IN_MEMORY_JDBC_OPTIONS);
+            }
+            databank = ShardedQuestionStore.open(jdbcUrls);
+        }
+        if (journal == null) {
+            return databank;
+        }
+        return JournaledQuestionStore.open(databank, journal, JournaledQuestionStore.DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /**
+     * Opens the databank or a read-only snapshot.
+     *
+     * @param snapshot The snapshot file to serve, or {@code null} to serve the databank.
+     * @param shards The number of databases the questions are sharded across, 0 for the single databank.
+     * @param journal The directory of the journal of an in-memory databank, or {@code null} for databanks on disk.
+     * @return The store of the questions.
+     * @throws SQLException if connection to the database cannot be established.
+     * @throws IOException if the snapshot or the journal cannot be opened.
+     */
+    private static QuestionStore openStore(Path snapshot, int shards, Path journal) throws SQLException, IOException {
+        if (snapshot != null) {
+            return QuestionSnapshot.open(snapshot);
+        }
+        return openDatabank(shards, journal);
+    }
+
+    /**
+     * With write-behind, puts a queue in front of the store, so adds to it are committed in groups.
+     *
+     * @param databank The store opened by {@link #openStore(Path, int, Path)}.
+     * @param writeBehind Whether adds are queued and committed in groups by a writer thread.
+     * @return The store serving the commands.
+     */
+    private static QuestionStore withWriteBehind(QuestionStore databank, boolean writeBehind) {
+        if (!writeBehind) {
+            return databank;
+        }
+        WriteBehindQuestionStore store = new WriteBehindQuestionStore(databank);
+        store.registerMetrics(Metrics.getDefault());
+        return store;
+    }
+
+    /**
+     * Closes the store serving the commands and then the databank behind it: the write-behind queue first, so the
+     * queued adds are committed, then the journal, which writes a last checkpoint.
+     *
+     * @param store The store serving the commands, or {@code null} if it was not opened.
+     * @param databank The store opened by {@link #openStore(Path, int, Path)}, or {@code null} if it was not opened.
+     */
+    private static void closeStore(QuestionStore store, QuestionStore databank) {
+        if (store != databank) {
+            closeQuietly(store instanceof AutoCloseable ? (AutoCloseable) store : null);
+        }
+        closeQuietly(databank instanceof AutoCloseable ? (AutoCloseable) databank : null);
+    }
+
+    /**
+     * Creates the service on a store, with fuzzy asks it indexes all questions first.
+     *
+     * @param store The store of the questions.
+     * @param fuzzy Whether unknown questions are answered with the most similar stored question.
+     * @return The service handling the commands.
+     */
+    private static AppService createAppService(QuestionStore store, boolean fuzzy) {
+        return new AppService(store, fuzzy ? FuzzyQuestionIndex.build(store) : null);
+    }
+
+    /**
+     * Starts the HTTP server, it keeps running until the process is stopped.
+     *
+     * @param options The port of the server and the options of the store and the service.
+     * @param metricsDump The running dump of the metrics, closed when the server stops, or {@code null}.
+     */
+    private static void runServer(CommandLineOptions options, AutoCloseable metricsDump) {
+        QuestionStore databank = null;
+        QuestionStore store = null;
+        try {
+            databank = openStore(options.getSnapshot(), options.getShards(), options.getJournal());
+            store = withWriteBehind(databank, options.isWriteBehind());
+            QuestionServer server = new QuestionServer(createAppService(store, options.isFuzzy()), options.getPort(),
+                    SERVER_THREADS);
+            QuestionStore openedDatabank = databank;
+            QuestionStore openedStore = store;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                // Stop taking requests before the queued adds are committed
+                server.close();
+                closeStore(openedStore, openedDatabank);
+                closeQuietly(metricsDump);
+            }));
+            server.start();
+            System.out.println("Server listening on port " + server.getPort() + ". Stop it with Ctrl+C.");
+        } catch (IOException | SQLException e) {
+            e.printStackTrace();
+            // E.g. the port is taken, the queued adds and the journal are closed like on a stop
+            closeStore(store, databank);
+            closeQuietly(metricsDump);
+        }
+    }
+
+    /**
+     * Closes a resource when the application stops, e.g. the periodic dump of the metrics, which writes a last dump.
+     *
+     * @param resource The resource to close, or {@code null} if there is none.
+     */
+    private static void closeQuietly(AutoCloseable resource) {
+        if (resource == null) {
+            return;
+        }
+        try {
+            resource.close();
+        } catch (Exception e) {
             e.printStackTrace();
         }
     }
@@ -64,17 +381,30 @@ public class Main {
      * @param command The command entered by the user.
      * @return The type of command entered by the user.
      */
-    private static CommandType getCommandType(String command) {
+    static CommandType getCommandType(String command) {
         if ("exit".equalsIgnoreCase(command)) {
             return CommandType.EXIT;
         } else if ("help".equalsIgnoreCase(command)) {
             return CommandType.HELP;
+        } else if ("batch".equalsIgnoreCase(command)) {
+            return CommandType.BATCH_ASK;
         } else if (command.endsWith("\"")) {
             return CommandType.ADD_QUESTION;
         } else if (command.endsWith("?")) {
             return CommandType.ASK_QUESTION;
+        } else if (isSearchCommand(command)) {
+            return CommandType.SEARCH;
         } else {
             return CommandType.UNKNOWN;
         }
     }
+
+    /**
+     * Checks if the command is {@code search} followed by whitespace. A command ending like an ask or add command is
+     * that command, even if it starts with search, e.g. {@code Search engines are what? "Google"}.
+     */
+    private static boolean isSearchCommand(String command) {
+        return command.length() > 6 && command.regionMatches(true, 0, "search", 0, 6)
+                && Character.isWhitespace(command.charAt(6));
+    }
 }
@@ -0,0 +1,244 @@
+package com.example;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MXBean;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for collecting the metrics of the application: latency histograms of the commands and of
+ * the database calls, and gauges reading counters such as the hits of the answer cache or the busy pool connections.
+ * <p>
+ * Every metric is registered once under its name and published as an MXBean in the domain {@value #JMX_DOMAIN},
+ * e.g. for JConsole. All metrics can be written as text or JSON, also periodically into a file with
+ * {@link #startDump(Path, Duration)}. The application records into {@link #getDefault()}.
+ */
+public class Metrics {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    public static final String JMX_DOMAIN = "com.example";
+    private static final Metrics DEFAULT = new Metrics(true);
+
+    private final boolean publishToJmx;
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+
+    /**
+     * Constructs an empty registry, e.g. for tests.
+     *
+     * @param publishToJmx Whether the metrics are registered with the platform MBean server.
+     */
+    public Metrics(boolean publishToJmx) {
+        this.publishToJmx = publishToJmx;
+    }
+
+    /**
+     * Returns the registry the application records into.
+     *
+     * @return The registry of the application.
+     */
+    public static Metrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the histogram with the given name, registering it on the first call.
+     * Callers keep the histogram, so recording does not look it up again.
+     *
+     * @param name The name of the histogram of letters, digits, dots and underscores, e.g. {@code command.ask_question}.
+     * @return The histogram with that name.
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> {
+            LatencyHistogram histogram = new LatencyHistogram(key);
+            publish("Latency", key, histogram);
+            return histogram;
+        });
+    }
+
+    /**
+     * Registers a gauge, replacing a gauge registered before under the same name.
+     *
+     * @param name The name of the gauge of letters, digits, dots and underscores, e.g. {@code answerCache.hits}.
+     * @param value Reads the current value, called whenever the metrics are read.
+     */
+    public void gauge(String name, LongSupplier value) {
+        Gauge gauge = new Gauge(value);
+        if (gauges.put(name, gauge) != null) {
+            unpublish("Gauge", name);
+        }
+        publish("Gauge", name, gauge);
+    }
+
+    /**
+     * Writes all metrics as text, a line per metric with the latencies in microseconds.
+     *
+     * @return The metrics as text.
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        for (LatencyHistogram histogram : histograms.values()) {
+            text.append(String.format(Locale.ROOT, "%s count=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p999=%.1fus max=%.1fus%n",
+                    histogram.getName(), histogram.getCount(), histogram.getMeanMicros(), histogram.getP50Micros(),
+                    histogram.getP90Micros(), histogram.getP99Micros(), histogram.getP999Micros(), histogram.getMaxMicros()));
+        }
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            text.append(entry.getKey()).append(' ').append(entry.getValue().getValue()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes all metrics as a JSON object with the time they were read, the latencies are in microseconds.
+     *
+     * @return The metrics as JSON.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"timestamp\":\"").append(Instant.now()).append("\",\"histograms\":{");
+        String separator = "";
+        for (LatencyHistogram histogram : histograms.values()) {
+            json.append(separator).append('"').append(histogram.getName()).append("\":")
+                    .append(String.format(Locale.ROOT, "{\"count\":%d,\"meanMicros\":%.1f,\"p50Micros\":%.1f,"
+                                    + "\"p90Micros\":%.1f,\"p99Micros\":%.1f,\"p999Micros\":%.1f,\"maxMicros\":%.1f}",
+                            histogram.getCount(), histogram.getMeanMicros(), histogram.getP50Micros(),
+                            histogram.getP90Micros(), histogram.getP99Micros(), histogram.getP999Micros(),
+                            histogram.getMaxMicros()));
+            separator = ",";
+        }
+        json.append("},\"gauges\":{");
+        separator = "";
+        for (Map.Entry<String, Gauge> entry : gauges.entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue().getValue());
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Writes the metrics as JSON into a file at a fixed interval, on a daemon thread.
+     * The file is replaced as a whole, so a reader never sees a partial dump.
+     *
+     * @param file The file the metrics are written to.
+     * @param interval The time between two dumps.
+     * @return The running dump, closing it stops the dumps and writes a last one.
+     */
+    public AutoCloseable startDump(Path file, Duration interval) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleAtFixedRate(() -> dump(file), millis, millis, TimeUnit.MILLISECONDS);
+        return () -> {
+            scheduler.shutdownNow();
+            dump(file);
+        };
+    }
+
+    private void dump(Path file) {
+        try {
+            Path absolute = file.toAbsolutePath();
+            Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+            Files.writeString(temp, toJson() + "\n", StandardCharsets.UTF_8);
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Failed to write the metrics to " + file);
+        }
+    }
+
+    private void publish(String type, String name, Object bean) {
+        if (!publishToJmx) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(type, name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(bean, objectName);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Failed to publish metric " + name + " over JMX.");
+        }
+    }
+
+    private void unpublish(String type, String name) {
+        if (!publishToJmx) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(type, name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, e, () -> "Failed to unpublish metric " + name + " over JMX.");
+        }
+    }
+
+    /**
+     * Returns the JMX name of a metric, e.g. {@code com.example:type=Latency,name=command.ask_question}.
+     */
+    static ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=" + type + ",name=" + name);
+    }
+
+    /**
+     * The attributes of a latency histogram over JMX, the latencies are in microseconds.
+     */
+    @MXBean
+    public interface LatencyMXBean {
+        long getCount();
+
+        double getMeanMicros();
+
+        double getP50Micros();
+
+        double getP90Micros();
+
+        double getP99Micros();
+
+        double getP999Micros();
+
+        double getMaxMicros();
+    }
+
+    /**
+     * The current value of a gauge over JMX.
+     */
+    @MXBean
+    public interface GaugeMXBean {
+        long getValue();
+    }
+
+    private static final class Gauge implements GaugeMXBean {
+        private final LongSupplier value;
+
+        private Gauge(LongSupplier value) {
+            this.value = value;
+        }
+
+        @Override
+        public long getValue() {
+            return value.getAsLong();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.AnswerPage;
+import com.example.dto.SearchResult;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for exposing the ask and add commands over HTTP.
+ * <ul>
+ *     <li>{@code GET /ask?q=<question>} replies with the answers of the question, one per line. The answers are
+ *     read a page at a time, a reply longer than a page is sent in chunks as it is read.
+ *     With {@code &limit=<n>&after=<position>} only a page of at most {@value #MAX_ANSWER_PAGE_SIZE} answers is read,
+ *     followed by the position to ask the next page after if there is one.</li>
+ *     <li>{@code POST /ask} with one question per line as body replies with every question followed by its answers.
+ *     The questions are looked up together, at most {@value #MAX_BATCH_QUESTIONS} per request.</li>
+ *     <li>{@code POST /add} with an add command as body, e.g. {@code What is 2 + 2? "4"}, replies with the outcome.
+ *     The status is 201 if the question was added, 409 if it already exists, 400 if the command is invalid
+ *     and 403 if a read-only snapshot is served.</li>
+ *     <li>{@code GET /search?q=<terms>&page=<n>} replies with a page of the questions containing all terms,
+ *     the most relevant first. The page is optional and starts at 1.</li>
+ *     <li>{@code GET /metrics} replies with the latencies and counters of {@link Metrics#getDefault()},
+ *     as text or, with {@code ?format=json}, as JSON.</li>
+ * </ul>
+ * A request body larger than {@value #MAX_BODY_BYTES} bytes is rejected with the status 413.
+ * Requests are handled on a fixed pool of worker threads, each of them calling the shared {@link AppService}.
+ */
+public class QuestionServer implements AutoCloseable {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    public static final int MAX_BATCH_QUESTIONS = 10_000;
+    public static final int MAX_ANSWER_PAGE_SIZE = 10_000;
+    public static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+    // The answers of an ask without a limit are read and written in pages of this size
+    private static final int STREAMED_PAGE_SIZE = 1_000;
+
+    static {
+        // Without TCP_NODELAY the separate header and body writes of the JDK server wait for delayed ACKs (~40 ms)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final AppService appService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs a server listening on the given port. The server is not started yet.
+     *
+     * @param appService The service handling the commands.
+     * @param port The port to listen on, {@code 0} picks a free port.
+     * @param threads The number of threads handling requests.
+     * @throws IOException if the server cannot bind the port.
+     */
+    public QuestionServer(AppService appService, int port, int threads) throws IOException {
+        this.appService = appService;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/ask", replyingToFailures(this::handleAsk));
+        server.createContext("/add", replyingToFailures(this::handleAdd));
+        server.createContext("/search", replyingToFailures(this::handleSearch));
+        server.createContext("/metrics", replyingToFailures(this::handleMetrics));
+    }
+
+    /**
+     * Replies to a request the handler rejects with an {@link InvalidRequestException} with its status,
+     * and to a request the handler fails on, e.g. because the store failed, with 500,
+     * instead of resetting the connection. A reply that is sent already is cut off.
+     */
+    private static HttpHandler replyingToFailures(HttpHandler handler) {
+        return exchange -> {
+            try {
+                handler.handle(exchange);
+            } catch (InvalidRequestException e) {
+                send(exchange, e.getStatus(), e.getMessage() + "\n");
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.SEVERE, e, () -> "Error while handling " + exchange.getRequestMethod() + " "
+                        + exchange.getRequestURI().getPath() + " over HTTP");
+                // The status is sent with the headers, a failure while streaming the reply can only close it
+                if (exchange.getResponseCode() == -1) {
+                    send(exchange, 500, "The request failed, see the log of the server.\n");
+                } else {
+                    exchange.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+        LOGGER.log(Level.INFO, "Server listening on port {0}", getPort());
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, requests in progress get one second to finish.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    private void handleAsk(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            handleBatchAsk(exchange);
+            return;
+        }
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "Only GET and POST are supported.\n");
+            return;
+        }
+        String question = queryParameter(exchange.getRequestURI().getRawQuery(), "q");
+        if (question == null || question.isBlank()) {
+            send(exchange, 400, "The question has to be passed as parameter q.\n");
+            return;
+        }
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        String limitParameter = queryParameter(rawQuery, "limit");
+        String afterParameter = queryParameter(rawQuery, "after");
+        if (limitParameter == null && afterParameter == null) {
+            sendAllAnswers(exchange, question);
+            return;
+        }
+        int limit;
+        int after;
+        try {
+            limit = limitParameter == null ? AppService.DEFAULT_ANSWER_PAGE_SIZE : Integer.parseInt(limitParameter);
+            after = afterParameter == null ? -1 : Integer.parseInt(afterParameter);
+        } catch (NumberFormatException e) {
+            limit = 0;
+            after = -1;
+        }
+        if (limit < 1 || limit > MAX_ANSWER_PAGE_SIZE || after < -1) {
+            send(exchange, 400, "The limit has to be a number from 1 to " + MAX_ANSWER_PAGE_SIZE
+                    + " and after a position of at least -1.\n");
+            return;
+        }
+
+        long start = System.nanoTime();
+        AnswerPage page = appService.handleAskQuestionPage(question, after, limit);
+        appService.recordAskQuestion(start);
+        StringBuilder reply = new StringBuilder();
+        ResultFormatter.writeAnswerPage(page, reply);
+        if (page.hasMore()) {
+            reply.append("Next page: after=").append(page.getNextAfter()).append('\n');
+        }
+        send(exchange, 200, reply.toString());
+    }
+
+    /**
+     * Replies with all answers of a question, holding only one page of them at a time.
+     */
+    private void sendAllAnswers(HttpExchange exchange, String question) throws IOException {
+        long start = System.nanoTime();
+        AnswerPage page = appService.handleAskQuestionPage(question, -1, STREAMED_PAGE_SIZE);
+        if (!page.hasMore()) {
+            appService.recordAskQuestion(start);
+            StringBuilder reply = new StringBuilder();
+            ResultFormatter.writeAnswerPage(page, reply);
+            send(exchange, 200, reply.toString());
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        // A length of 0 sends the reply with chunked transfer encoding
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            ResultFormatter.writeAnswerPage(page, out);
+            while (page.hasMore()) {
+                page = appService.handleAskQuestionPage(page.getMatchedQuestionText(), page.getNextAfter(),
+                        STREAMED_PAGE_SIZE);
+                ResultFormatter.writeAnswerPage(page, out);
+            }
+        } finally {
+            appService.recordAskQuestion(start);
+        }
+    }
+
+    private void handleBatchAsk(HttpExchange exchange) throws IOException {
+        List<String> questions = new ArrayList<>();
+        for (String line : readBody(exchange).split("\n")) {
+            if (!line.isBlank()) {
+                questions.add(line);
+            }
+        }
+        if (questions.isEmpty()) {
+            send(exchange, 400, "The questions have to be passed as body, one per line.\n");
+            return;
+        }
+        if (questions.size() > MAX_BATCH_QUESTIONS) {
+            send(exchange, 400, "At most " + MAX_BATCH_QUESTIONS + " questions can be asked at once.\n");
+            return;
+        }
+
+        StringBuilder reply = new StringBuilder();
+        ResultFormatter.writeAskResults(appService.handleAskQuestions(questions), reply);
+        send(exchange, 200, reply.toString());
+    }
+
+    private void handleAdd(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "Only POST is supported.\n");
+            return;
+        }
+        String command = readBody(exchange).trim();
+
+        try {
+            AddResult result = appService.handleAddQuestion(command);
+            send(exchange, statusCode(result.getStatus()), result.getMessage() + "\n");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Error while adding question over HTTP: " + command);
+            send(exchange, 500, "Failed to add question.\n");
+        }
+    }
+
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "Only GET is supported.\n");
+            return;
+        }
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        String terms = queryParameter(rawQuery, "q");
+        if (terms == null || terms.isBlank()) {
+            send(exchange, 400, "The terms have to be passed as parameter q.\n");
+            return;
+        }
+        int page;
+        try {
+            String pageParameter = queryParameter(rawQuery, "page");
+            page = pageParameter == null ? 1 : Integer.parseInt(pageParameter);
+        } catch (NumberFormatException e) {
+            page = 0;
+        }
+        if (page < 1) {
+            send(exchange, 400, "The page has to be a positive number.\n");
+            return;
+        }
+
+        SearchResult result = appService.search(terms, page);
+        StringBuilder reply = new StringBuilder();
+        ResultFormatter.writeSearchResult(result, reply);
+        send(exchange, 200, reply.toString());
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            send(exchange, 405, "Only GET is supported.\n");
+            return;
+        }
+        if ("json".equals(queryParameter(exchange.getRequestURI().getRawQuery(), "format"))) {
+            send(exchange, 200, Metrics.getDefault().toJson() + "\n");
+        } else {
+            send(exchange, 200, Metrics.getDefault().toText());
+        }
+    }
+
+    private static int statusCode(AddResult.Status status) {
+        switch (status) {
+            case ADDED:
+                return 201;
+            case ALREADY_EXISTS:
+                return 409;
+            case INVALID:
+                return 400;
+            case READ_ONLY:
+                return 403;
+            default:
+                return 500;
+        }
+    }
+
+    /**
+     * Reads the body of a request, at most {@value #MAX_BODY_BYTES} bytes.
+     *
+     * @param exchange The request.
+     * @return The body decoded as UTF-8.
+     * @throws InvalidRequestException with the status 413 if the body is larger, checked by its Content-Length
+     *                                 before reading it if the client sent one.
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        String contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (contentLength != null && contentLength.length() > 0 && parseLength(contentLength) > MAX_BODY_BYTES) {
+            throw new InvalidRequestException(413, "The body must not be larger than " + MAX_BODY_BYTES + " bytes.");
+        }
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        if (body.length > MAX_BODY_BYTES) {
+            throw new InvalidRequestException(413, "The body must not be larger than " + MAX_BODY_BYTES + " bytes.");
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private static long parseLength(String contentLength) {
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException(400, "The Content-Length is not a number.");
+        }
+    }
+
+    /**
+     * Returns the decoded value of a query parameter.
+     *
+     * @param rawQuery The raw query string of the request, may be {@code null}.
+     * @param name The name of the parameter.
+     * @return The decoded value, or {@code null} if the parameter is missing.
+     * @throws InvalidRequestException if the value is not correctly URL-encoded, e.g. {@code %zz}.
+     */
+    private static String queryParameter(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0 && pair.substring(0, separator).equals(name)) {
+                try {
+                    return URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8);
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidRequestException(400, "The parameter " + name + " is not correctly URL-encoded.");
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(bytes);
+        }
+    }
+
+    /**
+     * Thrown by a handler to reject a request with a status and message, e.g. a malformed query string.
+     */
+    private static final class InvalidRequestException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private InvalidRequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        private int getStatus() {
+            return status;
+        }
+    }
+}
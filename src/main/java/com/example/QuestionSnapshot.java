@@ -0,0 +1,442 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for the read-only snapshot of all questions and answers in a memory-mapped file.
+ * <p>
+ * The file starts with a header, followed by one record per question and a hash index over the question texts:
+ * <pre>
+ * header   magic "QASNAP01", format version, question count, slot count, index offset, file length
+ * record   question length (unsigned short), question (UTF-8), answer count (int),
+ *          per answer its length (unsigned short) and text (UTF-8)
+ * index    slot count longs, each 0 for an empty slot or the record offset with 16 bits of the hash on top
+ * </pre>
+ * A lookup hashes the UTF-8 bytes of the question, probes the index linearly and compares the bytes of the records
+ * with the same hash bits, so only the answers of the found question are decoded on the heap.
+ * <p>
+ * Opening a snapshot only reads the header, the pages of the file are loaded by the operating system when they are
+ * first touched. The file is mapped in segments of 1 GB, so snapshots may exceed the 2 GB of a single mapping.
+ * All reads use absolute positions, so lookups run concurrently without locking.
+ * The snapshot is a read-only {@link QuestionStore}, it rejects every add.
+ */
+public final class QuestionSnapshot implements QuestionStore, AutoCloseable {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    private static final long MAGIC = 0x5141534E41503031L; // "QASNAP01"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+    private static final int TAG_SHIFT = 48;
+    private static final long OFFSET_MASK = (1L << TAG_SHIFT) - 1;
+    private static final int MAX_TEXT_BYTES = 0xFFFF;
+
+    private final Path file;
+    private final ByteBuffer[] segments;
+    private final long questionCount;
+    private final long slotMask;
+    private final long indexOffset;
+
+    private QuestionSnapshot(Path file, ByteBuffer[] segments, long questionCount, long slotCount, long indexOffset) {
+        this.file = file;
+        this.segments = segments;
+        this.questionCount = questionCount;
+        this.slotMask = slotCount - 1;
+        this.indexOffset = indexOffset;
+    }
+
+    /**
+     * Writes all questions of a store into a snapshot file, replacing an existing file only when complete.
+     * The questions are streamed from the store, only the hash and offset of every question are held in memory.
+     *
+     * @param store The store whose questions are exported.
+     * @param target The snapshot file.
+     * @return The number of exported questions.
+     * @throws IOException if the file cannot be written or a text is too long for the format.
+     */
+    public static long export(QuestionStore store, Path target) throws IOException {
+        long start = System.nanoTime();
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        SnapshotWriter writer = new SnapshotWriter(Files.newOutputStream(temporary));
+        try {
+            writer.writeHeaderPlaceholder();
+            boolean complete = store.forEachQuestion(question -> {
+                try {
+                    writer.writeRecord(question);
+                } catch (IOException e) {
+                    throw new SnapshotException(e);
+                }
+            });
+            if (!complete) {
+                throw new IOException("The questions could not be read from the store.");
+            }
+            writer.writeIndex();
+        } catch (SnapshotException e) {
+            writer.close();
+            Files.deleteIfExists(temporary);
+            throw e.getCause();
+        } catch (IOException e) {
+            writer.close();
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        writer.close();
+        writer.writeHeader(temporary);
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOGGER.log(Level.INFO, "Exported {0} questions to {1} in {2} ms.",
+                new Object[]{writer.count, target, (System.nanoTime() - start) / 1_000_000});
+        return writer.count;
+    }
+
+    /**
+     * Maps a snapshot file for lookups. Only the header is read.
+     *
+     * @param file The snapshot file.
+     * @return The opened snapshot.
+     * @throws IOException if the file cannot be mapped or is not a complete snapshot of this format.
+     */
+    public static QuestionSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            ByteBuffer[] segments = new ByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+            for (int i = 0; i < segments.length; i++) {
+                long position = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+            }
+
+            ByteBuffer header = segments[0];
+            if (header.getLong(0) != MAGIC || header.getInt(8) != FORMAT_VERSION) {
+                throw new IOException("Not a snapshot file of format version " + FORMAT_VERSION + ": " + file);
+            }
+            long questionCount = header.getLong(16);
+            long slotCount = header.getLong(24);
+            long indexOffset = header.getLong(32);
+            if (header.getLong(40) != size || Long.bitCount(slotCount) != 1 || indexOffset + slotCount * 8 != size) {
+                throw new IOException("The snapshot file is incomplete: " + file);
+            }
+            LOGGER.log(Level.INFO, "Opened snapshot {0} with {1} questions.", new Object[]{file, questionCount});
+            return new QuestionSnapshot(file, segments, questionCount, slotCount, indexOffset);
+        }
+    }
+
+    @Override
+    public List<Answer> getAnswersForQuestionText(String questionText) {
+        byte[] key = questionText.getBytes(StandardCharsets.UTF_8);
+        long offset = findRecord(key);
+        List<Answer> answers = new ArrayList<>();
+        if (offset >= 0) {
+            readAnswers(offset + 2 + key.length, answers);
+        }
+        return answers;
+    }
+
+    @Override
+    public boolean isQuestionStored(String questionText) {
+        return findRecord(questionText.getBytes(StandardCharsets.UTF_8)) >= 0;
+    }
+
+    /**
+     * Rejects the question, a snapshot is read-only.
+     *
+     * @return Always {@code false}.
+     */
+    @Override
+    public boolean addQuestion(Question question) {
+        return false;
+    }
+
+    /**
+     * Rejects the question, a snapshot is read-only.
+     *
+     * @return Always {@link AddResult.Status#READ_ONLY}.
+     */
+    @Override
+    public AddResult.Status addQuestionIfAbsent(Question question) {
+        return AddResult.Status.READ_ONLY;
+    }
+
+    /**
+     * Rejects the questions, a snapshot is read-only.
+     *
+     * @return Always {@code false}.
+     */
+    @Override
+    public boolean addQuestions(List<Question> questions) {
+        return false;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public void forEachQuestionText(Consumer<String> consumer) {
+        forEachQuestion(question -> consumer.accept(question.getQuestionText()));
+    }
+
+    /**
+     * Passes every question of the snapshot with its answers to the given consumer, in the order they were exported.
+     *
+     * @param consumer The consumer receiving the questions.
+     * @return Always {@code true}, the mapped file is read completely.
+     */
+    @Override
+    public boolean forEachQuestion(Consumer<Question> consumer) {
+        long offset = HEADER_SIZE;
+        for (long i = 0; i < questionCount; i++) {
+            int length = getUnsignedShort(offset);
+            String questionText = getString(offset + 2, length);
+            List<Answer> answers = new ArrayList<>();
+            offset = readAnswers(offset + 2 + length, answers);
+            consumer.accept(new Question(questionText, answers));
+        }
+        return true;
+    }
+
+    public long size() {
+        return questionCount;
+    }
+
+    /**
+     * Drops the mappings. The operating system releases them once they are garbage collected,
+     * lookups must not be started after closing.
+     */
+    @Override
+    public void close() {
+        Arrays.fill(segments, null);
+        LOGGER.log(Level.INFO, "Closed snapshot {0}.", file);
+    }
+
+    /**
+     * Looks a question up in the index.
+     *
+     * @return The offset of the record of the question, or {@code -1} if it is not in the snapshot.
+     */
+    private long findRecord(byte[] key) {
+        long hash = hash(key);
+        long tag = hash >>> TAG_SHIFT;
+        for (long slot = hash & slotMask; ; slot = (slot + 1) & slotMask) {
+            long entry = getLong(indexOffset + slot * 8);
+            if (entry == 0) {
+                return -1;
+            }
+            long offset = entry & OFFSET_MASK;
+            if (entry >>> TAG_SHIFT == tag && questionEquals(offset, key)) {
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * Reads the answers of a record starting at their count.
+     *
+     * @return The offset after the record.
+     */
+    private long readAnswers(long offset, List<Answer> answers) {
+        int count = getInt(offset);
+        offset += 4;
+        for (int i = 0; i < count; i++) {
+            int length = getUnsignedShort(offset);
+            answers.add(new Answer(getString(offset + 2, length)));
+            offset += 2 + length;
+        }
+        return offset;
+    }
+
+    private boolean questionEquals(long offset, byte[] key) {
+        if (getUnsignedShort(offset) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (getByte(offset + 2 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte getByte(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    private int getUnsignedShort(long position) {
+        return ((getByte(position) & 0xFF) << 8) | (getByte(position + 1) & 0xFF);
+    }
+
+    private int getInt(long position) {
+        return (getUnsignedShort(position) << 16) | getUnsignedShort(position + 2);
+    }
+
+    /**
+     * Reads an index slot, slots are aligned to 8 bytes and never cross a segment.
+     */
+    private long getLong(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    private String getString(long position, int length) {
+        byte[] bytes = new byte[length];
+        for (int copied = 0; copied < length; ) {
+            long current = position + copied;
+            int segmentOffset = (int) (current & (SEGMENT_SIZE - 1));
+            ByteBuffer segment = segments[(int) (current >>> SEGMENT_BITS)];
+            int chunk = Math.min(length - copied, segment.limit() - segmentOffset);
+            segment.get(segmentOffset, bytes, copied, chunk);
+            copied += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with a multiplication so the low bits used for the slot are mixed well.
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        hash ^= hash >>> 29;
+        return hash * 0xBF58476D1CE4E5B9L;
+    }
+
+    /**
+     * Writes the records of a snapshot and collects their hashes and offsets for the index.
+     */
+    private static final class SnapshotWriter implements AutoCloseable {
+        private final DataOutputStream out;
+        private long position;
+        private long count;
+        private long[] hashes = new long[1024];
+        private long[] offsets = new long[1024];
+        private long slotCount;
+        private long indexOffset;
+
+        SnapshotWriter(OutputStream out) {
+            this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        }
+
+        void writeHeaderPlaceholder() throws IOException {
+            out.write(new byte[HEADER_SIZE]);
+            position = HEADER_SIZE;
+        }
+
+        void writeRecord(Question question) throws IOException {
+            byte[] questionBytes = utf8(question.getQuestionText());
+            if (count == hashes.length) {
+                hashes = Arrays.copyOf(hashes, (int) count * 2);
+                offsets = Arrays.copyOf(offsets, (int) count * 2);
+            }
+            hashes[(int) count] = hash(questionBytes);
+            offsets[(int) count] = position;
+            count++;
+
+            out.writeShort(questionBytes.length);
+            out.write(questionBytes);
+            out.writeInt(question.getAnswers().size());
+            position += 2 + questionBytes.length + 4;
+            for (Answer answer : question.getAnswers()) {
+                byte[] answerBytes = utf8(answer.getAnswerText());
+                out.writeShort(answerBytes.length);
+                out.write(answerBytes);
+                position += 2 + answerBytes.length;
+            }
+        }
+
+        /**
+         * Writes the index after the records, aligned to 8 bytes. The index is at most half full.
+         */
+        void writeIndex() throws IOException {
+            if (position > OFFSET_MASK) {
+                throw new IOException("The snapshot exceeds the maximum size.");
+            }
+            while (position % 8 != 0) {
+                out.write(0);
+                position++;
+            }
+            indexOffset = position;
+            slotCount = Math.max(16, Long.highestOneBit(Math.max(1, count) * 2 - 1) << 1);
+            long[] slots = new long[Math.toIntExact(slotCount)];
+            long mask = slotCount - 1;
+            for (int i = 0; i < count; i++) {
+                int slot = (int) (hashes[i] & mask);
+                while (slots[slot] != 0) {
+                    slot = (int) ((slot + 1) & mask);
+                }
+                slots[slot] = (hashes[i] >>> TAG_SHIFT) << TAG_SHIFT | offsets[i];
+            }
+            hashes = null;
+            offsets = null;
+            for (long slot : slots) {
+                out.writeLong(slot);
+            }
+            position += slotCount * 8;
+        }
+
+        void writeHeader(Path file) throws IOException {
+            try (RandomAccessFile header = new RandomAccessFile(file.toFile(), "rw")) {
+                header.writeLong(MAGIC);
+                header.writeInt(FORMAT_VERSION);
+                header.writeInt(0);
+                header.writeLong(count);
+                header.writeLong(slotCount);
+                header.writeLong(indexOffset);
+                header.writeLong(position);
+                header.getFD().sync();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+
+        private static byte[] utf8(String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > MAX_TEXT_BYTES) {
+                throw new IOException("Text too long for a snapshot: " + text.substring(0, 50) + "...");
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Carries a write error out of the consumer of {@link QuestionStore#forEachQuestion(Consumer)}.
+     */
+    private static final class SnapshotException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        SnapshotException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * This interface describes where questions and their answers are stored.
+ * The {@link DAO} keeps them in the H2 databank, the {@link InMemoryQuestionStore} in compact arrays on the heap
+ * and the {@link QuestionSnapshot} in a read-only memory-mapped file.
+ * All implementations can be shared by many threads.
+ */
+public interface QuestionStore {
+
+    /**
+     * Retrieves the answers of a question.
+     *
+     * @param questionText The text of the question for which the answers should be returned.
+     * @return The answers in the order they were added, empty if the question is not stored.
+     */
+    List<Answer> getAnswersForQuestionText(String questionText);
+
+    /**
+     * Retrieves the answers of several questions at once.
+     * The default looks the questions up one by one, stores with a costly round trip per lookup resolve them together.
+     *
+     * @param questionTexts The texts of the questions for which the answers should be returned.
+     * @return The answers of every distinct question text in the order the texts were given,
+     *         an empty list for a question that is not stored.
+     */
+    default Map<String, List<Answer>> getAnswersForQuestionTexts(Collection<String> questionTexts) {
+        Map<String, List<Answer>> answers = new LinkedHashMap<>();
+        for (String questionText : questionTexts) {
+            answers.computeIfAbsent(questionText, this::getAnswersForQuestionText);
+        }
+        return answers;
+    }
+
+    /**
+     * Retrieves a page of the answers of a question, the answers following a position in their order.
+     * The position of the first answer is 0, so the page after a page of {@code n} answers starts after
+     * position {@code afterPosition + n}. The default reads all answers, stores that can seek to a position override it.
+     *
+     * @param questionText The text of the question for which the answers should be returned.
+     * @param afterPosition The position of the last answer already read, {@code -1} to start with the first answer.
+     * @param limit The maximum number of answers returned.
+     * @return The next answers in the order they were added, empty after the last one or if the question is not stored.
+     */
+    default List<Answer> getAnswersAfter(String questionText, int afterPosition, int limit) {
+        List<Answer> answers = getAnswersForQuestionText(questionText);
+        int from = Math.min(Math.max(afterPosition + 1, 0), answers.size());
+        return new ArrayList<>(answers.subList(from, Math.min(from + Math.max(limit, 0), answers.size())));
+    }
+
+    /**
+     * Passes the answers of a question to the given consumer in the order they were added, without holding all of
+     * them at once where the store supports it. The default reads all answers first.
+     *
+     * @param questionText The text of the question whose answers should be passed.
+     * @param consumer The consumer receiving the answers.
+     * @return {@code true} if all answers were passed, {@code false} if reading them failed part way.
+     */
+    default boolean forEachAnswer(String questionText, Consumer<Answer> consumer) {
+        getAnswersForQuestionText(questionText).forEach(consumer);
+        return true;
+    }
+
+    /**
+     * Adds a question with its answers. Answers given twice are stored once.
+     *
+     * @param question The question to be added.
+     * @return {@code true} if the question was added, {@code false} if it could not be stored, e.g. because it exists.
+     * @throws SQLException if the store fails in a way it cannot report by the result.
+     */
+    boolean addQuestion(Question question) throws SQLException;
+
+    /**
+     * Adds a question with its answers unless it is stored, checking and adding in one atomic step.
+     * Of several concurrent adds of the same question exactly one adds it.
+     *
+     * @param question The question to be added.
+     * @return {@link AddResult.Status#ADDED}, {@link AddResult.Status#ALREADY_EXISTS},
+     *         {@link AddResult.Status#READ_ONLY} for a read-only store or {@link AddResult.Status#FAILED}.
+     * @throws SQLException if the store fails in a way it cannot report by the result.
+     */
+    AddResult.Status addQuestionIfAbsent(Question question) throws SQLException;
+
+    /**
+     * Adds several questions with their answers, each one unless it is stored, like {@link #addQuestionIfAbsent}.
+     * Unlike {@link #addQuestions(List)} a stored or failing question does not keep the others from being added.
+     * The default adds the questions one by one, stores with a costly commit group them into one.
+     *
+     * @param questions The questions to be added, a question given twice is added once.
+     * @return The status of every question, in the order the questions were given.
+     * @throws SQLException if the store fails in a way it cannot report by the results.
+     */
+    default List<AddResult.Status> addQuestionsIfAbsent(List<Question> questions) throws SQLException {
+        List<AddResult.Status> statuses = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            statuses.add(addQuestionIfAbsent(question));
+        }
+        return statuses;
+    }
+
+    /**
+     * Adds several questions with their answers, either all of them or none.
+     *
+     * @param questions The questions to be added.
+     * @return {@code true} if all questions were added, {@code false} if none was.
+     * @throws SQLException if the store fails in a way it cannot report by the result.
+     */
+    boolean addQuestions(List<Question> questions) throws SQLException;
+
+    /**
+     * Adds several questions with their answers like {@link #addQuestions(List)} and tells which were added.
+     * Stores that commit the questions in several parts, e.g. one per shard, may add some parts and not others,
+     * they override this to report every part. The default commits the questions in one part.
+     *
+     * @param questions The questions to be added.
+     * @return {@link AddResult.Status#ADDED} or {@link AddResult.Status#FAILED} for every question,
+     *         in the order the questions were given.
+     * @throws SQLException if the store fails in a way it cannot report by the results, then nothing was added.
+     */
+    default List<AddResult.Status> addQuestionsInParts(List<Question> questions) throws SQLException {
+        AddResult.Status status = addQuestions(questions) ? AddResult.Status.ADDED : AddResult.Status.FAILED;
+        return new ArrayList<>(Collections.nCopies(questions.size(), status));
+    }
+
+    /**
+     * Checks if a question is stored.
+     *
+     * @param questionText The text of the question to check.
+     * @return {@code true} if the question is stored, {@code false} otherwise.
+     */
+    boolean isQuestionStored(String questionText);
+
+    /**
+     * Passes the text of every stored question to the given consumer.
+     *
+     * @param consumer The consumer receiving the question texts.
+     */
+    void forEachQuestionText(Consumer<String> consumer);
+
+    /**
+     * Passes every stored question with its answers to the given consumer, in the order the questions were added.
+     *
+     * @param consumer The consumer receiving the questions.
+     * @return {@code true} if all questions were passed, {@code false} if reading them failed part way.
+     */
+    boolean forEachQuestion(Consumer<Question> consumer);
+
+    /**
+     * Tells if questions can be added, a read-only store rejects every add.
+     *
+     * @return {@code true} if the store is read-only.
+     */
+    default boolean isReadOnly() {
+        return false;
+    }
+}
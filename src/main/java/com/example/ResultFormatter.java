@@ -0,0 +1,110 @@
+package com.example;
+
+import com.example.dto.Answer;
+import com.example.dto.AnswerPage;
+import com.example.dto.AskResult;
+import com.example.dto.SearchHit;
+import com.example.dto.SearchResult;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * This class is responsible for rendering the results of the {@link AppService} as text,
+ * the same way for the console and the HTTP server.
+ */
+public final class ResultFormatter {
+
+    private ResultFormatter() {
+    }
+
+    /**
+     * Writes the reply to an asked question, one line per answer or the default reply if the question is unknown.
+     * Answers of a similar question found by a fuzzy ask are preceded by that question.
+     *
+     * @param result The result of the ask.
+     * @param out The target the lines are appended to.
+     * @throws IOException if the target cannot be written.
+     */
+    public static void writeAskResult(AskResult result, Appendable out) throws IOException {
+        if (!result.isAnswered()) {
+            out.append(AskResult.DEFAULT_REPLY).append('\n');
+            return;
+        }
+        if (result.isSimilarMatch()) {
+            out.append("Closest question: ").append(result.getMatchedQuestionText()).append('\n');
+        }
+        for (Answer answer : result.getAnswers()) {
+            out.append(" - ").append(answer.getAnswerText()).append('\n');
+        }
+    }
+
+    /**
+     * Writes a page of the reply to an asked question like {@link #writeAskResult}, the default reply and the similar
+     * question only on the first page, so the pages of a question written one after another form its whole reply.
+     *
+     * @param page The page of answers.
+     * @param out The target the lines are appended to.
+     * @throws IOException if the target cannot be written.
+     */
+    public static void writeAnswerPage(AnswerPage page, Appendable out) throws IOException {
+        if (page.isFirstPage()) {
+            if (page.getAnswers().isEmpty()) {
+                out.append(AskResult.DEFAULT_REPLY).append('\n');
+                return;
+            }
+            if (page.isSimilarMatch()) {
+                out.append("Closest question: ").append(page.getMatchedQuestionText()).append('\n');
+            }
+        }
+        for (Answer answer : page.getAnswers()) {
+            out.append(" - ").append(answer.getAnswerText()).append('\n');
+        }
+    }
+
+    /**
+     * Writes the replies to several asked questions, every question followed by its reply as {@link #writeAskResult}
+     * writes it.
+     *
+     * @param results The results of the asks.
+     * @param out The target the lines are appended to.
+     * @throws IOException if the target cannot be written.
+     */
+    public static void writeAskResults(List<AskResult> results, Appendable out) throws IOException {
+        for (AskResult result : results) {
+            out.append(result.getQuestionText()).append('\n');
+            writeAskResult(result, out);
+        }
+    }
+
+    /**
+     * Writes a page of search results, one numbered line per question and a hint for the next page if there is one.
+     *
+     * @param result The result of the search.
+     * @param out The target the lines are appended to.
+     * @throws IOException if the target cannot be written.
+     */
+    public static void writeSearchResult(SearchResult result, Appendable out) throws IOException {
+        if (result.getTotalHits() == 0) {
+            out.append("No questions found for: ").append(result.getTerms()).append('\n');
+            return;
+        }
+        if (result.getHits().isEmpty()) {
+            out.append("No more results, ").append(String.valueOf(result.getTotalHits()))
+                    .append(" questions found for: ").append(result.getTerms()).append('\n');
+            return;
+        }
+        int rank = result.getFirstRank();
+        out.append("Results ").append(String.valueOf(rank)).append('-')
+                .append(String.valueOf(rank + result.getHits().size() - 1))
+                .append(" of ").append(String.valueOf(result.getTotalHits()))
+                .append(" for: ").append(result.getTerms()).append('\n');
+        for (SearchHit hit : result.getHits()) {
+            out.append(String.valueOf(rank++)).append(". ").append(hit.getQuestionText()).append('\n');
+        }
+        if (result.hasNextPage()) {
+            out.append("Next page: search --page ").append(String.valueOf(result.getPage() + 1))
+                    .append(' ').append(result.getTerms()).append('\n');
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for bringing the schema of a databank to the latest version without touching its data.
+ * <p>
+ * The migrations are the scripts {@code db/migration/V<n>__<description>.sql} on the classpath, applied in order.
+ * Applied versions are recorded in the table {@code schema_version}, so starting on an up-to-date databank
+ * costs a single query instead of re-running the DDL.
+ * A databank created before versioning was introduced already has the tables of version 1
+ * and is only marked as being at that version, version 5 adds the indexes of version 1 it lacks.
+ */
+public final class SchemaMigrator {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    private static final String MIGRATION_PATH = "db/migration/";
+
+    // Index i holds the script of version i + 1; new migrations are appended, existing ones never change
+    private static final String[] MIGRATIONS = {
+            "V1__initial_schema.sql",
+            "V2__deduplicate_answers.sql",
+            "V3__index_answer_positions.sql",
+            "V4__shard_assignment.sql",
+            "V5__index_unversioned_databanks.sql"
+    };
+
+    private SchemaMigrator() {
+    }
+
+    /**
+     * Returns the schema version this application expects.
+     *
+     * @return The version of the latest migration.
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.length;
+    }
+
+    /**
+     * Applies all migrations the databank is missing.
+     *
+     * @param connection The connection to the databank.
+     * @return The schema version of the databank after the migration.
+     * @throws SQLException if a migration fails or the databank is newer than this application.
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                    + "version INT PRIMARY KEY, "
+                    + "script VARCHAR(255) NOT NULL, "
+                    + "installed_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL)");
+        }
+
+        int version = currentVersion(connection);
+        if (version == 0 && tableExists(connection, "QUESTIONS")) {
+            recordVersion(connection, 1);
+            version = 1;
+            LOGGER.log(Level.INFO, "Existing databank marked as schema version 1.");
+        }
+        if (version > latestVersion()) {
+            throw new SQLException("The databank has schema version " + version
+                    + ", but this application only supports up to version " + latestVersion() + ".");
+        }
+
+        for (int next = version + 1; next <= latestVersion(); next++) {
+            applyMigration(connection, next);
+            version = next;
+        }
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Databank is at schema version {0}.", version);
+        }
+        return version;
+    }
+
+    private static void applyMigration(Connection connection, int version) throws SQLException {
+        String script = MIGRATIONS[version - 1];
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        // H2 commits DDL statements implicitly, so the scripts only create objects if they do not exist yet
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("RUNSCRIPT FROM 'classpath:" + MIGRATION_PATH + script + "'");
+            recordVersion(connection, version);
+            connection.commit();
+            LOGGER.log(Level.INFO, "Applied schema migration {0}.", script);
+        } catch (SQLException e) {
+            connection.rollback();
+            LOGGER.log(Level.SEVERE, e, () -> "Failed to apply schema migration " + script);
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    private static void recordVersion(Connection connection, int version) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT INTO schema_version (version, script) VALUES (?, ?)")) {
+            pstmt.setInt(1, version);
+            pstmt.setString(2, MIGRATIONS[version - 1]);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static boolean tableExists(Connection connection, String tableName) throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "SELECT 1 FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ?")) {
+            pstmt.setString(1, tableName);
+            try (ResultSet resultSet = pstmt.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.AskResult;
+import com.example.dto.Question;
+import com.example.dto.ValidationError;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for running a script of console commands without prompts, e.g. a file or piped input.
+ * The replies are the same as in the console, only the prompts are left out.
+ * <p>
+ * Like the {@link BulkImporter} the input is read in chunks: a chunk is classified and parsed on a worker thread,
+ * while the chunks parsed before are executed in the order of the script. Consecutive asks and adds are executed together, the asks
+ * with one {@link AppService#handleAskQuestions(List) batch ask} and the adds with one
+ * {@link AppService#handleAddQuestions(List) group of adds}, so a script takes one query and one transaction per
+ * segment of commands instead of one per command. An ask still sees the add of its question before it in the script.
+ * With fuzzy asks an unknown question is only matched against the questions stored before its segment.
+ * All replies go through one buffered writer, flushed once per executed chunk.
+ */
+public class ScriptRunner {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    private static final int DEFAULT_CHUNK_SIZE = 4_096;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final AppService appService;
+    private final int chunkSize;
+    private final int parserThreads;
+
+    /**
+     * Constructs an instance of the ScriptRunner class with default chunk size and one parser thread per core.
+     *
+     * @param appService The service executing the commands.
+     */
+    public ScriptRunner(AppService appService) {
+        this(appService, DEFAULT_CHUNK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs an instance of the ScriptRunner class.
+     *
+     * @param appService The service executing the commands.
+     * @param chunkSize The number of lines parsed together, also the longest run of commands executed together.
+     * @param parserThreads The number of threads parsing chunks in parallel.
+     */
+    public ScriptRunner(AppService appService, int chunkSize, int parserThreads) {
+        this.appService = appService;
+        this.chunkSize = chunkSize;
+        this.parserThreads = parserThreads;
+    }
+
+    /**
+     * Runs all commands of the input until exit or its end and writes their replies.
+     *
+     * @param input The commands, one per line like in the console.
+     * @param output The target of the replies, flushed but not closed.
+     * @return The number of lines executed.
+     * @throws IOException if the input cannot be read or the output cannot be written.
+     * @throws SQLException if a command fails in the database.
+     */
+    public long run(Reader input, Writer output) throws IOException, SQLException {
+        long start = System.nanoTime();
+        BufferedReader reader = new BufferedReader(input, READ_BUFFER_SIZE);
+        BufferedWriter out = new BufferedWriter(output, WRITE_BUFFER_SIZE);
+        Execution execution = new Execution(out);
+
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads);
+        ArrayDeque<Future<List<ParsedLine>>> inFlight = new ArrayDeque<>();
+        try {
+            List<String> lines = new ArrayList<>(chunkSize);
+            String line;
+            while (!execution.exited && (line = reader.readLine()) != null) {
+                lines.add(line);
+                if (lines.size() == chunkSize) {
+                    List<String> chunk = lines;
+                    inFlight.add(parsers.submit(() -> parseChunk(chunk)));
+                    lines = new ArrayList<>(chunkSize);
+
+                    // Keep at most two chunks per parser in memory
+                    if (inFlight.size() >= parserThreads * 2) {
+                        execution.execute(await(inFlight.poll()));
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                List<String> chunk = lines;
+                inFlight.add(parsers.submit(() -> parseChunk(chunk)));
+            }
+            while (!execution.exited && !inFlight.isEmpty()) {
+                execution.execute(await(inFlight.poll()));
+            }
+            execution.finish();
+        } finally {
+            parsers.shutdownNow();
+        }
+
+        LOGGER.log(Level.INFO, "Script of {0} lines finished in {1} ms",
+                new Object[]{execution.executedLines, (System.nanoTime() - start) / 1_000_000});
+        return execution.executedLines;
+    }
+
+    /**
+     * Classifies and parses all lines of a chunk. Whether a line belongs to a batch ask is only known
+     * when the chunks are executed, so every line keeps its text as well.
+     *
+     * @param lines The lines of the chunk.
+     * @return The parsed lines in the same order.
+     */
+    private static List<ParsedLine> parseChunk(List<String> lines) {
+        List<ParsedLine> parsed = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            String command = line.trim();
+            Main.CommandType type = Main.getCommandType(command);
+            ParsedLine parsedLine = new ParsedLine(line, command, type);
+            if (type == Main.CommandType.ADD_QUESTION) {
+                try {
+                    parsedLine.question = AppService.validateAndSplitCmd(command);
+                } catch (InvalidCommandException e) {
+                    parsedLine.error = e.getError();
+                }
+            }
+            parsed.add(parsedLine);
+        }
+        return parsed;
+    }
+
+    private static List<ParsedLine> await(Future<List<ParsedLine>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Script was interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parsing a chunk failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Executes the parsed chunks on the calling thread, collecting consecutive asks and adds into a segment.
+     * The asks of a segment are answered before its adds are committed, which gives the replies of the script
+     * as long as no ask of the segment is about a question added in it. A segment therefore ends before such an ask
+     * or add, before any other command and at the end of every chunk.
+     */
+    private final class Execution {
+        private final BufferedWriter out;
+        private final List<Step> steps = new ArrayList<>();
+        private final List<String> asks = new ArrayList<>();
+        private final List<Question> adds = new ArrayList<>();
+        private final Set<String> askedTexts = new HashSet<>();
+        private final Set<String> addedTexts = new HashSet<>();
+        private boolean inBatch;
+        private boolean exited;
+        private long executedLines;
+
+        private Execution(BufferedWriter out) {
+            this.out = out;
+        }
+
+        private void execute(List<ParsedLine> chunk) throws IOException, SQLException {
+            for (ParsedLine line : chunk) {
+                if (exited) {
+                    break;
+                }
+                executedLines++;
+                if (inBatch) {
+                    if (line.text.isBlank()) {
+                        inBatch = false;
+                    } else {
+                        ask(line.text.trim(), true);
+                    }
+                    continue;
+                }
+                switch (line.type) {
+                    case ASK_QUESTION:
+                        ask(line.command, false);
+                        break;
+                    case ADD_QUESTION:
+                        add(line);
+                        break;
+                    case BATCH_ASK:
+                        inBatch = true;
+                        break;
+                    case EXIT:
+                        exit();
+                        break;
+                    case HELP:
+                        flushSegment();
+                        for (String helpLine : appService.getHelp()) {
+                            out.write(helpLine);
+                            out.write('\n');
+                        }
+                        break;
+                    case SEARCH:
+                        flushSegment();
+                        try {
+                            ResultFormatter.writeSearchResult(appService.handleSearch(line.command), out);
+                        } catch (InvalidCommandException | IllegalStateException e) {
+                            out.write(e.getMessage());
+                            out.write('\n');
+                        }
+                        break;
+                    default:
+                        flushSegment();
+                        out.write(appService.handleUnknownCommand());
+                        out.write('\n');
+                        break;
+                }
+            }
+            flushSegment();
+            out.flush();
+        }
+
+        /**
+         * Ends the script at the end of the input like an exit command, as the console does.
+         */
+        private void finish() throws IOException, SQLException {
+            if (!exited) {
+                exit();
+            }
+            out.flush();
+        }
+
+        private void exit() throws IOException, SQLException {
+            flushSegment();
+            out.write(appService.handleExit());
+            out.write('\n');
+            exited = true;
+        }
+
+        private void ask(String questionText, boolean inBatch) throws IOException, SQLException {
+            // The ask has to see an add of its question before it
+            if (addedTexts.contains(questionText)) {
+                flushSegment();
+            }
+            steps.add(new Step(true, asks.size(), inBatch, null));
+            asks.add(questionText);
+            askedTexts.add(questionText);
+        }
+
+        private void add(ParsedLine line) throws IOException, SQLException {
+            if (line.question == null) {
+                steps.add(new Step(false, -1, false, line.error));
+                return;
+            }
+            // An ask of the question before the add must not see it
+            String questionText = line.question.getQuestionText();
+            if (askedTexts.contains(questionText)) {
+                flushSegment();
+            }
+            steps.add(new Step(false, adds.size(), false, null));
+            adds.add(line.question);
+            addedTexts.add(questionText);
+        }
+
+        private void flushSegment() throws IOException, SQLException {
+            if (steps.isEmpty()) {
+                return;
+            }
+            List<AskResult> askResults = asks.isEmpty() ? List.of() : appService.handleAskQuestions(asks);
+            List<AddResult> addResults = adds.isEmpty() ? List.of() : appService.handleAddQuestions(adds);
+            int nextAsk = 0;
+            for (Step step : steps) {
+                if (step.ask) {
+                    AskResult result = askResults.get(nextAsk++);
+                    if (step.inBatch) {
+                        out.write(result.getQuestionText());
+                        out.write('\n');
+                    }
+                    ResultFormatter.writeAskResult(result, out);
+                } else {
+                    AddResult result = step.error != null ? AddResult.invalid(step.error) : addResults.get(step.index);
+                    out.write(result.getMessage());
+                    out.write('\n');
+                }
+            }
+            steps.clear();
+            asks.clear();
+            adds.clear();
+            askedTexts.clear();
+            addedTexts.clear();
+        }
+    }
+
+    /**
+     * An ask or add of a segment in the order of the script: the index of its question in the asks or adds of the
+     * segment, or the validation error of an add command that could not be parsed.
+     */
+    private static final class Step {
+        private final boolean ask;
+        private final int index;
+        // Whether the reply of an ask is preceded by its question, like in a batch ask
+        private final boolean inBatch;
+        private final ValidationError error;
+
+        private Step(boolean ask, int index, boolean inBatch, ValidationError error) {
+            this.ask = ask;
+            this.index = index;
+            this.inBatch = inBatch;
+            this.error = error;
+        }
+    }
+
+    /**
+     * A line of the script with its command type and, for an add command, the parsed question or the validation error.
+     */
+    private static final class ParsedLine {
+        private final String text;
+        private final String command;
+        private final Main.CommandType type;
+        private Question question;
+        private ValidationError error;
+
+        private ParsedLine(String text, String command, Main.CommandType type) {
+            this.text = text;
+            this.command = command;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.example;
+
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import com.example.dto.SearchHit;
+import com.example.dto.SearchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for the full-text search over the stored questions and their answers.
+ * <p>
+ * Texts are split into words, the runs of letters and digits, in lower case.
+ * An inverted index maps every word to the questions containing it in their text or in one of their answers,
+ * in the order the questions were added, together with the number of times it occurs there.
+ * <p>
+ * A search finds the questions containing all searched words. It walks the posting list of the rarest word
+ * and skips forward in the other lists by galloping, so its cost depends on the rarest word rather than on the
+ * number of questions. The hits are ranked by BM25 and, for equal scores, by the order the questions were added,
+ * so the pages of a search never overlap. Only the hits up to the requested page are kept while ranking.
+ * <p>
+ * Searches run concurrently, adding a question blocks them for the duration of the add.
+ */
+public class SearchIndex {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    public static final int DEFAULT_PAGE_SIZE = 10;
+    public static final int MAX_PAGE_SIZE = 100;
+    // Deeper pages would have to keep too many ranked hits, like the result window of search engines
+    public static final int MAX_RESULT_WINDOW = 10_000;
+    // BM25 saturation of repeated words and normalization of the text length
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Occurrences of a word in a question are stored in a byte
+    private static final int MAX_FREQUENCY = 255;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private String[] questions = new String[1024];
+    private int[] lengths = new int[1024];
+    private long totalLength;
+    private int size;
+
+    /**
+     * Builds an index over all questions and answers of a store.
+     *
+     * @param store The store whose questions are indexed.
+     * @return The index of the stored questions.
+     * @throws IllegalStateException if the questions could not all be read, a partial index is not returned.
+     */
+    public static SearchIndex build(QuestionStore store) {
+        long start = System.nanoTime();
+        SearchIndex index = new SearchIndex();
+        if (!store.forEachQuestion(index::add)) {
+            throw new IllegalStateException("The questions could not be read for the search, try again.");
+        }
+        LOGGER.log(Level.INFO, "Indexed {0} questions for full-text search in {1} ms.",
+                new Object[]{index.size(), (System.nanoTime() - start) / 1_000_000});
+        return index;
+    }
+
+    /**
+     * Adds a question with its answers to the index. The caller makes sure a question is only added once.
+     *
+     * @param question The question with its answers.
+     */
+    public void add(Question question) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = countWords(question.getQuestionText(), frequencies);
+        for (Answer answer : question.getAnswers()) {
+            length += countWords(answer.getAnswerText(), frequencies);
+        }
+
+        lock.writeLock().lock();
+        try {
+            int questionId = size;
+            if (questionId == questions.length) {
+                questions = Arrays.copyOf(questions, questionId * 2);
+                lengths = Arrays.copyOf(lengths, questionId * 2);
+            }
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), word -> new Postings()).add(questionId, entry.getValue());
+            }
+            questions[questionId] = question.getQuestionText();
+            lengths[questionId] = length;
+            totalLength += length;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the questions containing all words of the terms in their text or answers.
+     *
+     * @param terms The searched terms.
+     * @param page The number of the page, starting at 1.
+     * @param pageSize The maximum number of hits on a page, at most {@value #MAX_PAGE_SIZE}.
+     * @return The hits of the page, the most relevant first, and the total number of hits.
+     *         The page is empty if it lies beyond {@value #MAX_RESULT_WINDOW} hits.
+     */
+    public SearchResult search(String terms, int page, int pageSize) {
+        if (page < 1 || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The page has to be positive and the page size in [1, "
+                    + MAX_PAGE_SIZE + "].");
+        }
+        List<String> words = words(terms);
+        if (words.isEmpty()) {
+            return new SearchResult(terms, page, pageSize, 0, new ArrayList<>());
+        }
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[words.size()];
+            for (int i = 0; i < lists.length; i++) {
+                lists[i] = postings.get(words.get(i));
+                if (lists[i] == null) {
+                    return new SearchResult(terms, page, pageSize, 0, new ArrayList<>());
+                }
+            }
+            Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+            double[] idfs = new double[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                idfs[i] = Math.log(1 + (size - lists[i].size + 0.5) / (lists[i].size + 0.5));
+            }
+            double averageLength = Math.max(1.0, (double) totalLength / size);
+            long window = (long) page * pageSize;
+            boolean ranked = window <= MAX_RESULT_WINDOW;
+
+            // The worst of the best hits is on top, a hit is worse if its score is lower or it was added later
+            PriorityQueue<ScoredQuestion> best = new PriorityQueue<>();
+            int[] cursors = new int[lists.length];
+            int[] matchedFrequencies = new int[lists.length];
+            int totalHits = 0;
+            Postings rarest = lists[0];
+            candidates:
+            for (int p = 0; p < rarest.size; p++) {
+                int questionId = rarest.questionIds[p];
+                matchedFrequencies[0] = rarest.frequency(p);
+                for (int i = 1; i < lists.length; i++) {
+                    int position = lists[i].advance(cursors[i], questionId);
+                    cursors[i] = position;
+                    if (position == lists[i].size) {
+                        break candidates;
+                    }
+                    if (lists[i].questionIds[position] != questionId) {
+                        continue candidates;
+                    }
+                    matchedFrequencies[i] = lists[i].frequency(position);
+                }
+
+                totalHits++;
+                if (!ranked) {
+                    continue;
+                }
+                double lengthNorm = K1 * (1 - B + B * lengths[questionId] / averageLength);
+                double score = 0;
+                for (int i = 0; i < lists.length; i++) {
+                    score += idfs[i] * matchedFrequencies[i] * (K1 + 1) / (matchedFrequencies[i] + lengthNorm);
+                }
+                if (best.size() < window) {
+                    best.add(new ScoredQuestion(questionId, score));
+                } else if (score > best.peek().score) {
+                    best.poll();
+                    best.add(new ScoredQuestion(questionId, score));
+                }
+            }
+
+            // Drain the worst first, the hits of the requested page are the last ones
+            ScoredQuestion[] ranking = new ScoredQuestion[best.size()];
+            for (int i = ranking.length - 1; i >= 0; i--) {
+                ranking[i] = best.poll();
+            }
+            List<SearchHit> hits = new ArrayList<>();
+            for (int i = ranked ? (page - 1) * pageSize : 0; i < ranking.length; i++) {
+                hits.add(new SearchHit(questions[ranking[i].questionId], ranking[i].score));
+            }
+            return new SearchResult(terms, page, pageSize, totalHits, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks if a question is indexed, by its words instead of a lookup table of all question texts.
+     *
+     * @param questionText The text of the question.
+     * @return {@code true} if the question is indexed.
+     */
+    public boolean contains(String questionText) {
+        List<String> words = words(questionText);
+        lock.readLock().lock();
+        try {
+            if (words.isEmpty()) {
+                for (int i = 0; i < size; i++) {
+                    if (questions[i].equals(questionText)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            Postings rarest = null;
+            for (String word : words) {
+                Postings list = postings.get(word);
+                if (list == null) {
+                    return false;
+                }
+                if (rarest == null || list.size < rarest.size) {
+                    rarest = list;
+                }
+            }
+            for (int p = 0; p < rarest.size; p++) {
+                if (questions[rarest.questionIds[p]].equals(questionText)) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed questions.
+     *
+     * @return The number of indexed questions.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the distinct words of a text in lower case, in the order they first occur.
+     */
+    static List<String> words(String text) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        countWords(text, frequencies);
+        return new ArrayList<>(frequencies.keySet());
+    }
+
+    /**
+     * Adds the occurrences of the words of a text to the frequencies.
+     *
+     * @return The number of words in the text.
+     */
+    private static int countWords(String text, Map<String, Integer> frequencies) {
+        int count = 0;
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                frequencies.merge(word.toString(), 1, Integer::sum);
+                word.setLength(0);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Holds the questions containing a word in ascending order, with the occurrences of the word in each of them.
+     */
+    private static final class Postings {
+        private int[] questionIds = new int[2];
+        private byte[] frequencies = new byte[2];
+        private int size;
+
+        void add(int questionId, int frequency) {
+            if (size == questionIds.length) {
+                questionIds = Arrays.copyOf(questionIds, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            questionIds[size] = questionId;
+            frequencies[size] = (byte) Math.min(frequency, MAX_FREQUENCY);
+            size++;
+        }
+
+        int frequency(int position) {
+            return frequencies[position] & 0xFF;
+        }
+
+        /**
+         * Returns the first position from {@code from} on holding a question id of at least {@code questionId},
+         * or {@link #size} if there is none. The position is found by doubling the step, then by binary search.
+         */
+        int advance(int from, int questionId) {
+            if (from == size || questionIds[from] >= questionId) {
+                return from;
+            }
+            int low = from;
+            int step = 1;
+            while (low + step < size && questionIds[low + step] < questionId) {
+                low += step;
+                step <<= 1;
+            }
+            int high = Math.min(low + step, size);
+            // questionIds[low] < questionId, the result lies in (low, high]
+            int found = Arrays.binarySearch(questionIds, low + 1, high, questionId);
+            return found >= 0 ? found : -found - 1;
+        }
+    }
+
+    private static final class ScoredQuestion implements Comparable<ScoredQuestion> {
+        private final int questionId;
+        private final double score;
+
+        ScoredQuestion(int questionId, double score) {
+            this.questionId = questionId;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(ScoredQuestion other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(other.questionId, questionId);
+        }
+    }
+}
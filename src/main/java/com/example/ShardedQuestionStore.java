@@ -0,0 +1,424 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for partitioning the questions across several stores, usually a {@link DAO} per H2 database.
+ * <p>
+ * Every question lives in exactly one shard, chosen by a hash of its text ignoring case and surrounding spaces,
+ * so an ask or add goes to a single shard. Operations on many questions are split by shard and the shards are queried
+ * in parallel, e.g. a batch ask or a scan for an export. Scans pass the questions of all shards to the consumer one
+ * at a time, in the order they were added within each shard, but interleaved between the shards.
+ * <p>
+ * The number of shards is fixed once questions are stored: with another number they would be looked up in the
+ * wrong shard. Every database records its index and the number of shards when it is first opened as a shard,
+ * {@link #open(List)} refuses to open it with others.
+ */
+public class ShardedQuestionStore implements QuestionStore, AutoCloseable {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+
+    private final List<QuestionStore> shards;
+    private final ExecutorService executor;
+    // The databases opened by open(), closed with this store
+    private final List<DAO> ownedDAOs;
+
+    /**
+     * Constructs a store over the given shards, e.g. in-memory stores for tests. The caller keeps closing them.
+     *
+     * @param shards The stores of the shards, in a fixed order.
+     */
+    public ShardedQuestionStore(List<? extends QuestionStore> shards) {
+        this(shards, List.of());
+    }
+
+    private ShardedQuestionStore(List<? extends QuestionStore> shards, List<DAO> ownedDAOs) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required.");
+        }
+        this.shards = List.copyOf(shards);
+        this.ownedDAOs = ownedDAOs;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "shard-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a DAO on every database and migrates its schema. The questions of the seed data are migrated into every
+     * database, when a database is opened as a shard for the first time they are only kept in the shard they
+     * belong to.
+     *
+     * @param jdbcUrls The URLs of the H2 databases of the shards, e.g. {@code jdbc:h2:./data/shard-0}, always in
+     *                 the same order.
+     * @return The store over all databases, closing it closes their connection pools.
+     * @throws SQLException if a database cannot be opened or migrated, or was opened before as another shard or with
+     *                      another number of shards. Nothing is changed then.
+     */
+    public static ShardedQuestionStore open(List<String> jdbcUrls) throws SQLException {
+        List<DAO> daos = new ArrayList<>(jdbcUrls.size());
+        try {
+            for (String jdbcUrl : jdbcUrls) {
+                daos.add(new DAO(jdbcUrl));
+            }
+            // All shards are checked before a new one is assigned, so a wrong count does not touch any database
+            List<Integer> unassigned = new ArrayList<>();
+            for (int i = 0; i < daos.size(); i++) {
+                if (!checkAssignment(daos.get(i), jdbcUrls.get(i), i, daos.size())) {
+                    unassigned.add(i);
+                }
+            }
+            for (int i : unassigned) {
+                removeQuestionsOfOtherShards(daos.get(i), i, daos.size());
+                recordAssignment(daos.get(i), i, daos.size());
+            }
+        } catch (SQLException e) {
+            for (DAO dao : daos) {
+                dao.getConnectionPool().close();
+            }
+            throw e;
+        }
+        LOGGER.log(Level.INFO, "Opened {0} shards.", daos.size());
+        return new ShardedQuestionStore(daos, daos);
+    }
+
+    /**
+     * Checks that a database was opened as the same shard before.
+     *
+     * @return {@code true} if the database is assigned to the shard, {@code false} if it was never opened as a shard.
+     * @throws SQLException if the database is assigned to another shard or another number of shards.
+     */
+    private static boolean checkAssignment(DAO dao, String jdbcUrl, int shard, int shardCount) throws SQLException {
+        try (ConnectionPool.Lease lease = dao.getConnectionPool().acquire()) {
+            PreparedStatement select = lease.prepareStatement("SELECT shard_index, shard_count FROM shard_assignment");
+            try (ResultSet resultSet = select.executeQuery()) {
+                if (!resultSet.next()) {
+                    return false;
+                }
+                int assignedShard = resultSet.getInt(1);
+                int assignedCount = resultSet.getInt(2);
+                if (assignedShard != shard || assignedCount != shardCount) {
+                    throw new SQLException("The database " + jdbcUrl + " is shard " + assignedShard + " of "
+                            + assignedCount + ", it cannot be opened as shard " + shard + " of " + shardCount
+                            + ". Start with " + assignedCount + " shards.");
+                }
+                return true;
+            }
+        }
+    }
+
+    private static void recordAssignment(DAO dao, int shard, int shardCount) throws SQLException {
+        try (ConnectionPool.Lease lease = dao.getConnectionPool().acquire()) {
+            PreparedStatement insert = lease.prepareStatement(
+                    "INSERT INTO shard_assignment (shard_index, shard_count) VALUES (?, ?)");
+            insert.setInt(1, shard);
+            insert.setInt(2, shardCount);
+            insert.executeUpdate();
+        }
+    }
+
+    private static void removeQuestionsOfOtherShards(DAO dao, int shard, int shardCount) throws SQLException {
+        List<String> misplaced = new ArrayList<>();
+        dao.forEachQuestionText(questionText -> {
+            if (shardIndex(questionText, shardCount) != shard) {
+                misplaced.add(questionText);
+            }
+        });
+        if (misplaced.isEmpty()) {
+            return;
+        }
+        // The answers of a question are unlinked by the cascade of its foreign key
+        try (ConnectionPool.Lease lease = dao.getConnectionPool().acquire()) {
+            PreparedStatement delete = lease.prepareStatement("DELETE FROM questions WHERE question_text = ?");
+            for (String questionText : misplaced) {
+                delete.setString(1, questionText);
+                delete.addBatch();
+                dao.getAnswerCache().invalidate(questionText);
+            }
+            delete.executeBatch();
+        }
+        LOGGER.log(Level.INFO, "Removed {0} questions of other shards from shard {1}.", new Object[]{misplaced.size(), shard});
+    }
+
+    /**
+     * Returns the shard a question belongs to.
+     *
+     * @param questionText The text of the question.
+     * @param shardCount The number of shards.
+     * @return The index of the shard in [0, shardCount).
+     */
+    static int shardIndex(String questionText, int shardCount) {
+        // String.hashCode is specified, so a question stays in its shard across restarts; the bits are mixed
+        // because the low bits of similar texts are close
+        long hash = questionText.trim().toLowerCase(Locale.ROOT).hashCode() * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) shardCount);
+    }
+
+    private QuestionStore shardOf(String questionText) {
+        return shards.get(shardIndex(questionText, shards.size()));
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return The number of shards.
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public List<Answer> getAnswersForQuestionText(String questionText) {
+        return shardOf(questionText).getAnswersForQuestionText(questionText);
+    }
+
+    @Override
+    public List<Answer> getAnswersAfter(String questionText, int afterPosition, int limit) {
+        return shardOf(questionText).getAnswersAfter(questionText, afterPosition, limit);
+    }
+
+    @Override
+    public boolean forEachAnswer(String questionText, Consumer<Answer> consumer) {
+        return shardOf(questionText).forEachAnswer(questionText, consumer);
+    }
+
+    /**
+     * Looks the questions up in their shards, all shards in parallel.
+     */
+    @Override
+    public Map<String, List<Answer>> getAnswersForQuestionTexts(Collection<String> questionTexts) {
+        List<List<String>> textsByShard = partition(questionTexts, text -> text);
+        List<Map<String, List<Answer>>> found = fanOut(textsByShard,
+                (shard, texts) -> shard.getAnswersForQuestionTexts(texts));
+        Map<String, List<Answer>> answers = new LinkedHashMap<>();
+        for (String questionText : questionTexts) {
+            answers.computeIfAbsent(questionText,
+                    text -> found.get(shardIndex(text, shards.size())).get(text));
+        }
+        return answers;
+    }
+
+    @Override
+    public boolean addQuestion(Question question) throws SQLException {
+        return shardOf(question.getQuestionText()).addQuestion(question);
+    }
+
+    @Override
+    public AddResult.Status addQuestionIfAbsent(Question question) throws SQLException {
+        return shardOf(question.getQuestionText()).addQuestionIfAbsent(question);
+    }
+
+    /**
+     * Adds the questions to their shards like {@link #addQuestionsInParts(List)}.
+     * The shards commit independently, so {@code false} only tells that not all questions were added.
+     */
+    @Override
+    public boolean addQuestions(List<Question> questions) {
+        return !addQuestionsInParts(questions).contains(AddResult.Status.FAILED);
+    }
+
+    /**
+     * Adds the questions to their shards, all shards in parallel. Every shard adds its questions all or none,
+     * but the shards commit independently: if one shard fails, the questions of the others are added.
+     * A shard that throws is logged and its questions are reported as failed like those of a shard that refuses them.
+     */
+    @Override
+    public List<AddResult.Status> addQuestionsInParts(List<Question> questions) {
+        List<List<Question>> questionsByShard = partition(questions, Question::getQuestionText);
+        List<Boolean> addedByShard = fanOut(questionsByShard, ShardedQuestionStore::addQuestionsOfShard);
+        List<AddResult.Status> statuses = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            boolean added = addedByShard.get(shardIndex(question.getQuestionText(), shards.size()));
+            statuses.add(added ? AddResult.Status.ADDED : AddResult.Status.FAILED);
+        }
+        return statuses;
+    }
+
+    private static boolean addQuestionsOfShard(QuestionStore shard, List<Question> questions) {
+        try {
+            return shard.addQuestions(questions);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Adding " + questions.size() + " questions to a shard failed.");
+            return false;
+        }
+    }
+
+    /**
+     * Adds the questions to their shards, all shards in parallel, each in one group.
+     */
+    @Override
+    public List<AddResult.Status> addQuestionsIfAbsent(List<Question> questions) throws SQLException {
+        List<List<Question>> questionsByShard = partition(questions, Question::getQuestionText);
+        List<List<AddResult.Status>> statusesByShard = fanOutChecked(questionsByShard, QuestionStore::addQuestionsIfAbsent);
+        int[] next = new int[shards.size()];
+        List<AddResult.Status> statuses = new ArrayList<>(questions.size());
+        for (Question question : questions) {
+            int shard = shardIndex(question.getQuestionText(), shards.size());
+            statuses.add(statusesByShard.get(shard).get(next[shard]++));
+        }
+        return statuses;
+    }
+
+    @Override
+    public boolean isQuestionStored(String questionText) {
+        return shardOf(questionText).isQuestionStored(questionText);
+    }
+
+    /**
+     * Reads the question texts of all shards in parallel, the consumer is called by one shard at a time.
+     */
+    @Override
+    public void forEachQuestionText(Consumer<String> consumer) {
+        Object lock = new Object();
+        scanAll(shard -> {
+            shard.forEachQuestionText(questionText -> {
+                synchronized (lock) {
+                    consumer.accept(questionText);
+                }
+            });
+            return true;
+        });
+    }
+
+    /**
+     * Reads the questions of all shards in parallel, the consumer is called by one shard at a time.
+     */
+    @Override
+    public boolean forEachQuestion(Consumer<Question> consumer) {
+        Object lock = new Object();
+        return scanAll(shard -> shard.forEachQuestion(question -> {
+            synchronized (lock) {
+                consumer.accept(question);
+            }
+        }));
+    }
+
+    private boolean scanAll(ShardScan scan) {
+        List<Future<Boolean>> futures = new ArrayList<>(shards.size());
+        for (QuestionStore shard : shards) {
+            futures.add(executor.submit(() -> scan.scan(shard)));
+        }
+        boolean complete = true;
+        for (Future<Boolean> future : futures) {
+            complete &= await(future);
+        }
+        return complete;
+    }
+
+    private <T> List<List<T>> partition(Collection<T> items, Function<T, String> questionText) {
+        List<List<T>> partitions = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            partitions.get(shardIndex(questionText.apply(item), shards.size())).add(item);
+        }
+        return partitions;
+    }
+
+    /**
+     * Runs the operation on every shard with items, in parallel if there are several.
+     * A shard without items gets an empty result of {@code null}.
+     */
+    private <T, R> List<R> fanOut(List<List<T>> itemsByShard, ShardOperation<T, R> operation) {
+        try {
+            return fanOutChecked(itemsByShard, (shard, items) -> operation.apply(shard, items));
+        } catch (SQLException e) {
+            throw new IllegalStateException("A shard failed.", e);
+        }
+    }
+
+    private <T, R> List<R> fanOutChecked(List<List<T>> itemsByShard, CheckedShardOperation<T, R> operation) throws SQLException {
+        List<R> results = new ArrayList<>(shards.size());
+        List<Integer> busyShards = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            results.add(null);
+            if (!itemsByShard.get(i).isEmpty()) {
+                busyShards.add(i);
+            }
+        }
+        if (busyShards.size() == 1) {
+            int shard = busyShards.get(0);
+            results.set(shard, operation.apply(shards.get(shard), itemsByShard.get(shard)));
+            return results;
+        }
+        Map<Integer, Future<R>> futures = new HashMap<>();
+        for (int shard : busyShards) {
+            Callable<R> task = () -> operation.apply(shards.get(shard), itemsByShard.get(shard));
+            futures.put(shard, executor.submit(task));
+        }
+        for (Map.Entry<Integer, Future<R>> entry : futures.entrySet()) {
+            try {
+                results.set(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for shard " + entry.getKey() + ".", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw new IllegalStateException("Shard " + entry.getKey() + " failed.", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    private static boolean await(Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.SEVERE, e.getCause(), () -> "Scanning a shard failed.");
+            return false;
+        }
+    }
+
+    /**
+     * Stops the threads of the fan-out and closes the databases opened by {@link #open(List)}.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (DAO dao : ownedDAOs) {
+            dao.getConnectionPool().close();
+        }
+    }
+
+    private interface ShardScan {
+        boolean scan(QuestionStore shard);
+    }
+
+    private interface ShardOperation<T, R> {
+        R apply(QuestionStore shard, List<T> items);
+    }
+
+    private interface CheckedShardOperation<T, R> {
+        R apply(QuestionStore shard, List<T> items) throws SQLException;
+    }
+}
@@ -0,0 +1,324 @@
+package com.example;
+
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class is responsible for adding questions to a store asynchronously, committing many adds at once.
+ * Adds are put into a bounded queue and a single writer thread passes them to
+ * {@link QuestionStore#addQuestionsIfAbsent(List)} in groups, so the {@link DAO} commits a group in one transaction
+ * instead of one transaction per add.
+ * <p>
+ * A group is closed when it holds the maximum number of adds or when the time window after its first add is over.
+ * Without a window a group holds the adds queued while the previous group was committed, so groups only grow under load.
+ * {@link #addQuestionAsync(Question)} returns a future completed once the add is committed;
+ * {@link #addQuestionIfAbsent(Question)} waits for it, so concurrent callers share commits.
+ * When the queue is full, callers wait until the writer thread made room. Reads are passed to the store directly.
+ * <p>
+ * The latency of every commit is recorded in the histogram {@code writeBehind.commit} and the time from queueing
+ * an add until it is committed in {@code writeBehind.add} of {@link Metrics#getDefault()}.
+ */
+public class WriteBehindQuestionStore implements QuestionStore, AutoCloseable {
+    private static final Logger LOGGER = LoggerConfig.getLogger();
+    private static final LatencyHistogram COMMIT_LATENCY = Metrics.getDefault().histogram("writeBehind.commit");
+    private static final LatencyHistogram ADD_LATENCY = Metrics.getDefault().histogram("writeBehind.add");
+    public static final int DEFAULT_CAPACITY = 10_000;
+    public static final int DEFAULT_MAX_GROUP_SIZE = 256;
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ZERO;
+
+    private final QuestionStore store;
+    private final ArrayBlockingQueue<PendingAdd> queue;
+    private final int maxGroupSize;
+    private final long maxDelayNanos;
+    private final Thread writerThread;
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong committedAdds = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * Constructs a write-behind store with the default queue capacity, group size and without a time window.
+     *
+     * @param store The store the questions are added to.
+     */
+    public WriteBehindQuestionStore(QuestionStore store) {
+        this(store, DEFAULT_CAPACITY, DEFAULT_MAX_GROUP_SIZE, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Constructs a write-behind store and starts its writer thread.
+     *
+     * @param store The store the questions are added to.
+     * @param capacity The maximum number of adds waiting to be committed.
+     * @param maxGroupSize The maximum number of adds committed at once.
+     * @param maxDelay How long the writer waits for more adds after the first add of a group, {@link Duration#ZERO}
+     *                 to commit what is queued at once.
+     */
+    public WriteBehindQuestionStore(QuestionStore store, int capacity, int maxGroupSize, Duration maxDelay) {
+        if (capacity < 1 || maxGroupSize < 1 || maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Capacity and group size must be positive and the delay must not be negative.");
+        }
+        this.store = store;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxGroupSize = maxGroupSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+
+        this.writerThread = new Thread(this::writeLoop, "write-behind-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues a question to be added unless it is stored, waiting while the queue is full.
+     *
+     * @param question The question to be added.
+     * @return The future status of the add, completed once it is committed; {@link AddResult.Status#FAILED}
+     *         if this store is closed, or completed exceptionally if the store threw.
+     */
+    public CompletableFuture<AddResult.Status> addQuestionAsync(Question question) {
+        PendingAdd add = new PendingAdd(question);
+        if (closed) {
+            add.result.complete(AddResult.Status.FAILED);
+            return add.result;
+        }
+        try {
+            queue.put(add);
+            // close() may have drained the queue for the last time in between
+            if (closed && queue.remove(add)) {
+                add.result.complete(AddResult.Status.FAILED);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            add.result.complete(AddResult.Status.FAILED);
+        }
+        return add.result;
+    }
+
+    /**
+     * Queues the question and waits until it is committed together with the adds of other callers.
+     */
+    @Override
+    public AddResult.Status addQuestionIfAbsent(Question question) throws SQLException {
+        try {
+            return addQuestionAsync(question).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return AddResult.Status.FAILED;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new IllegalStateException("Group commit failed.", e.getCause());
+        }
+    }
+
+    @Override
+    public boolean addQuestion(Question question) throws SQLException {
+        return addQuestionIfAbsent(question) == AddResult.Status.ADDED;
+    }
+
+    /**
+     * Adds the questions to the store directly, all or none in one transaction of their own.
+     */
+    @Override
+    public boolean addQuestions(List<Question> questions) throws SQLException {
+        return store.addQuestions(questions);
+    }
+
+    /**
+     * Adds the questions to the store directly, reporting the parts the store added.
+     */
+    @Override
+    public List<AddResult.Status> addQuestionsInParts(List<Question> questions) throws SQLException {
+        return store.addQuestionsInParts(questions);
+    }
+
+    /**
+     * Adds the questions to the store directly, they are a group already.
+     */
+    @Override
+    public List<AddResult.Status> addQuestionsIfAbsent(List<Question> questions) throws SQLException {
+        return store.addQuestionsIfAbsent(questions);
+    }
+
+    @Override
+    public List<Answer> getAnswersForQuestionText(String questionText) {
+        return store.getAnswersForQuestionText(questionText);
+    }
+
+    @Override
+    public Map<String, List<Answer>> getAnswersForQuestionTexts(Collection<String> questionTexts) {
+        return store.getAnswersForQuestionTexts(questionTexts);
+    }
+
+    @Override
+    public List<Answer> getAnswersAfter(String questionText, int afterPosition, int limit) {
+        return store.getAnswersAfter(questionText, afterPosition, limit);
+    }
+
+    @Override
+    public boolean forEachAnswer(String questionText, Consumer<Answer> consumer) {
+        return store.forEachAnswer(questionText, consumer);
+    }
+
+    @Override
+    public boolean isQuestionStored(String questionText) {
+        return store.isQuestionStored(questionText);
+    }
+
+    @Override
+    public void forEachQuestionText(Consumer<String> consumer) {
+        store.forEachQuestionText(consumer);
+    }
+
+    @Override
+    public boolean forEachQuestion(Consumer<Question> consumer) {
+        return store.forEachQuestion(consumer);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return store.isReadOnly();
+    }
+
+    /**
+     * Returns the number of groups committed so far.
+     *
+     * @return The number of commits.
+     */
+    public long getCommitCount() {
+        return commits.get();
+    }
+
+    /**
+     * Returns the number of adds committed so far, whatever their status.
+     *
+     * @return The number of committed adds.
+     */
+    public long getCommittedAddCount() {
+        return committedAdds.get();
+    }
+
+    /**
+     * Returns the number of adds waiting to be committed.
+     *
+     * @return The length of the queue.
+     */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Publishes the queue length and the commit counters of this store as gauges.
+     *
+     * @param metrics The registry the gauges are registered in.
+     */
+    public void registerMetrics(Metrics metrics) {
+        metrics.gauge("writeBehind.queued", this::getQueuedCount);
+        metrics.gauge("writeBehind.commits", this::getCommitCount);
+        metrics.gauge("writeBehind.committedAdds", this::getCommittedAddCount);
+    }
+
+    private void writeLoop() {
+        List<PendingAdd> group = new ArrayList<>(maxGroupSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingAdd first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, maxGroupSize - 1);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxGroupSize && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingAdd next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                    queue.drainTo(group, maxGroupSize - group.size());
+                }
+            } catch (InterruptedException e) {
+                // Not interrupted by close(), the writer notices it within the poll timeout
+                Thread.currentThread().interrupt();
+                closed = true;
+            }
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingAdd> group) {
+        List<Question> questions = new ArrayList<>(group.size());
+        for (PendingAdd add : group) {
+            questions.add(add.question);
+        }
+        long start = System.nanoTime();
+        try {
+            List<AddResult.Status> statuses = store.addQuestionsIfAbsent(questions);
+            COMMIT_LATENCY.recordSince(start);
+            commits.incrementAndGet();
+            committedAdds.addAndGet(group.size());
+            for (int i = 0; i < group.size(); i++) {
+                ADD_LATENCY.recordSince(group.get(i).queuedNanos);
+                group.get(i).result.complete(statuses.get(i));
+            }
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, e, () -> "Failed to commit group of " + group.size() + " questions.");
+            for (PendingAdd add : group) {
+                add.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Commits all queued adds and stops the writer thread. Adds queued afterwards fail.
+     * The store itself is not closed.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        // The writer is not interrupted: an interrupt during a file write closes the file of an H2 databank
+        closed = true;
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // An add racing with close() may have been queued after the writer stopped
+        PendingAdd add;
+        while ((add = queue.poll()) != null) {
+            add.result.complete(AddResult.Status.FAILED);
+        }
+    }
+
+    private static final class PendingAdd {
+        private final Question question;
+        private final long queuedNanos = System.nanoTime();
+        private final CompletableFuture<AddResult.Status> result = new CompletableFuture<>();
+
+        private PendingAdd(Question question) {
+            this.question = question;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.dto;
+
+/**
+ * This class represents the outcome of an add command.
+ */
+public class AddResult {
+
+    /**
+     * The possible outcomes of an add command.
+     */
+    public enum Status {
+        ADDED("Question added successfully."),
+        ALREADY_EXISTS("Question already exists in the database."),
+        INVALID(null),
+        FAILED("Failed to add question."),
+        READ_ONLY("Questions cannot be added to a read-only snapshot.");
+
+        private final String message;
+
+        Status(String message) {
+            this.message = message;
+        }
+    }
+
+    private final Status status;
+    private final Question question;
+    private final ValidationError validationError;
+
+    private AddResult(Status status, Question question, ValidationError validationError) {
+        this.status = status;
+        this.question = question;
+        this.validationError = validationError;
+    }
+
+    public static AddResult added(Question question) {
+        return new AddResult(Status.ADDED, question, null);
+    }
+
+    public static AddResult alreadyExists(Question question) {
+        return new AddResult(Status.ALREADY_EXISTS, question, null);
+    }
+
+    public static AddResult invalid(ValidationError validationError) {
+        return new AddResult(Status.INVALID, null, validationError);
+    }
+
+    public static AddResult failed(Question question) {
+        return new AddResult(Status.FAILED, question, null);
+    }
+
+    public static AddResult readOnly(Question question) {
+        return new AddResult(Status.READ_ONLY, question, null);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The question of the command, {@code null} if the command could not be parsed.
+     */
+    public Question getQuestion() {
+        return question;
+    }
+
+    /**
+     * @return The reason the command was rejected, {@code null} unless the status is {@link Status#INVALID}.
+     */
+    public ValidationError getValidationError() {
+        return validationError;
+    }
+
+    public boolean isAdded() {
+        return status == Status.ADDED;
+    }
+
+    /**
+     * @return The message shown to the user for this outcome.
+     */
+    public String getMessage() {
+        return status == Status.INVALID ? validationError.getMessage() : status.message;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.dto;
+
+import java.util.List;
+
+/**
+ * This class represents one page of the answers of an asked question.
+ */
+public class AnswerPage {
+    private final String questionText;
+    private final String matchedQuestionText;
+    private final int after;
+    private final List<Answer> answers;
+    private final boolean hasMore;
+
+    /**
+     * @param questionText The asked text.
+     * @param matchedQuestionText The stored question the answers belong to, which differs from the asked text
+     *                            if it was found by a fuzzy ask.
+     * @param after The position of the last answer before the page, {@code -1} for the first page.
+     * @param answers The answers of the page.
+     * @param hasMore {@code true} if more answers follow the page.
+     */
+    public AnswerPage(String questionText, String matchedQuestionText, int after, List<Answer> answers, boolean hasMore) {
+        this.questionText = questionText;
+        this.matchedQuestionText = matchedQuestionText;
+        this.after = after;
+        this.answers = answers;
+        this.hasMore = hasMore;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    public String getMatchedQuestionText() {
+        return matchedQuestionText;
+    }
+
+    /**
+     * @return {@code true} if the answers belong to a similar question instead of the asked text.
+     */
+    public boolean isSimilarMatch() {
+        return !questionText.equals(matchedQuestionText);
+    }
+
+    public int getAfter() {
+        return after;
+    }
+
+    /**
+     * @return {@code true} if the page starts with the first answer.
+     */
+    public boolean isFirstPage() {
+        return after < 0;
+    }
+
+    public List<Answer> getAnswers() {
+        return answers;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    /**
+     * @return The position to ask the next page after, the position of the last answer of this page.
+     */
+    public int getNextAfter() {
+        return Math.max(after, -1) + answers.size();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.dto;
+
+import java.util.List;
+
+/**
+ * This class represents the reply to an asked question.
+ */
+public class AskResult {
+    public static final String DEFAULT_REPLY = "The answer to life, universe, and everything is 42.";
+
+    private final String questionText;
+    private final List<Answer> answers;
+    private final String matchedQuestionText;
+
+    public AskResult(String questionText, List<Answer> answers) {
+        this(questionText, answers, questionText);
+    }
+
+    /**
+     * @param questionText The asked text.
+     * @param answers The answers of the matched question.
+     * @param matchedQuestionText The stored question the answers belong to, which differs from the asked text
+     *                            if it was found by a fuzzy ask.
+     */
+    public AskResult(String questionText, List<Answer> answers, String matchedQuestionText) {
+        this.questionText = questionText;
+        this.answers = answers;
+        this.matchedQuestionText = matchedQuestionText;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    public String getMatchedQuestionText() {
+        return matchedQuestionText;
+    }
+
+    /**
+     * @return {@code true} if the answers belong to a similar question instead of the asked text.
+     */
+    public boolean isSimilarMatch() {
+        return !questionText.equals(matchedQuestionText);
+    }
+
+    /**
+     * @return The stored answers of the question, empty if the question is unknown.
+     */
+    public List<Answer> getAnswers() {
+        return answers;
+    }
+
+    /**
+     * @return {@code true} if answers are stored for the question, {@code false} if the default reply applies.
+     */
+    public boolean isAnswered() {
+        return !answers.isEmpty();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.dto;
+
+/**
+ * This class represents a stored question found for a similar text, together with their similarity.
+ */
+public class QuestionMatch {
+    private final String questionText;
+    private final double similarity;
+
+    public QuestionMatch(String questionText, double similarity) {
+        this.questionText = questionText;
+        this.similarity = similarity;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    /**
+     * @return The similarity between the searched text and the question, from 0 (nothing shared) to 1 (equal).
+     */
+    public double getSimilarity() {
+        return similarity;
+    }
+}
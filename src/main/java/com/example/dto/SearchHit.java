@@ -0,0 +1,25 @@
+package com.example.dto;
+
+/**
+ * This class represents a stored question found by a full-text search, together with its relevance score.
+ */
+public class SearchHit {
+    private final String questionText;
+    private final double score;
+
+    public SearchHit(String questionText, double score) {
+        this.questionText = questionText;
+        this.score = score;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    /**
+     * @return The BM25 score of the question for the searched terms, higher is more relevant.
+     */
+    public double getScore() {
+        return score;
+    }
+}
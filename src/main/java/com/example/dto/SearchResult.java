@@ -0,0 +1,63 @@
+package com.example.dto;
+
+import java.util.List;
+
+/**
+ * This class represents one page of the questions found by a full-text search.
+ */
+public class SearchResult {
+    private final String terms;
+    private final int page;
+    private final int pageSize;
+    private final int totalHits;
+    private final List<SearchHit> hits;
+
+    /**
+     * @param terms The searched terms.
+     * @param page The number of the page, starting at 1.
+     * @param pageSize The maximum number of hits on a page.
+     * @param totalHits The number of questions containing all terms, on all pages.
+     * @param hits The hits of the page, the most relevant first.
+     */
+    public SearchResult(String terms, int page, int pageSize, int totalHits, List<SearchHit> hits) {
+        this.terms = terms;
+        this.page = page;
+        this.pageSize = pageSize;
+        this.totalHits = totalHits;
+        this.hits = hits;
+    }
+
+    public String getTerms() {
+        return terms;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    /**
+     * @return The rank of the first hit of the page, starting at 1.
+     */
+    public int getFirstRank() {
+        return (page - 1) * pageSize + 1;
+    }
+
+    /**
+     * @return {@code true} if more hits follow on the next page.
+     */
+    public boolean hasNextPage() {
+        return getFirstRank() - 1 + hits.size() < totalHits && !hits.isEmpty();
+    }
+}
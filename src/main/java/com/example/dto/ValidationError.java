@@ -0,0 +1,22 @@
+package com.example.dto;
+
+/**
+ * This enum represents the reasons why an add command can be rejected.
+ */
+public enum ValidationError {
+    INVALID_COMMAND("Invalid command. Please enter a valid command."),
+    MISSING_ANSWER("A question needs at least one answer."),
+    NOT_QUOTED("Invalid format. Strings must be properly quoted."),
+    QUESTION_TOO_LONG("Question is too long. Maximum length is 255 characters."),
+    ANSWER_TOO_LONG("Answer is too long. Maximum length is 255 characters.");
+
+    private final String message;
+
+    ValidationError(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,58 @@
+-- Version 1: the initial schema with its seed data.
+-- Applied migrations must never change, later changes go into a new V<n>__<description>.sql script.
+
+-- Create table for Questions
+CREATE TABLE IF NOT EXISTS questions
+(
+    id            INT AUTO_INCREMENT PRIMARY KEY,
+    question_text VARCHAR(255) NOT NULL
+);
+
+-- Asks and existence checks look questions up by their text
+CREATE UNIQUE INDEX IF NOT EXISTS idx_questions_question_text ON questions (question_text);
+
+-- Create table for Answers
+CREATE TABLE IF NOT EXISTS answers
+(
+    id          INT AUTO_INCREMENT PRIMARY KEY,
+    answer_text VARCHAR(255) NOT NULL
+);
+
+-- Create table to link Questions and Answers
+CREATE TABLE IF NOT EXISTS question_answers
+(
+    question_id INT,
+    answer_id   INT,
+    PRIMARY KEY (question_id, answer_id)
+);
+
+-- The primary key covers lookups by question_id, answer_id needs its own index.
+-- The index is created before the foreign keys, so they reuse the existing indexes.
+CREATE INDEX IF NOT EXISTS idx_question_answers_answer_id ON question_answers (answer_id);
+
+ALTER TABLE question_answers
+    ADD CONSTRAINT IF NOT EXISTS fk_question_answers_question_id
+        FOREIGN KEY (question_id) REFERENCES questions (id) ON DELETE CASCADE;
+ALTER TABLE question_answers
+    ADD CONSTRAINT IF NOT EXISTS fk_question_answers_answer_id
+        FOREIGN KEY (answer_id) REFERENCES answers (id) ON DELETE CASCADE;
+
+-- Insert initial data into Questions
+INSERT INTO questions (question_text)
+VALUES ('What is the capital of France?'),
+       ('What is 2 + 2?');
+
+-- Insert initial data into Answers
+INSERT INTO answers (answer_text)
+VALUES ('Paris'),
+       ('4'),
+       ('London'),
+       ('5');
+
+-- Link Questions and Answers
+-- For example, linking 'What is the capital of France?' with 'Paris' and 'London'
+INSERT INTO question_answers (question_id, answer_id)
+VALUES (1, 1),
+       (1, 3),
+       (2, 2),
+       (2, 4);
@@ -0,0 +1,39 @@
+-- Version 2: every answer text is stored once and shared by all questions having it.
+
+-- Answers are keyed by the SHA-256 hash of their text
+ALTER TABLE answers
+    ADD COLUMN IF NOT EXISTS answer_hash VARBINARY(32) GENERATED ALWAYS AS (HASH('SHA-256', answer_text)) NOT NULL;
+
+-- Links keep the order the answers were given in, which no longer follows the answer ids
+ALTER TABLE question_answers
+    ADD COLUMN IF NOT EXISTS answer_position INT DEFAULT 0 NOT NULL;
+
+MERGE INTO question_answers qa
+USING (SELECT question_id,
+              answer_id,
+              ROW_NUMBER() OVER (PARTITION BY question_id ORDER BY answer_id) - 1 AS answer_position
+       FROM question_answers) numbered
+ON qa.question_id = numbered.question_id AND qa.answer_id = numbered.answer_id
+WHEN MATCHED THEN UPDATE SET answer_position = numbered.answer_position;
+
+-- Merge the duplicates stored so far: link every question to the first copy of each of its answers ...
+CREATE INDEX IF NOT EXISTS idx_answers_answer_hash_migration ON answers (answer_hash);
+
+INSERT INTO question_answers (question_id, answer_id, answer_position)
+SELECT qa.question_id, copies.first_id, MIN(qa.answer_position)
+FROM question_answers qa
+         JOIN (SELECT id, MIN(id) OVER (PARTITION BY answer_hash) AS first_id FROM answers) copies
+              ON qa.answer_id = copies.id
+WHERE copies.id <> copies.first_id
+  AND NOT EXISTS (SELECT 1
+                  FROM question_answers linked
+                  WHERE linked.question_id = qa.question_id
+                    AND linked.answer_id = copies.first_id)
+GROUP BY qa.question_id, copies.first_id;
+
+-- ... and delete the other copies, the foreign key removes their links
+DELETE FROM answers a
+WHERE EXISTS (SELECT 1 FROM answers first WHERE first.answer_hash = a.answer_hash AND first.id < a.id);
+
+DROP INDEX IF EXISTS idx_answers_answer_hash_migration;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_answers_answer_hash ON answers (answer_hash);
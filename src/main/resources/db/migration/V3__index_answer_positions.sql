@@ -0,0 +1,13 @@
+-- Version 3: answers are read in pages of their positions.
+
+-- Merging the duplicates in version 2 may have left gaps, the positions of a question are numbered 0, 1, 2, ... again
+MERGE INTO question_answers qa
+USING (SELECT question_id,
+              answer_id,
+              ROW_NUMBER() OVER (PARTITION BY question_id ORDER BY answer_position, answer_id) - 1 AS answer_position
+       FROM question_answers) numbered
+ON qa.question_id = numbered.question_id AND qa.answer_id = numbered.answer_id
+WHEN MATCHED AND qa.answer_position <> numbered.answer_position THEN UPDATE SET answer_position = numbered.answer_position;
+
+-- A page of answers seeks to the position after the last answer read instead of skipping the answers before it
+CREATE INDEX IF NOT EXISTS idx_question_answers_position ON question_answers (question_id, answer_position);
@@ -0,0 +1,10 @@
+-- Version 4: a databank used as a shard records its place among the shards.
+
+-- Empty unless the databank is a shard of a ShardedQuestionStore, then it holds one row.
+-- Opening the shard with another index or count would look its questions up in the wrong databank.
+CREATE TABLE IF NOT EXISTS shard_assignment
+(
+    shard_index INT NOT NULL,
+    shard_count INT NOT NULL,
+    assigned_on TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
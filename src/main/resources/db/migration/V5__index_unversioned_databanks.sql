@@ -0,0 +1,27 @@
+-- Version 5: the indexes of version 1 in databanks created before versioning.
+
+-- Such a databank was only marked as version 1, so it may lack the indexes of V1__initial_schema.sql.
+-- In a databank created by version 1 nothing changes.
+
+-- Without a unique index a question may have been stored twice: the answers of the copies are appended to the
+-- first one, then the copies are removed together with their links
+INSERT INTO question_answers (question_id, answer_id, answer_position)
+SELECT copies.first_id,
+       copies.answer_id,
+       (SELECT COALESCE(MAX(qa.answer_position), -1) FROM question_answers qa WHERE qa.question_id = copies.first_id)
+           + ROW_NUMBER() OVER (PARTITION BY copies.first_id ORDER BY copies.copy_id, copies.answer_position)
+FROM (SELECT firsts.first_id, qa.answer_id, MIN(q.id) AS copy_id, MIN(qa.answer_position) AS answer_position
+      FROM (SELECT question_text, MIN(id) AS first_id FROM questions GROUP BY question_text HAVING COUNT(*) > 1) firsts
+      JOIN questions q ON q.question_text = firsts.question_text AND q.id <> firsts.first_id
+      JOIN question_answers qa ON qa.question_id = q.id
+      WHERE NOT EXISTS (SELECT 1
+                        FROM question_answers linked
+                        WHERE linked.question_id = firsts.first_id AND linked.answer_id = qa.answer_id)
+      GROUP BY firsts.first_id, qa.answer_id) copies;
+
+DELETE FROM questions q
+WHERE q.id > (SELECT MIN(first.id) FROM questions first WHERE first.question_text = q.question_text);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_questions_question_text ON questions (question_text);
+
+CREATE INDEX IF NOT EXISTS idx_question_answers_answer_id ON question_answers (answer_id);
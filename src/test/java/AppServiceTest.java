@@ -1,6 +1,17 @@
 import com.example.DAO;
+import com.example.FuzzyQuestionIndex;
+import com.example.InMemoryQuestionStore;
+import com.example.InvalidCommandException;
+import com.example.SchemaMigrator;
+import com.example.ResultFormatter;
+import com.example.dto.AddResult;
 import com.example.dto.Answer;
 import com.example.AppService;
+import com.example.dto.AnswerPage;
+import com.example.dto.AskResult;
+import com.example.dto.Question;
+import com.example.dto.SearchResult;
+import com.example.dto.ValidationError;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,10 +21,17 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.PrintStream;
+import java.io.IOException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,8 +42,9 @@ public class AppServiceTest {
 
     @BeforeEach
     public void setUp() throws SQLException {
-        // Set up in-memory H2 database with schema from schema.sql
-        connection = DriverManager.getConnection("jdbc:h2:mem:testDatabank;INIT=RUNSCRIPT FROM 'classpath:schema.sql';DB_CLOSE_DELAY=-1");
+        // Set up in-memory H2 database with the migrated schema
+        connection = DriverManager.getConnection("jdbc:h2:mem:testDatabank;DB_CLOSE_DELAY=-1");
+        SchemaMigrator.migrate(connection);
         dao = new DAO(connection);
         appService = new AppService(dao);
     }
@@ -37,55 +56,52 @@ public class AppServiceTest {
             stmt.execute("DROP TABLE IF EXISTS question_answers");
             stmt.execute("DROP TABLE IF EXISTS answers");
             stmt.execute("DROP TABLE IF EXISTS questions");
+            stmt.execute("DROP TABLE IF EXISTS schema_version");
         }
         connection.close();
     }
 
     @Test
     public void test_handleExit() {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.handleExit();
-
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
+        String output = appService.handleExit();
         String expectedOutput = "Exiting...";
 
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+        assertEquals(expectedOutput, output, "The exit message did not match the expected result.");
     }
 
     @Test
-    public void test_displayHelp() {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.displayHelp();
+    public void test_getHelp() {
+        List<String> lines = appService.getHelp();
 
-        System.setOut(originalOut);
+        assertEquals(9, lines.size(), "The help should have exactly nine lines.");
 
-        String output = outputStream.toString().trim();
-        String[] lines = output.split("\n");
-
-        assertEquals(4, lines.length, "The output should have exactly four lines.");
-
-        assertEquals("To add a question, type the question followed by the answers in quotes.", lines[0].trim(),
+        assertEquals("To add a question, type the question followed by the answers in quotes.", lines.get(0),
                 "The output is not as expected.");
-        assertEquals("Example: What is the meaning of life? \"42\" \"To live\" \"To love\"", lines[1].trim(),
+        assertEquals("Example: What is the meaning of life? \"42\" \"To live\" \"To love\"", lines.get(1),
                 "The output is not as expected.");
-        assertEquals("To ask a question, type the question followed by a question mark.", lines[2].trim(),
+        assertEquals("Inside an answer, type \\\" for a quote and \\\\ for a backslash that ends an answer followed by another one.",
+                lines.get(2), "The output is not as expected.");
+        assertEquals("To ask a question, type the question followed by a question mark.", lines.get(3),
                 "The output is not as expected.");
-        assertEquals("Example: What is the meaning of life?", lines[3].trim(),
+        assertEquals("Example: What is the meaning of life?", lines.get(4),
                 "The output is not as expected.");
+        assertEquals("To search the stored questions and answers, type search followed by the words to find.",
+                lines.get(5), "The output is not as expected.");
+        assertEquals("Example: search meaning life, or search --page 2 meaning life for the next results",
+                lines.get(6), "The output is not as expected.");
+        assertEquals("To ask several questions at once, type batch, then one question per line and an empty line to finish.",
+                lines.get(7), "The output is not as expected.");
+        assertEquals("Example: batch, What is the meaning of life?, What is 2 + 2?, empty line",
+                lines.get(8), "The output is not as expected.");
     }
 
     @Test
     public void test_handleAddQuestion_Success() throws SQLException {
         String command = "What is the meaning of life? \"test1\" \"test2\" \"test3\"";
-        appService.handleAddQuestion(command);
+        AddResult result = appService.handleAddQuestion(command);
+
+        assertEquals(AddResult.Status.ADDED, result.getStatus());
+        assertEquals("Question added successfully.", result.getMessage());
 
         List<Answer> answers = dao.getAnswersForQuestionText("What is the meaning of life?");
         assertEquals(3, answers.size());
@@ -98,72 +114,44 @@ public class AppServiceTest {
     public void test_handleAddQuestion_alreadyStored() throws SQLException {
         String command = "What is the capital of France? \"test1\" \"test2\" \"test3\"";
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.handleAddQuestion(command);
+        AddResult result = appService.handleAddQuestion(command);
 
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
-        String expectedOutput = "Question already exists in the database.";
-
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+        assertEquals(AddResult.Status.ALREADY_EXISTS, result.getStatus());
+        assertEquals("Question already exists in the database.", result.getMessage(),
+                "The message did not match the expected result.");
     }
 
     @Test
     public void test_handleAddQuestion_WrongAnswerQuotes() throws SQLException {
         String command = "What is the capital of England? test1\" \"test2\" \"test3\"";
+        AddResult result = appService.handleAddQuestion(command);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.handleAddQuestion(command);
-
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
-        String expectedOutput = "Invalid format. Strings must be properly quoted.";
-
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+        assertEquals(AddResult.Status.INVALID, result.getStatus());
+        assertEquals(ValidationError.NOT_QUOTED, result.getValidationError());
+        assertEquals("Invalid format. Strings must be properly quoted.", result.getMessage(),
+                "The message did not match the expected result.");
     }
 
     @Test
     public void test_handleAddQuestion_NoAnswer() throws SQLException {
         String command = "What is the capital of England?";
+        AddResult result = appService.handleAddQuestion(command);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.handleAddQuestion(command);
-
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
-        String expectedOutput = "A question needs at least one answer.";
-
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+        assertEquals(AddResult.Status.INVALID, result.getStatus());
+        assertEquals(ValidationError.MISSING_ANSWER, result.getValidationError());
+        assertEquals("A question needs at least one answer.", result.getMessage(),
+                "The message did not match the expected result.");
     }
 
     @Test
     public void test_handleAddQuestion_NoQuestionMark() throws SQLException {
         String command = "What is the capital of England";
+        AddResult result = appService.handleAddQuestion(command);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.handleAddQuestion(command);
-
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
-        String expectedOutput = "Invalid command. Please enter a valid command.";
-
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+        assertEquals(AddResult.Status.INVALID, result.getStatus());
+        assertEquals(ValidationError.INVALID_COMMAND, result.getValidationError());
+        assertEquals("Invalid command. Please enter a valid command.", result.getMessage(),
+                "The message did not match the expected result.");
     }
 
     @Test
@@ -175,19 +163,12 @@ public class AppServiceTest {
                 "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx" +
                 "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx" +
                 "xxxxxxxxxxxxxxx? \"test1\"";
+        AddResult result = appService.handleAddQuestion(command);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.handleAddQuestion(command);
-
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
-        String expectedOutput = "Question is too long. Maximum length is 255 characters.";
-
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+        assertEquals(AddResult.Status.INVALID, result.getStatus());
+        assertEquals(ValidationError.QUESTION_TOO_LONG, result.getValidationError());
+        assertEquals("Question is too long. Maximum length is 255 characters.", result.getMessage(),
+                "The message did not match the expected result.");
     }
 
     @Test
@@ -201,85 +182,192 @@ public class AppServiceTest {
                 "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx" +
                 "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx" +
                 "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx\"";
+        AddResult result = appService.handleAddQuestion(command);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.handleAddQuestion(command);
-
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
-        String expectedOutput = "Answer is too long. Maximum length is 255 characters.";
-
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+        assertEquals(AddResult.Status.INVALID, result.getStatus());
+        assertEquals(ValidationError.ANSWER_TOO_LONG, result.getValidationError());
+        assertEquals("Answer is too long. Maximum length is 255 characters.", result.getMessage(),
+                "The message did not match the expected result.");
     }
 
-
-
-
-
     @Test
-    public void test_handleAskQuestion_withAnswers() {
+    public void test_handleAskQuestion_withAnswers() throws IOException {
         String command = "What is the capital of France?";
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
+        AskResult result = appService.handleAskQuestion(command);
 
-        appService.handleAskQuestion(command);
+        assertTrue(result.isAnswered());
+        assertEquals(2, result.getAnswers().size(), "The question should have exactly two answers.");
 
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
-        String[] lines = output.split("\n");
-
-        assertEquals(2, lines.length, "The output should have exactly two lines.");
+        StringBuilder output = new StringBuilder();
+        ResultFormatter.writeAskResult(result, output);
+        String[] lines = output.toString().trim().split("\n");
 
         assertEquals("- Paris", lines[0].trim(), "The output should be '- Paris'.");
         assertEquals("- London", lines[1].trim(), "The output should be '- London'.");
     }
 
     @Test
-    public void test_handleAskQuestion_NoAnswers() {
+    public void test_handleAskQuestion_NoAnswers() throws IOException {
         String command = "What is the meaning of life?";
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
+        AskResult result = appService.handleAskQuestion(command);
 
-        appService.handleAskQuestion(command);
+        assertFalse(result.isAnswered());
 
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
+        StringBuilder output = new StringBuilder();
+        ResultFormatter.writeAskResult(result, output);
         String expectedOutput = "The answer to life, universe, and everything is 42.";
 
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+        assertEquals(expectedOutput, output.toString().trim(), "The output did not match the expected result.");
     }
 
     @Test
-    public void test_handleUnknownCommand() {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PrintStream originalOut = System.out;
-        System.setOut(new PrintStream(outputStream));
-
-        appService.handleUnknownCommand();
-
-        System.setOut(originalOut);
-
-        String output = outputStream.toString().trim();
-        String expectedOutput = "Unknown command. If you are having problems try help.";
-
-        assertEquals(expectedOutput, output, "The console output did not match the expected result.");
+    public void test_handleAskQuestion_fuzzyFindsSimilarQuestion() throws IOException, SQLException {
+        AppService fuzzyService = new AppService(dao, FuzzyQuestionIndex.build(dao));
+
+        AskResult result = fuzzyService.handleAskQuestion("what is 2+2?");
+
+        assertTrue(result.isAnswered());
+        assertTrue(result.isSimilarMatch());
+        assertEquals("What is 2 + 2?", result.getMatchedQuestionText());
+        StringBuilder output = new StringBuilder();
+        ResultFormatter.writeAskResult(result, output);
+        assertEquals("Closest question: What is 2 + 2?\n - 4\n - 5\n", output.toString());
+
+        // Questions added through the service are found as well, unrelated ones still get the default reply
+        fuzzyService.handleAddQuestion("Who wrote Faust? \"Goethe\"");
+        assertEquals("Who wrote Faust?", fuzzyService.handleAskQuestion("who wrote faust").getMatchedQuestionText());
+        assertFalse(fuzzyService.handleAskQuestion("How tall is the Eiffel tower?").isAnswered());
     }
 
+    @Test
+    public void test_handleAskQuestionPage_continuesWithTheSimilarQuestion() throws IOException, SQLException {
+        AppService fuzzyService = new AppService(dao, FuzzyQuestionIndex.build(dao));
+
+        AnswerPage first = fuzzyService.handleAskQuestionPage("what is 2+2?", -1, 1);
+        AnswerPage second = fuzzyService.handleAskQuestionPage("what is 2+2?", first.getNextAfter(), 1);
+
+        assertTrue(first.hasMore());
+        assertFalse(second.hasMore());
+        StringBuilder output = new StringBuilder();
+        ResultFormatter.writeAnswerPage(first, output);
+        ResultFormatter.writeAnswerPage(second, output);
+        assertEquals("Closest question: What is 2 + 2?\n - 4\n - 5\n", output.toString(),
+                "The pages should form the same reply as the whole answer.");
+        assertTrue(fuzzyService.handleAskQuestionPage("What is 2 + 2?", 1, 1).getAnswers().isEmpty(),
+                "The page after the last answer of a stored question should be empty.");
+    }
 
+    @Test
+    public void test_handleAskQuestions_answersAllInOrder() throws IOException, SQLException {
+        AppService fuzzyService = new AppService(dao, FuzzyQuestionIndex.build(dao));
+
+        List<AskResult> results = fuzzyService.handleAskQuestions(
+                List.of("What is 2 + 2?", " What is the capital of France? ", "what is 2+2?", "What is 2 + 2?", "Why?"));
+
+        assertEquals(5, results.size());
+        StringBuilder output = new StringBuilder();
+        ResultFormatter.writeAskResults(results, output);
+        assertEquals("What is 2 + 2?\n - 4\n - 5\n"
+                + "What is the capital of France?\n - Paris\n - London\n"
+                + "what is 2+2?\nClosest question: What is 2 + 2?\n - 4\n - 5\n"
+                + "What is 2 + 2?\n - 4\n - 5\n"
+                + "Why?\nThe answer to life, universe, and everything is 42.\n", output.toString());
+    }
 
+    @Test
+    public void test_handleSearch_findsQuestionsAndAnswers() throws IOException, SQLException {
+        // "Paris" is only an answer of the seed question about France
+        StringBuilder output = new StringBuilder();
+        ResultFormatter.writeSearchResult(appService.handleSearch("search paris"), output);
+        assertEquals("Results 1-1 of 1 for: paris\n1. What is the capital of France?\n", output.toString());
+
+        // Questions added after the first search are indexed as well
+        appService.handleAddQuestion("Which river flows through Paris? \"Seine\"");
+        assertEquals(2, appService.handleSearch("search  PARIS").getTotalHits());
+        assertEquals("Which river flows through Paris?",
+                appService.handleSearch("search paris seine").getHits().get(0).getQuestionText());
+
+        output.setLength(0);
+        ResultFormatter.writeSearchResult(appService.handleSearch("search --page 2 paris"), output);
+        assertEquals("No more results, 2 questions found for: paris\n", output.toString());
+        assertEquals(0, appService.handleSearch("search paris tokyo").getTotalHits());
+        assertThrows(InvalidCommandException.class, () -> appService.handleSearch("search --page two paris"));
+    }
 
+    @Test
+    public void test_handleSearch_buildsTheIndexAgainAfterAFailedScan() throws SQLException {
+        AtomicBoolean failScan = new AtomicBoolean(true);
+        InMemoryQuestionStore store = new InMemoryQuestionStore() {
+            @Override
+            public boolean forEachQuestion(Consumer<Question> consumer) {
+                return !failScan.getAndSet(false) && super.forEachQuestion(consumer);
+            }
+        };
+        store.addQuestion(new Question("What is the capital of France?", List.of(new Answer("Paris"))));
+        AppService service = new AppService(store);
+
+        assertThrows(IllegalStateException.class, () -> service.handleSearch("search paris"),
+                "A partial index should not be used.");
+        assertEquals(1, service.handleSearch("search paris").getTotalHits());
+    }
 
+    @Test
+    public void test_handleSearch_doesNotBlockAddsWhileIndexing() throws Exception {
+        // Added before the scan reads the questions, so the scan finds it as well as the replay
+        assertIndexesAddDuringBuild(true);
+        // Added after the scan read the questions, so only the replay finds it
+        assertIndexesAddDuringBuild(false);
+    }
 
+    private static void assertIndexesAddDuringBuild(boolean addBeforeScan) throws Exception {
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch added = new CountDownLatch(1);
+        InMemoryQuestionStore store = new InMemoryQuestionStore() {
+            @Override
+            public boolean forEachQuestion(Consumer<Question> consumer) {
+                try {
+                    if (addBeforeScan) {
+                        building.countDown();
+                        added.await();
+                        return super.forEachQuestion(consumer);
+                    }
+                    boolean complete = super.forEachQuestion(consumer);
+                    building.countDown();
+                    added.await();
+                    return complete;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        };
+        store.addQuestion(new Question("What is the capital of France?", List.of(new Answer("Paris"))));
+        AppService service = new AppService(store);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<SearchResult> firstSearch = executor.submit(() -> service.handleSearch("search paris"));
+            assertTrue(building.await(5, TimeUnit.SECONDS));
+
+            AddResult result = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> service.handleAddQuestion("Which river flows through Paris? \"Seine\""),
+                    "An add should not wait for the index build.");
+            added.countDown();
+
+            assertEquals(AddResult.Status.ADDED, result.getStatus());
+            assertEquals(2, firstSearch.get(5, TimeUnit.SECONDS).getTotalHits());
+            assertEquals(2, service.handleSearch("search paris").getTotalHits(), "Every question should be indexed once.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
+    @Test
+    public void test_handleUnknownCommand() {
+        String output = appService.handleUnknownCommand();
+        String expectedOutput = "Unknown command. If you are having problems try help.";
 
+        assertEquals(expectedOutput, output, "The message did not match the expected result.");
+    }
 }
@@ -0,0 +1,70 @@
+import com.example.AsyncFileHandler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncFileHandlerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void test_close_writesAllQueuedRecordsInOrder() throws Exception {
+        Path file = tempDir.resolve("app.log");
+        AsyncFileHandler handler = new AsyncFileHandler(file.toString(), 16, AsyncFileHandler.OverflowPolicy.BLOCK,
+                new MessageFormatter());
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            handler.publish(new LogRecord(Level.INFO, "Record " + i));
+            expected.add("Record " + i);
+        }
+        handler.flush();
+
+        handler.close();
+        handler.publish(new LogRecord(Level.SEVERE, "After close"));
+        handler.close();
+
+        assertEquals(expected, Files.readAllLines(file, StandardCharsets.UTF_8),
+                "Close should write every queued record once and ignore records published afterwards.");
+    }
+
+    @Test
+    public void test_publish_keepsSevereRecordsWhenTheQueueIsFull() throws Exception {
+        Path file = tempDir.resolve("app.log");
+        AsyncFileHandler handler = new AsyncFileHandler(file.toString(), 1, AsyncFileHandler.OverflowPolicy.DROP,
+                new MessageFormatter());
+        for (int i = 0; i < 1000; i++) {
+            handler.publish(new LogRecord(Level.SEVERE, "Severe " + i));
+            handler.publish(new LogRecord(Level.FINE, "Fine " + i));
+        }
+        handler.setLevel(Level.INFO);
+        handler.publish(new LogRecord(Level.FINE, "Below the level"));
+        handler.close();
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        List<String> severe = lines.stream().filter(line -> line.startsWith("Severe ")).toList();
+        assertEquals(1000, severe.size(), "A severe record should never be dropped.");
+        assertEquals("Severe 999", severe.get(severe.size() - 1));
+        assertFalse(lines.contains("Below the level"));
+    }
+
+    /**
+     * Writes only the message, one record per line.
+     */
+    private static class MessageFormatter extends Formatter {
+        @Override
+        public String format(LogRecord record) {
+            return record.getMessage() + System.lineSeparator();
+        }
+    }
+}
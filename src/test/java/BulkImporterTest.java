@@ -0,0 +1,104 @@
+import com.example.BulkImporter;
+import com.example.DAO;
+import com.example.InMemoryQuestionStore;
+import com.example.SchemaMigrator;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkImporterTest {
+    @TempDir
+    Path tempDir;
+
+    private Connection connection;
+    private DAO dao;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bulkImporterTestDatabank;DB_CLOSE_DELAY=-1");
+        SchemaMigrator.migrate(connection);
+        dao = new DAO(connection);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void test_importFile_skipsDuplicatesInTheFileAndTheDatabank() throws Exception {
+        // The initial schema already stores "What is 2 + 2?", see V1__initial_schema.sql
+        dao.addQuestion(new Question("Who wrote Faust?", List.of(new Answer("Goethe"))));
+        Path file = write(
+                "What is 3 + 3? \"6\"",
+                "Who wrote Faust? \"Schiller\"",
+                "",
+                "What is the capital of Italy? \"Rome\" \"Milan\"",
+                "What is 3 + 3? \"7\"",
+                "Not a command",
+                "What is the meaning of life? \"42\"",
+                "What is 2 + 2? \"22\"");
+
+        // Chunks of two lines, so the duplicates are spread over several chunks and parser threads
+        BulkImporter.ImportResult result = new BulkImporter(dao, 2, 2).importFile(file);
+
+        assertEquals(3, result.getImported());
+        assertEquals(3, result.getDuplicates());
+        assertEquals(1, result.getInvalid());
+        assertEquals(0, result.getFailed());
+        assertTrue(result.getPeakHeapBytes() > 0 && result.getPeakHeapBytes() <= Runtime.getRuntime().maxMemory(),
+                "The peak should be a sample of the used heap.");
+        assertEquals(List.of("Goethe"), answerTexts(dao.getAnswersForQuestionText("Who wrote Faust?")),
+                "A stored question should be kept.");
+        assertEquals(List.of("6"), answerTexts(dao.getAnswersForQuestionText("What is 3 + 3?")),
+                "The first line of a question should win.");
+        assertEquals(List.of("Rome", "Milan"), answerTexts(dao.getAnswersForQuestionText("What is the capital of Italy?")));
+    }
+
+    @Test
+    public void test_importFile_countsQuestionsAddedMeanwhileAsDuplicates() throws Exception {
+        // Hides the stored questions from the importer, like a question added after it loaded the stored texts
+        InMemoryQuestionStore store = new InMemoryQuestionStore() {
+            @Override
+            public void forEachQuestionText(Consumer<String> consumer) {
+            }
+        };
+        store.addQuestion(new Question("Who wrote Faust?", List.of(new Answer("Goethe"))));
+        Path file = write("What is 2 + 2? \"4\"", "Who wrote Faust? \"Schiller\"", "What is 3 + 3? \"6\"");
+
+        BulkImporter.ImportResult result = new BulkImporter(store, 10, 1).importFile(file);
+
+        assertEquals(2, result.getImported(), "The other questions of the chunk should still be added.");
+        assertEquals(1, result.getDuplicates());
+        assertEquals(List.of("Goethe"), answerTexts(store.getAnswersForQuestionText("Who wrote Faust?")));
+        assertEquals(List.of("6"), answerTexts(store.getAnswersForQuestionText("What is 3 + 3?")));
+    }
+
+    private Path write(String... lines) throws IOException {
+        return Files.write(tempDir.resolve("questions.txt"), List.of(lines), StandardCharsets.UTF_8);
+    }
+
+    private static List<String> answerTexts(List<Answer> answers) {
+        return answers.stream().map(Answer::getAnswerText).toList();
+    }
+}
@@ -0,0 +1,58 @@
+import com.example.CommandLineOptions;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandLineOptionsTest {
+
+    @Test
+    public void test_parse_acceptsOptionsInAnyOrder() {
+        CommandLineOptions options = CommandLineOptions.parse(
+                "--server", "8080", "--fuzzy", "--metrics", "metrics.json", "--shards", "4", "--write-behind");
+
+        assertEquals(CommandLineOptions.Mode.SERVER, options.getMode());
+        assertEquals(8080, options.getPort());
+        assertTrue(options.isFuzzy());
+        assertTrue(options.isWriteBehind());
+        assertEquals(Path.of("metrics.json"), options.getMetrics());
+        assertEquals(4, options.getShards());
+        assertEquals(options.getMetrics(), CommandLineOptions.parse("--fuzzy", "--metrics", "metrics.json").getMetrics(),
+                "The metrics should not be ignored after --fuzzy.");
+    }
+
+    @Test
+    public void test_parse_defaultsToTheConsole() {
+        CommandLineOptions options = CommandLineOptions.parse();
+
+        assertEquals(CommandLineOptions.Mode.INTERACTIVE, options.getMode());
+        assertEquals(0, options.getShards());
+        assertNull(options.getSnapshot());
+        assertEquals(CommandLineOptions.Mode.SCRIPT, CommandLineOptions.parse("--script", "--fuzzy").getMode());
+        assertNull(CommandLineOptions.parse("--script", "--fuzzy").getFile(), "Without a file stdin is read.");
+        assertEquals(Path.of("commands.txt"), CommandLineOptions.parse("--fuzzy", "--script", "commands.txt").getFile());
+    }
+
+    @Test
+    public void test_parse_rejectsUnknownAndConflictingOptions() {
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--fuzy"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--fuzzy", "--fuzzy"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--server", "8080", "--script"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--snapshot", "qa.snap", "--shards", "2"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--journal", "j", "--snapshot", "qa.snap"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--import", "qa.txt", "--fuzzy"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--metrics"), "A value is required.");
+    }
+
+    @Test
+    public void test_parse_rejectsInvalidNumbers() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CommandLineOptions.parse("--shards", "four"));
+        assertTrue(e.getMessage().contains("--shards"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--shards", "0"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--server", "http"));
+        assertThrows(IllegalArgumentException.class, () -> CommandLineOptions.parse("--server", "70000"));
+    }
+}
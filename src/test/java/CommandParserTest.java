@@ -0,0 +1,155 @@
+import com.example.CommandParser;
+import com.example.InvalidCommandException;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import com.example.dto.ValidationError;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandParserTest {
+
+    @Test
+    public void test_parseAddCommand_questionWithSeveralQuestionMarks() {
+        Question question = CommandParser.parseAddCommand("Is it A? Or B? \"A\" \"B\"");
+
+        assertEquals("Is it A? Or B?", question.getQuestionText());
+        assertEquals(List.of("A", "B"), texts(question));
+    }
+
+    @Test
+    public void test_parseAddCommand_questionMarksAndQuotesInsideAnswers() {
+        Question question = CommandParser.parseAddCommand("What does \"hi\" mean? \"why?\" \"a \\\"greeting\\\"\" \"C:\\\\\"");
+
+        assertEquals("What does \"hi\" mean?", question.getQuestionText());
+        assertEquals(List.of("why?", "a \"greeting\"", "C:\\"), texts(question));
+    }
+
+    @Test
+    public void test_parseAddCommand_backslashAtTheEndOfTheLastAnswer() {
+        // Valid before the escapes were introduced, the quote is not followed by another one
+        assertEquals(List.of("C:\\"), texts(CommandParser.parseAddCommand("Path? \"C:\\\"")));
+        assertEquals(List.of("C:\\", "D:\\"), texts(CommandParser.parseAddCommand("Paths? \"C:\\\\\" \"D:\\\"")));
+        // Followed by further answers the backslash escapes the quote, it has to be written as \\ instead
+        assertError(ValidationError.NOT_QUOTED, "Paths? \"C:\\\" \"D:\"");
+    }
+
+    @Test
+    public void test_parseAddCommand_errors() {
+        assertError(ValidationError.INVALID_COMMAND, "What is the capital of England");
+        assertError(ValidationError.MISSING_ANSWER, "What is the capital of England?  ");
+        assertError(ValidationError.NOT_QUOTED, "What is the capital of England? test1\" \"test2\"");
+        assertError(ValidationError.NOT_QUOTED, "What is the capital of England? \"test1");
+        assertError(ValidationError.NOT_QUOTED, "What is the capital of England? \"test1\" test2");
+    }
+
+    @Test
+    public void test_parseAddCommand_matchesRegexParserOnRandomInput() {
+        // Without backslashes and with a single question mark, the old regex based parser defines the expected result
+        Random random = new Random(42);
+        char[] alphabet = {'a', 'b', ' ', ' ', '"', '"', '?'};
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder command = new StringBuilder("Q");
+            int length = random.nextInt(30);
+            for (int j = 0; j < length; j++) {
+                command.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String input = command.toString().trim();
+            if (input.chars().filter(c -> c == '?').count() > 1) {
+                continue;
+            }
+
+            String expected = describe(() -> regexParse(input));
+            String actual = describe(() -> CommandParser.parseAddCommand(input));
+            assertEquals(expected, actual, "Parsers disagree on: " + input);
+        }
+    }
+
+    @Test
+    public void test_parseAddCommand_neverFailsUnexpectedlyOnRandomInput() {
+        Random random = new Random(7);
+        char[] alphabet = {'a', ' ', '\t', '"', '?', '\\'};
+        for (int i = 0; i < 20_000; i++) {
+            char[] input = new char[random.nextInt(60)];
+            for (int j = 0; j < input.length; j++) {
+                input[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String command = new String(input);
+            try {
+                Question question = CommandParser.parseAddCommand(command);
+                assertTrue(question.getQuestionText().endsWith("?"), "Question must end with '?': " + command);
+                assertFalse(question.getAnswers().isEmpty(), "Question must have answers: " + command);
+            } catch (InvalidCommandException e) {
+                assertNotNull(e.getError());
+            }
+        }
+    }
+
+    @Test
+    public void test_parseAddCommand_linearOnAdversarialInput() {
+        // Inputs that make backtracking regular expressions slow
+        String manyAnswersUnterminated = "Q? " + "\"a\" ".repeat(100_000) + "\"a";
+        String manyQuestionMarks = "? a".repeat(100_000);
+        String manyQuotes = "Q? " + "\"".repeat(200_001);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            assertError(ValidationError.NOT_QUOTED, manyAnswersUnterminated);
+            assertError(ValidationError.NOT_QUOTED, manyQuestionMarks);
+            assertError(ValidationError.NOT_QUOTED, manyQuotes);
+        });
+    }
+
+    private static void assertError(ValidationError expected, String command) {
+        InvalidCommandException e = assertThrows(InvalidCommandException.class, () -> CommandParser.parseAddCommand(command));
+        assertEquals(expected, e.getError(), "Unexpected error for: " + command);
+    }
+
+    private static List<String> texts(Question question) {
+        List<String> texts = new ArrayList<>();
+        for (Answer answer : question.getAnswers()) {
+            texts.add(answer.getAnswerText());
+        }
+        return texts;
+    }
+
+    private static String describe(java.util.function.Supplier<Question> parse) {
+        try {
+            Question question = parse.get();
+            return question.getQuestionText() + " " + texts(question);
+        } catch (InvalidCommandException e) {
+            return e.getError().name();
+        }
+    }
+
+    /**
+     * The regular expression based parser that was replaced by {@link CommandParser}.
+     */
+    private static Question regexParse(String command) {
+        if (!command.contains("?")) {
+            throw new InvalidCommandException(ValidationError.INVALID_COMMAND);
+        }
+        List<Answer> answers = new ArrayList<>();
+        String[] cmdParts = command.split("\\?");
+        String question = cmdParts[0].trim() + "?";
+        if (cmdParts.length <= 1) {
+            throw new InvalidCommandException(ValidationError.MISSING_ANSWER);
+        }
+        String partAfterQuestionMark = cmdParts[1].trim();
+        if (!Pattern.compile("(\"[^\"]*\"\\s*)+").matcher(partAfterQuestionMark).matches()) {
+            throw new InvalidCommandException(ValidationError.NOT_QUOTED);
+        }
+        Matcher matcher = Pattern.compile("\"([^\"]*)\"").matcher(partAfterQuestionMark);
+        while (matcher.find()) {
+            answers.add(new Answer(matcher.group(1)));
+        }
+        return new Question(question, answers);
+    }
+}
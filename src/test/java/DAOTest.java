@@ -0,0 +1,357 @@
+import com.example.AnswerCache;
+import com.example.ConnectionPool;
+import com.example.DAO;
+import com.example.SchemaMigrator;
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DAOTest {
+    private Connection connection;
+    private DAO dao;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        // Set up in-memory H2 database with the migrated schema
+        connection = DriverManager.getConnection("jdbc:h2:mem:daoTestDatabank;DB_CLOSE_DELAY=-1");
+        SchemaMigrator.migrate(connection);
+        dao = new DAO(connection);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        // Clean up database state
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS question_answers");
+            stmt.execute("DROP TABLE IF EXISTS answers");
+            stmt.execute("DROP TABLE IF EXISTS questions");
+            stmt.execute("DROP TABLE IF EXISTS schema_version");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void test_addQuestion_linksAllAnswers() throws SQLException {
+        Question question = new Question("Which colors are primary?",
+                List.of(new Answer("Red"), new Answer("Yellow"), new Answer("Blue")));
+
+        assertTrue(dao.addQuestion(question));
+
+        List<Answer> answers = dao.getAnswersForQuestionText("Which colors are primary?");
+        assertEquals(3, answers.size());
+        assertTrue(connection.getAutoCommit(), "The auto-commit mode should be restored after the insert.");
+    }
+
+    @Test
+    public void test_addQuestion_sharesStoredAnswers() throws SQLException {
+        // "Paris" is stored by the seed data, "Lyon" is given twice
+        Question question = new Question("Which cities are in France?",
+                List.of(new Answer("Lyon"), new Answer("Paris"), new Answer("Lyon")));
+
+        assertTrue(dao.addQuestion(question));
+
+        assertEquals(5, countRows("answers"), "Only the new answer text should be stored.");
+        List<Answer> answers = dao.getAnswersForQuestionText("Which cities are in France?");
+        assertEquals(List.of("Lyon", "Paris"), answers.stream().map(Answer::getAnswerText).toList(),
+                "The answers should be linked once each, in the given order.");
+        assertEquals(2, dao.getAnswersForQuestionText("What is the capital of France?").size());
+    }
+
+    @Test
+    public void test_getAnswersAfter_readsAllAnswersInPages() throws SQLException {
+        List<Answer> added = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            added.add(new Answer("Answer " + i));
+        }
+        assertTrue(dao.addQuestion(new Question("Which answers are there?", added)));
+
+        List<Answer> paged = new ArrayList<>();
+        int after = -1;
+        List<Answer> page;
+        while (!(page = dao.getAnswersAfter("Which answers are there?", after, 700)).isEmpty()) {
+            assertTrue(page.size() <= 700);
+            paged.addAll(page);
+            after += page.size();
+        }
+        assertEquals(added.stream().map(Answer::getAnswerText).toList(),
+                paged.stream().map(Answer::getAnswerText).toList(), "The pages should hold every answer once, in order.");
+        assertEquals("Answer 2000", dao.getAnswersAfter("Which answers are there?", 1999, 1).get(0).getAnswerText());
+        assertTrue(dao.getAnswersAfter("Who is there?", -1, 10).isEmpty());
+
+        List<Answer> streamed = new ArrayList<>();
+        assertTrue(dao.forEachAnswer("Which answers are there?", streamed::add));
+        assertEquals(2500, streamed.size());
+        assertEquals("Answer 2499", streamed.get(2499).getAnswerText());
+    }
+
+    @Test
+    public void test_getAnswersForQuestionTexts_resolvesAllInOneQuery() throws SQLException {
+        AnswerCache cache = new AnswerCache();
+        DAO cachedDao = new DAO(connection, cache);
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 1_500; i++) {
+            String text = "Is " + i + " even?";
+            cachedDao.addQuestion(new Question(text, List.of(new Answer(i % 2 == 0 ? "Yes" : "No"), new Answer("Maybe"))));
+            texts.add(text);
+        }
+        texts.add("Is this stored?");
+        texts.add("Is 7 even?");
+        // Answered from the cache, the other questions are loaded in two chunks
+        cachedDao.getAnswersForQuestionText("Is 3 even?");
+
+        Map<String, List<Answer>> answers = cachedDao.getAnswersForQuestionTexts(texts);
+
+        assertEquals(1_501, answers.size(), "Every distinct question should be answered once.");
+        assertEquals(texts.subList(0, 1_501), new ArrayList<>(answers.keySet()), "The questions should keep their order.");
+        assertEquals(List.of("No", "Maybe"), answers.get("Is 7 even?").stream().map(Answer::getAnswerText).toList());
+        assertEquals(List.of("Yes", "Maybe"), answers.get("Is 1498 even?").stream().map(Answer::getAnswerText).toList());
+        assertTrue(answers.get("Is this stored?").isEmpty());
+        assertEquals(1, cache.getHits());
+        assertEquals(1_501, cache.size(), "The loaded answers should be cached.");
+    }
+
+    @Test
+    public void test_addQuestion_rollsBackOnFailure() throws SQLException {
+        // The second answer exceeds the column length, so the whole question has to be rolled back
+        Question question = new Question("Is this stored?",
+                List.of(new Answer("Yes"), new Answer("x".repeat(256))));
+
+        assertFalse(dao.addQuestion(question));
+
+        assertFalse(dao.isQuestionStored("Is this stored?"));
+        assertEquals(4, countRows("answers"), "No answer of the failed question should be stored.");
+        assertEquals(4, countRows("question_answers"), "No link of the failed question should be stored.");
+    }
+
+    @Test
+    public void test_getAnswersForQuestionText_cachesNegativeResultUntilAdded() throws SQLException {
+        AnswerCache cache = dao.getAnswerCache();
+
+        assertTrue(dao.getAnswersForQuestionText("Is this cached?").isEmpty());
+        assertTrue(dao.getAnswersForQuestionText("Is this cached?").isEmpty());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        dao.addQuestion(new Question("Is this cached?", List.of(new Answer("Yes"))));
+
+        List<Answer> answers = dao.getAnswersForQuestionText("Is this cached?");
+        assertEquals(1, answers.size(), "Adding the question should invalidate the cached empty result.");
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void test_answerCache_evictsLeastRecentlyUsed() {
+        AnswerCache cache = new AnswerCache(2, Duration.ofMinutes(1));
+        cache.put("a?", List.of(), cache.generation());
+        cache.put("b?", List.of(), cache.generation());
+        cache.get("a?");
+        cache.put("c?", List.of(), cache.generation());
+
+        assertNotNull(cache.get("a?"));
+        assertNull(cache.get("b?"), "The least recently used entry should have been evicted.");
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void test_answerCache_rejectsOnlyLoadsOfInvalidatedQuestions() {
+        AnswerCache cache = new AnswerCache(2, Duration.ofMinutes(1));
+        long generation = cache.generation();
+        cache.invalidate("a?");
+        cache.put("a?", List.of(), generation);
+        cache.put("b?", List.of(), generation);
+
+        assertNull(cache.get("a?"), "A value loaded before its question was invalidated should not be stored.");
+        assertNotNull(cache.get("b?"), "An add of another question should not keep a load from being stored.");
+
+        cache.invalidate("c?");
+        cache.invalidate("d?");
+        cache.put("e?", List.of(), generation);
+        assertNull(cache.get("e?"), "A load older than a forgotten invalidation should not be stored.");
+
+        List<Answer> answers = new ArrayList<>(List.of(new Answer("Yes")));
+        assertThrows(UnsupportedOperationException.class, () -> cache.put("f?", answers, generation).add(new Answer("No")),
+                "A loaded list should be unmodifiable like a cached one.");
+    }
+
+    @Test
+    public void test_pooledDAO_concurrentAddsAndAsks() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:pooledDatabank;DB_CLOSE_DELAY=-1", "sa", "", 4, Duration.ofSeconds(10))) {
+            try (ConnectionPool.Lease lease = pool.acquire()) {
+                SchemaMigrator.migrate(lease.connection());
+            }
+            DAO pooledDao = new DAO(pool, new AnswerCache());
+
+            int threads = 8;
+            int questionsPerThread = 25;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    boolean allAdded = true;
+                    for (int i = 0; i < questionsPerThread; i++) {
+                        String text = "Question " + thread + "-" + i + "?";
+                        allAdded &= pooledDao.addQuestion(new Question(text, List.of(new Answer("A"), new Answer("B"))));
+                        allAdded &= pooledDao.getAnswersForQuestionText(text).size() == 2;
+                    }
+                    return allAdded;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get(), "Every concurrent add should be stored and readable.");
+            }
+            executor.shutdown();
+
+            assertTrue(pool.getIdleCount() <= 4, "The pool should never open more connections than its size.");
+            assertEquals(0, pool.getActiveCount(), "All connections should have been given back.");
+
+            try (ConnectionPool.Lease lease = pool.acquire();
+                 Statement stmt = lease.connection().createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    @Test
+    public void test_addQuestionIfAbsent_detectsStoredQuestionOnInsert() throws SQLException {
+        Question question = new Question("What is the capital of France?", List.of(new Answer("Lyon")));
+
+        assertEquals(AddResult.Status.ALREADY_EXISTS, dao.addQuestionIfAbsent(question));
+        assertFalse(dao.addQuestion(question));
+        assertEquals(4, countRows("answers"), "Nothing of the rejected question should be stored.");
+
+        // A question over the column length fails for another reason than being stored
+        Question tooLong = new Question("a".repeat(300) + "?", List.of(new Answer("Yes")));
+        assertEquals(AddResult.Status.FAILED, dao.addQuestionIfAbsent(tooLong));
+    }
+
+    @Test
+    public void test_addQuestionsIfAbsent_commitsEachQuestionOnItsOwn() throws SQLException {
+        List<Question> questions = List.of(
+                new Question("Which planet is red?", List.of(new Answer("Mars"))),
+                new Question("What is the capital of France?", List.of(new Answer("Lyon"))),
+                new Question("Is this too long?", List.of(new Answer("x".repeat(256)))),
+                new Question("Which planet is red?", List.of(new Answer("Mars"))),
+                new Question("Which planet is largest?", List.of(new Answer("Jupiter"), new Answer("Mars"))));
+
+        assertEquals(List.of(AddResult.Status.ADDED, AddResult.Status.ALREADY_EXISTS, AddResult.Status.FAILED,
+                AddResult.Status.ALREADY_EXISTS, AddResult.Status.ADDED), dao.addQuestionsIfAbsent(questions));
+
+        assertTrue(connection.getAutoCommit(), "The auto-commit mode should be restored after the group.");
+        assertEquals(List.of("Jupiter", "Mars"), dao.getAnswersForQuestionText("Which planet is largest?").stream()
+                .map(Answer::getAnswerText).toList());
+        assertFalse(dao.isQuestionStored("Is this too long?"));
+        assertEquals(6, countRows("answers"), "Only the answers of the added questions should be stored, once each.");
+        assertEquals(7, countRows("question_answers"));
+
+        // Without a failing question the group is inserted as batches, skipping the stored questions
+        assertEquals(List.of(AddResult.Status.ALREADY_EXISTS, AddResult.Status.ADDED, AddResult.Status.ALREADY_EXISTS),
+                dao.addQuestionsIfAbsent(List.of(
+                        new Question("Which planet is red?", List.of(new Answer("Venus"))),
+                        new Question("Which planet has rings?", List.of(new Answer("Saturn"), new Answer("Jupiter"))),
+                        new Question("Which planet has rings?", List.of(new Answer("Uranus"))))));
+        assertEquals(List.of("Mars"), dao.getAnswersForQuestionText("Which planet is red?").stream()
+                .map(Answer::getAnswerText).toList());
+        assertEquals(List.of("Saturn", "Jupiter"), dao.getAnswersForQuestionText("Which planet has rings?").stream()
+                .map(Answer::getAnswerText).toList());
+        assertEquals(7, countRows("answers"));
+    }
+
+    @Test
+    public void test_pooledDAO_concurrentAddsOfSameQuestion() throws Exception {
+        try (ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:sameQuestionDatabank;DB_CLOSE_DELAY=-1", "sa", "", 8, Duration.ofSeconds(10))) {
+            try (ConnectionPool.Lease lease = pool.acquire()) {
+                SchemaMigrator.migrate(lease.connection());
+            }
+            DAO pooledDao = new DAO(pool, new AnswerCache());
+
+            int threads = 8;
+            int rounds = 20;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            for (int round = 0; round < rounds; round++) {
+                String text = "Who adds question " + round + "?";
+                List<Future<AddResult.Status>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    String answer = "Thread " + t;
+                    results.add(executor.submit(() -> pooledDao.addQuestionIfAbsent(
+                            new Question(text, List.of(new Answer(answer), new Answer("Shared"))))));
+                }
+                int added = 0;
+                for (Future<AddResult.Status> result : results) {
+                    AddResult.Status status = result.get();
+                    assertNotEquals(AddResult.Status.FAILED, status);
+                    added += status == AddResult.Status.ADDED ? 1 : 0;
+                }
+                assertEquals(1, added, "Exactly one of the concurrent adds should store the question.");
+                assertEquals(2, pooledDao.getAnswersForQuestionText(text).size());
+            }
+            executor.shutdown();
+
+            try (ConnectionPool.Lease lease = pool.acquire();
+                 Statement stmt = lease.connection().createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    @Test
+    public void test_pooledDAO_reusesPreparedStatements() throws SQLException {
+        // A cache of one statement per connection evicts on every add, which prepares four statements
+        for (int cacheSize : new int[]{ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE, 1}) {
+            try (ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:statementCacheDatabank;DB_CLOSE_DELAY=-1",
+                    "sa", "", 1, Duration.ofSeconds(10), cacheSize)) {
+                try (ConnectionPool.Lease lease = pool.acquire()) {
+                    SchemaMigrator.migrate(lease.connection());
+                }
+                DAO pooledDao = new DAO(pool, new AnswerCache(1, Duration.ZERO));
+
+                for (int i = 0; i < 10; i++) {
+                    String text = "Is " + i + " cached?";
+                    assertTrue(pooledDao.addQuestion(new Question(text, List.of(new Answer("Yes " + i), new Answer("No")))));
+                    assertEquals(2, pooledDao.getAnswersForQuestionText(text).size());
+                    assertTrue(pooledDao.isQuestionStored(text));
+                }
+
+                if (cacheSize == 1) {
+                    assertEquals(0, pool.getStatementCacheHits(), "Every statement should have been evicted before its reuse.");
+                    assertEquals(10 * 6, pool.getStatementCacheMisses());
+                } else {
+                    assertEquals(6, pool.getStatementCacheMisses(), "Every statement should be prepared once.");
+                    assertEquals(10 * 6 - 6, pool.getStatementCacheHits());
+                }
+
+                try (ConnectionPool.Lease lease = pool.acquire();
+                     Statement stmt = lease.connection().createStatement()) {
+                    stmt.execute("DROP ALL OBJECTS");
+                }
+            }
+        }
+    }
+
+    private int countRows(String table) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
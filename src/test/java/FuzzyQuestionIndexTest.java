@@ -0,0 +1,112 @@
+import com.example.FuzzyQuestionIndex;
+import com.example.dto.QuestionMatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FuzzyQuestionIndexTest {
+
+    @Test
+    public void test_search_ignoresCaseSpacesAndPunctuation() {
+        FuzzyQuestionIndex index = new FuzzyQuestionIndex();
+        index.add("What is 2 + 2?");
+        index.add("What is the capital of France?");
+
+        List<QuestionMatch> matches = index.search("what is 2+2?", 1, FuzzyQuestionIndex.DEFAULT_THRESHOLD);
+
+        assertEquals(1, matches.size());
+        assertEquals("What is 2 + 2?", matches.get(0).getQuestionText());
+        assertEquals(1.0, matches.get(0).getSimilarity());
+    }
+
+    @Test
+    public void test_search_returnsBestMatchesAboveThreshold() {
+        FuzzyQuestionIndex index = new FuzzyQuestionIndex();
+        index.add("What is the capital of France?");
+        index.add("What is the capital of Spain?");
+        index.add("How tall is the Eiffel tower?");
+
+        List<QuestionMatch> matches = index.search("What is the capitol of France", 3, 0.3);
+
+        assertEquals(2, matches.size(), "The unrelated question should be below the threshold.");
+        assertEquals("What is the capital of France?", matches.get(0).getQuestionText());
+        assertEquals("What is the capital of Spain?", matches.get(1).getQuestionText());
+        assertTrue(matches.get(0).getSimilarity() > matches.get(1).getSimilarity());
+        assertTrue(index.search("Who painted the Mona Lisa?", 3, 0.3).isEmpty());
+    }
+
+    @Test
+    public void test_search_findsQuestionsAddedLater() {
+        FuzzyQuestionIndex index = new FuzzyQuestionIndex();
+        assertTrue(index.search("Is this indexed?", 1, 0.5).isEmpty());
+
+        index.add("Is this indexed?");
+
+        assertEquals("Is this indexed?", index.search("is this indexed", 1, 0.5).get(0).getQuestionText());
+    }
+
+    @Test
+    public void test_search_matchesExhaustiveComparison() {
+        // The pruned search must return the same similarities as comparing the text with every question
+        Random random = new Random(3);
+        String[] words = {"what", "is", "the", "capital", "of", "france", "spain", "how", "tall", "are", "you"};
+        FuzzyQuestionIndex index = new FuzzyQuestionIndex();
+        String[] questions = new String[1_000];
+        for (int i = 0; i < questions.length; i++) {
+            questions[i] = randomText(random, words);
+            index.add(questions[i]);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            String text = randomText(random, words);
+            List<QuestionMatch> matches = index.search(text, 3, 0.4);
+
+            double[] expected = new double[questions.length];
+            for (int j = 0; j < questions.length; j++) {
+                expected[j] = -similarity(text, questions[j]);
+            }
+            Arrays.sort(expected);
+            for (int rank = 0; rank < 3; rank++) {
+                double best = -expected[rank];
+                if (best < 0.4) {
+                    assertEquals(rank, matches.size(), "Too many matches for: " + text);
+                    break;
+                }
+                assertEquals(best, matches.get(rank).getSimilarity(), 1e-9, "Wrong match for: " + text);
+            }
+        }
+    }
+
+    private static String randomText(Random random, String[] words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0, count = 2 + random.nextInt(4); i < count; i++) {
+            text.append(words[random.nextInt(words.length)]).append(' ');
+        }
+        return text.toString().trim() + "?";
+    }
+
+    private static double similarity(String a, String b) {
+        Set<String> trigramsA = trigrams(a);
+        Set<String> trigramsB = trigrams(b);
+        Set<String> union = new HashSet<>(trigramsA);
+        union.addAll(trigramsB);
+        trigramsA.retainAll(trigramsB);
+        return (double) trigramsA.size() / union.size();
+    }
+
+    private static Set<String> trigrams(String text) {
+        String normalized = " " + text.toLowerCase().replaceAll("[^a-z0-9]", "") + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            trigrams.add(normalized.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,91 @@
+import com.example.AppService;
+import com.example.DAO;
+import com.example.FuzzyQuestionIndex;
+import com.example.InMemoryQuestionStore;
+import com.example.SchemaMigrator;
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryQuestionStoreTest {
+
+    @Test
+    public void test_addQuestion_keepsOrderAndSharesAnswers() {
+        InMemoryQuestionStore store = new InMemoryQuestionStore();
+
+        assertTrue(store.addQuestion(question("Which cities are in France?", "Lyon", "Paris", "Lyon")));
+        assertTrue(store.addQuestion(question("Which city is the capital of France?", "Paris")));
+        assertFalse(store.addQuestion(question("Which cities are in France?", "Nice")));
+
+        assertEquals(List.of("Lyon", "Paris"), answerTexts(store.getAnswersForQuestionText("Which cities are in France?")));
+        assertEquals(List.of("Paris"), answerTexts(store.getAnswersForQuestionText("Which city is the capital of France?")));
+        assertTrue(store.getAnswersForQuestionText("Which cities are in Spain?").isEmpty());
+        assertEquals(2, store.size());
+        assertEquals(2, store.answerCount(), "Every answer text should be stored once.");
+    }
+
+    @Test
+    public void test_addQuestions_addsAllOrNone() {
+        InMemoryQuestionStore store = new InMemoryQuestionStore();
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            questions.add(question("Is " + i + " even? ü", i % 2 == 0 ? "Yes" : "No"));
+        }
+
+        assertTrue(store.addQuestions(questions));
+        assertFalse(store.addQuestions(List.of(question("Is this new?", "Yes"), question("Is 3 even? ü", "No"))));
+        assertFalse(store.addQuestions(List.of(question("Twice?", "Yes"), question("Twice?", "No"))));
+
+        assertEquals(5_000, store.size());
+        assertFalse(store.isQuestionStored("Is this new?"));
+        assertTrue(store.isQuestionStored("Is 4999 even? ü"));
+        assertEquals(List.of("No"), answerTexts(store.getAnswersForQuestionText("Is 4999 even? ü")));
+    }
+
+    @Test
+    public void test_appService_runsOnCopyOfDatabank() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:inMemoryStoreTestDatabank;DB_CLOSE_DELAY=-1")) {
+            SchemaMigrator.migrate(connection);
+            InMemoryQuestionStore store = InMemoryQuestionStore.copyOf(new DAO(connection));
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+
+            AppService appService = new AppService(store, FuzzyQuestionIndex.build(store));
+            assertEquals(List.of("Paris", "London"),
+                    answerTexts(appService.handleAskQuestion("What is the capital of France?").getAnswers()));
+            assertEquals(AddResult.Status.ADDED, appService.handleAddQuestion("Who wrote Faust? \"Goethe\"").getStatus());
+            assertEquals(AddResult.Status.ALREADY_EXISTS,
+                    appService.handleAddQuestion("Who wrote Faust? \"Schiller\"").getStatus());
+            assertEquals("Who wrote Faust?", appService.handleAskQuestion("who wrote faust").getMatchedQuestionText());
+            assertEquals(1, appService.handleSearch("search goethe").getTotalHits());
+        }
+    }
+
+    private static Question question(String text, String... answers) {
+        List<Answer> answerList = new ArrayList<>();
+        for (String answer : answers) {
+            answerList.add(new Answer(answer));
+        }
+        return new Question(text, answerList);
+    }
+
+    private static List<String> answerTexts(List<Answer> answers) {
+        List<String> texts = new ArrayList<>();
+        for (Answer answer : answers) {
+            texts.add(answer.getAnswerText());
+        }
+        return texts;
+    }
+}
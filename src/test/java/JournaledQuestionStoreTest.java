@@ -0,0 +1,141 @@
+import com.example.InMemoryQuestionStore;
+import com.example.JournaledQuestionStore;
+import com.example.ShardedQuestionStore;
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournaledQuestionStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void test_open_replaysTheJournalOfAStoreThatWasNotClosed() throws Exception {
+        JournaledQuestionStore crashed = JournaledQuestionStore.open(new InMemoryQuestionStore(), directory, Duration.ZERO);
+        assertEquals(AddResult.Status.ADDED, crashed.addQuestionIfAbsent(question("Who wrote Faust?", "Goethe")));
+        assertEquals(List.of(AddResult.Status.ADDED, AddResult.Status.ALREADY_EXISTS), crashed.addQuestionsIfAbsent(
+                List.of(question("Who wrote Hamlet?", "Shakespeare"), question("Who wrote Faust?", "Schiller"))));
+
+        // Not closed, like a process that was killed
+        InMemoryQuestionStore recovered = new InMemoryQuestionStore();
+        JournaledQuestionStore reopened = JournaledQuestionStore.open(recovered, directory, Duration.ZERO);
+
+        assertEquals(2, recovered.size());
+        assertEquals("Goethe", reopened.getAnswersForQuestionText("Who wrote Faust?").get(0).getAnswerText());
+        assertTrue(reopened.isQuestionStored("Who wrote Hamlet?"));
+        reopened.close();
+    }
+
+    @Test
+    public void test_checkpoint_replacesTheJournalsWrittenBeforeIt() throws Exception {
+        JournaledQuestionStore store = JournaledQuestionStore.open(new InMemoryQuestionStore(), directory, Duration.ZERO);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(store.addQuestion(question("Question " + i + "?", "Answer " + i)));
+        }
+
+        assertEquals(100, store.checkpoint());
+        assertTrue(store.addQuestion(question("After the checkpoint?", "Yes")));
+
+        assertEquals(1, countJournals(), "Only the journal started by the checkpoint should be kept.");
+        InMemoryQuestionStore recovered = new InMemoryQuestionStore();
+        JournaledQuestionStore.open(recovered, directory, Duration.ZERO).close();
+        assertEquals(101, recovered.size());
+        assertTrue(recovered.isQuestionStored("After the checkpoint?"));
+        assertEquals("Answer 42", recovered.getAnswersForQuestionText("Question 42?").get(0).getAnswerText());
+        store.close();
+    }
+
+    @Test
+    public void test_open_ignoresARecordCutOffAtTheEndOfTheJournal() throws Exception {
+        JournaledQuestionStore crashed = JournaledQuestionStore.open(new InMemoryQuestionStore(), directory, Duration.ZERO);
+        assertTrue(crashed.addQuestion(question("Who wrote Faust?", "Goethe")));
+        Path journal;
+        try (Stream<Path> files = Files.list(directory)) {
+            journal = files.filter(file -> file.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+        }
+        // The length and checksum of a record whose bytes were never written
+        Files.write(journal, new byte[]{0, 0, 0, 40, 1, 2, 3, 4, 0, 17}, StandardOpenOption.APPEND);
+
+        InMemoryQuestionStore recovered = new InMemoryQuestionStore();
+        JournaledQuestionStore reopened = JournaledQuestionStore.open(recovered, directory, Duration.ZERO);
+
+        assertEquals(1, recovered.size());
+        assertTrue(reopened.addQuestion(question("Who wrote Hamlet?", "Shakespeare")),
+                "The store should accept adds after recovering.");
+        reopened.close();
+    }
+
+    @Test
+    public void test_open_recoversAQuestionWithMoreAnswersThanFitInAShort() throws Exception {
+        List<Answer> answers = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            answers.add(new Answer("Answer " + i));
+        }
+        JournaledQuestionStore crashed = JournaledQuestionStore.open(new InMemoryQuestionStore(), directory, Duration.ZERO);
+        assertTrue(crashed.addQuestion(new Question("Which answers are there?", answers)));
+        assertTrue(crashed.addQuestion(question("Who wrote Faust?", "Goethe")));
+
+        // Once from the journal of a store that was not closed, once from the snapshot written by close
+        for (int reopen = 0; reopen < 2; reopen++) {
+            InMemoryQuestionStore recovered = new InMemoryQuestionStore();
+            JournaledQuestionStore reopened = JournaledQuestionStore.open(recovered, directory, Duration.ZERO);
+
+            List<Answer> recoveredAnswers = recovered.getAnswersForQuestionText("Which answers are there?");
+            assertEquals(70_000, recoveredAnswers.size());
+            assertEquals("Answer 69999", recoveredAnswers.get(69_999).getAnswerText());
+            assertTrue(recovered.isQuestionStored("Who wrote Faust?"), "The question after it should be intact.");
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void test_addQuestions_journalsTheShardsThatAddedTheirQuestions() throws Exception {
+        ShardedQuestionStore sharded = new ShardedQuestionStore(List.of(new InMemoryQuestionStore(), new InMemoryQuestionStore()));
+        JournaledQuestionStore crashed = JournaledQuestionStore.open(sharded, directory, Duration.ZERO);
+        assertTrue(crashed.addQuestion(question("Who wrote Faust?", "Goethe")));
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            questions.add(question("Question " + i + "?", "Answer " + i));
+        }
+        questions.add(question("Who wrote Faust?", "Schiller"));
+
+        List<AddResult.Status> statuses = crashed.addQuestionsInParts(questions);
+
+        assertFalse(crashed.addQuestions(List.of(question("Who wrote Faust?", "Schiller"))));
+        assertTrue(statuses.contains(AddResult.Status.ADDED), "The shard without Faust should add its questions.");
+        assertEquals(AddResult.Status.FAILED, statuses.get(20));
+        ShardedQuestionStore recovered = new ShardedQuestionStore(List.of(new InMemoryQuestionStore(), new InMemoryQuestionStore()));
+        JournaledQuestionStore reopened = JournaledQuestionStore.open(recovered, directory, Duration.ZERO);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(statuses.get(i) == AddResult.Status.ADDED, recovered.isQuestionStored("Question " + i + "?"),
+                    "Exactly the questions the shards added should be journaled.");
+        }
+        assertEquals("Goethe", recovered.getAnswersForQuestionText("Who wrote Faust?").get(0).getAnswerText());
+        reopened.close();
+        recovered.close();
+        sharded.close();
+    }
+
+    private long countJournals() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).count();
+        }
+    }
+
+    private static Question question(String questionText, String answer) {
+        return new Question(questionText, List.of(new Answer(answer)));
+    }
+}
@@ -0,0 +1,112 @@
+import com.example.AppService;
+import com.example.DAO;
+import com.example.LatencyHistogram;
+import com.example.Metrics;
+import com.example.SchemaMigrator;
+import com.example.dto.Answer;
+import com.example.dto.AnswerPage;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+    @Test
+    public void test_latencyHistogram_reportsPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        assertEquals(0, histogram.getValueAtPercentile(50));
+
+        // 1 to 10,000 microseconds, once each
+        for (int micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000L);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000.5, histogram.getMeanMicros(), 0.001);
+        assertEquals(10_000, histogram.getMaxMicros(), 0.001);
+        assertEquals(5_000, histogram.getP50Micros(), 5_000 * 0.032, "A percentile should be at most ~3% too high.");
+        assertTrue(histogram.getP50Micros() >= 5_000);
+        assertEquals(9_900, histogram.getP99Micros(), 9_900 * 0.032);
+        assertEquals(10_000, histogram.getValueAtPercentile(100) / 1_000.0, 0.001);
+        histogram.record(-5);
+        assertEquals(0, histogram.getValueAtPercentile(0));
+    }
+
+    @Test
+    public void test_metrics_publishesOverJmxAndDumps(@TempDir Path directory) throws Exception {
+        Metrics metrics = new Metrics(true);
+        metrics.histogram("test.jmxLatency").record(2_000_000);
+        metrics.gauge("test.jmxGauge", () -> 7);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(1L, server.getAttribute(new ObjectName("com.example:type=Latency,name=test.jmxLatency"), "Count"));
+        assertEquals(7L, server.getAttribute(new ObjectName("com.example:type=Gauge,name=test.jmxGauge"), "Value"));
+        assertTrue(metrics.toText().contains("test.jmxGauge 7\n"));
+
+        Path file = directory.resolve("metrics.json");
+        AutoCloseable dump = metrics.startDump(file, Duration.ofHours(1));
+        dump.close();
+        String json = Files.readString(file);
+        assertTrue(json.startsWith("{\"timestamp\":\""), json);
+        assertTrue(json.contains("\"test.jmxLatency\":{\"count\":1,\"meanMicros\":2000.0,"), json);
+        assertTrue(json.contains("\"gauges\":{\"test.jmxGauge\":7}"), json);
+    }
+
+    @Test
+    public void test_appService_recordsCommandsAndDatabaseCalls() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:metricsTestDatabank;DB_CLOSE_DELAY=-1")) {
+            SchemaMigrator.migrate(connection);
+            DAO dao = new DAO(connection);
+            Metrics metrics = new Metrics(false);
+            dao.registerMetrics(metrics);
+            AppService appService = new AppService(dao);
+            LatencyHistogram asks = Metrics.getDefault().histogram("command.ask_question");
+            LatencyHistogram lookups = Metrics.getDefault().histogram("dao.getAnswersForQuestionText");
+            LatencyHistogram adds = Metrics.getDefault().histogram("command.add_question");
+            long asksBefore = asks.getCount();
+            long lookupsBefore = lookups.getCount();
+            long addsBefore = adds.getCount();
+
+            appService.handleAskQuestion("What is 2 + 2?");
+            appService.handleAskQuestion("What is 2 + 2?");
+            appService.handleAddQuestion("Who wrote Faust? \"Goethe\"");
+
+            assertEquals(asksBefore + 2, asks.getCount());
+            assertEquals(lookupsBefore + 2, lookups.getCount());
+            assertEquals(addsBefore + 1, adds.getCount());
+            assertTrue(metrics.toText().contains("answerCache.hits 1\n"), metrics.toText());
+
+            LatencyHistogram answerScans = Metrics.getDefault().histogram("dao.forEachAnswer");
+            long answerScansBefore = answerScans.getCount();
+            long start = System.nanoTime();
+            AnswerPage page = appService.handleAskQuestionPage("What is 2 + 2?", -1, 1);
+            appService.handleAskQuestionPage(page.getMatchedQuestionText(), page.getNextAfter(), 1);
+            appService.recordAskQuestion(start);
+            appService.handleAddQuestions(List.of(new Question("Who wrote Hamlet?", List.of(new Answer("Shakespeare"))),
+                    new Question("Who wrote Ulysses?", List.of(new Answer("Joyce")))));
+            dao.forEachAnswer("What is 2 + 2?", answer -> { });
+
+            assertEquals(asksBefore + 3, asks.getCount(), "An ask read in two pages should be recorded once.");
+            assertEquals(addsBefore + 3, adds.getCount(), "Every add of a group should be recorded.");
+            assertEquals(answerScansBefore + 1, answerScans.getCount());
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+}
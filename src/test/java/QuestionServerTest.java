@@ -0,0 +1,149 @@
+import com.example.AppService;
+import com.example.InMemoryQuestionStore;
+import com.example.QuestionServer;
+import com.example.dto.AskResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuestionServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private QuestionServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        InMemoryQuestionStore store = new InMemoryQuestionStore();
+        store.addQuestion(new Question("What is 2 + 2?", List.of(new Answer("4"), new Answer("5"))));
+        server = new QuestionServer(new AppService(store), 0, 2);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+
+    @Test
+    public void test_ask_repliesWithTheAnswers() throws Exception {
+        HttpResponse<String> response = get("/ask?q=" + URLEncoder.encode("What is 2 + 2?", StandardCharsets.UTF_8));
+
+        assertEquals(200, response.statusCode());
+        assertEquals(" - 4\n - 5\n", response.body());
+        assertEquals(AskResult.DEFAULT_REPLY + "\n", get("/ask?q=Why%3F").body());
+        assertEquals(400, get("/ask").statusCode(), "The question is required.");
+        assertEquals(400, get("/ask?q=Why%3F&limit=0").statusCode());
+        assertEquals(405, send(HttpRequest.newBuilder(uri("/ask")).DELETE()).statusCode());
+        assertEquals(400, rawStatus("GET /ask?q=%zz HTTP/1.1\r\nHost: localhost\r\n\r\n"),
+                "A malformed escape should be rejected, not reset.");
+        assertEquals(400, rawStatus("GET /search?q=%zz HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+    }
+
+    @Test
+    public void test_ask_streamsManyAnswersAndPagesThem() throws Exception {
+        StringBuilder addCommand = new StringBuilder("Which answers are there?");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            addCommand.append(" \"Answer ").append(i).append('"');
+            expected.append(" - Answer ").append(i).append('\n');
+        }
+        assertEquals(201, post("/add", addCommand.toString()).statusCode());
+
+        HttpResponse<String> all = get("/ask?q=Which+answers+are+there%3F");
+        HttpResponse<String> page = get("/ask?q=Which+answers+are+there%3F&limit=2&after=1");
+
+        assertEquals(200, all.statusCode());
+        assertEquals(expected.toString(), all.body(), "Every answer should be sent once, in order.");
+        assertEquals(" - Answer 2\n - Answer 3\nNext page: after=3\n", page.body());
+    }
+
+    @Test
+    public void test_add_repliesWithTheOutcome() throws Exception {
+        assertEquals(201, post("/add", "Who wrote Faust? \"Goethe\"").statusCode());
+        assertEquals(409, post("/add", "Who wrote Faust? \"Schiller\"").statusCode());
+        assertEquals(400, post("/add", "Who wrote Faust?").statusCode(), "An add needs at least one answer.");
+        assertEquals(405, get("/add").statusCode());
+        // Rejected by its length before a byte of the body is read
+        assertEquals(413, rawStatus("POST /add HTTP/1.1\r\nHost: localhost\r\n"
+                + "Content-Length: " + (QuestionServer.MAX_BODY_BYTES + 1) + "\r\n\r\n"));
+
+        assertEquals(" - Goethe\n", get("/ask?q=Who+wrote+Faust%3F").body());
+    }
+
+    @Test
+    public void test_batchAskAndSearch_replyWithAllResults() throws Exception {
+        HttpResponse<String> batch = post("/ask", "What is 2 + 2?\nWhy?\n");
+
+        assertEquals(200, batch.statusCode());
+        assertEquals("What is 2 + 2?\n - 4\n - 5\nWhy?\n" + AskResult.DEFAULT_REPLY + "\n", batch.body());
+        assertEquals(400, post("/ask", "\n").statusCode());
+        assertEquals(200, get("/search?q=what").statusCode());
+        assertEquals(400, get("/search?q=what&page=0").statusCode());
+    }
+
+    @Test
+    public void test_failingStore_repliesWithInternalServerError() throws Exception {
+        InMemoryQuestionStore failingStore = new InMemoryQuestionStore() {
+            @Override
+            public List<Answer> getAnswersAfter(String questionText, int afterPosition, int limit) {
+                throw new IllegalStateException("The store failed.");
+            }
+        };
+        try (QuestionServer failingServer = new QuestionServer(new AppService(failingStore), 0, 1)) {
+            failingServer.start();
+            URI uri = URI.create("http://localhost:" + failingServer.getPort() + "/ask?q=Why%3F");
+
+            HttpResponse<String> response = send(HttpRequest.newBuilder(uri).GET());
+
+            assertEquals(500, response.statusCode(), "A failing store should be reported, not reset the connection.");
+        }
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).GET());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri(path)).POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Sends the head of a request over a plain socket, for requests the HTTP client does not send.
+     *
+     * @param requestHead The request line and headers, ending with an empty line.
+     * @return The status code of the response.
+     */
+    private int rawStatus(String requestHead) throws IOException {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.getOutputStream().write(requestHead.getBytes(StandardCharsets.US_ASCII));
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))
+                    .readLine();
+            assertNotNull(statusLine, "The server should reply instead of closing the connection.");
+            return Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+}
@@ -0,0 +1,114 @@
+import com.example.AppService;
+import com.example.DAO;
+import com.example.QuestionSnapshot;
+import com.example.SchemaMigrator;
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuestionSnapshotTest {
+    private Connection connection;
+    private DAO dao;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:snapshotTestDatabank;DB_CLOSE_DELAY=-1");
+        SchemaMigrator.migrate(connection);
+        dao = new DAO(connection);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void test_export_servesSameAnswersAsDatabase() throws SQLException, IOException {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            questions.add(new Question("Is " + i + " even? ü€", List.of(new Answer(i % 2 == 0 ? "Yes" : "No"),
+                    new Answer("Ask " + i), new Answer("Maybe"))));
+        }
+        dao.addQuestions(questions);
+        dao.addQuestion(new Question("Which cities are capitals?", List.of(new Answer("Rome"), new Answer("Paris"))));
+
+        Path file = directory.resolve("questions.snapshot");
+        assertEquals(2_003, QuestionSnapshot.export(dao, file));
+
+        try (QuestionSnapshot snapshot = QuestionSnapshot.open(file)) {
+            assertEquals(2_003, snapshot.size());
+            for (String questionText : List.of("Is 0 even? ü€", "Is 1999 even? ü€", "Which cities are capitals?",
+                    "What is the capital of France?", "What is 2 + 2?")) {
+                assertEquals(answerTexts(dao.getAnswersForQuestionText(questionText)),
+                        answerTexts(snapshot.getAnswersForQuestionText(questionText)), questionText);
+            }
+            assertTrue(snapshot.getAnswersForQuestionText("Is 2000 even? ü€").isEmpty());
+            assertTrue(snapshot.getAnswersForQuestionText("").isEmpty());
+
+            List<String> texts = new ArrayList<>();
+            snapshot.forEachQuestion(question -> texts.add(question.getQuestionText()));
+            assertEquals(2_003, texts.size());
+            assertEquals("Which cities are capitals?", texts.get(texts.size() - 1));
+        }
+    }
+
+    @Test
+    public void test_open_rejectsIncompleteFile() throws IOException {
+        Path file = directory.resolve("questions.snapshot");
+        QuestionSnapshot.export(dao, file);
+        try (RandomAccessFile truncated = new RandomAccessFile(file.toFile(), "rw")) {
+            truncated.setLength(truncated.length() - 8);
+        }
+
+        assertThrows(IOException.class, () -> QuestionSnapshot.open(file));
+        Files.writeString(file, "not a snapshot, but long enough to hold the header of one");
+        assertThrows(IOException.class, () -> QuestionSnapshot.open(file));
+    }
+
+    @Test
+    public void test_appService_servesSnapshotReadOnly() throws SQLException, IOException {
+        Path file = directory.resolve("questions.snapshot");
+        QuestionSnapshot.export(dao, file);
+
+        try (QuestionSnapshot snapshot = QuestionSnapshot.open(file)) {
+            AppService appService = new AppService(snapshot, null);
+
+            assertEquals(List.of("Paris", "London"),
+                    answerTexts(appService.handleAskQuestion("What is the capital of France?").getAnswers()));
+            assertEquals(AddResult.Status.READ_ONLY, appService.handleAddQuestion("Is this stored? \"No\"").getStatus());
+            assertEquals(1, appService.handleSearch("search london").getTotalHits());
+        }
+    }
+
+    private static List<String> answerTexts(List<Answer> answers) {
+        List<String> texts = new ArrayList<>();
+        for (Answer answer : answers) {
+            texts.add(answer.getAnswerText());
+        }
+        return texts;
+    }
+}
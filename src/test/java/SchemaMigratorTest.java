@@ -0,0 +1,178 @@
+import com.example.SchemaMigrator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchemaMigratorTest {
+    private Connection connection;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:migratorTestDatabank;DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void test_migrate_keepsDataOnRestart() throws SQLException {
+        assertEquals(SchemaMigrator.latestVersion(), SchemaMigrator.migrate(connection));
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO questions (question_text) VALUES ('Is this kept?')");
+        }
+
+        assertEquals(SchemaMigrator.latestVersion(), SchemaMigrator.migrate(connection));
+
+        assertEquals(3, countRows("questions"), "The seed data and the added question should be kept.");
+        assertEquals(SchemaMigrator.latestVersion(), countRows("schema_version"));
+    }
+
+    @Test
+    public void test_migrate_upgradesUnversionedDatabank() throws SQLException {
+        createUnversionedDatabank();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO questions (question_text) VALUES ('Is this kept?')");
+        }
+
+        assertEquals(SchemaMigrator.latestVersion(), SchemaMigrator.migrate(connection));
+
+        assertEquals(3, countRows("questions"), "The seed data must not be inserted into an existing databank.");
+        assertTrue(indexExists("IDX_QUESTIONS_QUESTION_TEXT"), "Lookups by text need the index of version 1.");
+        assertTrue(indexExists("IDX_QUESTION_ANSWERS_ANSWER_ID"));
+        try (Statement stmt = connection.createStatement()) {
+            assertThrows(SQLException.class,
+                    () -> stmt.execute("INSERT INTO questions (question_text) VALUES ('Is this kept?')"),
+                    "The index should reject a question stored twice.");
+        }
+    }
+
+    @Test
+    public void test_migrate_mergesQuestionsStoredTwiceInUnversionedDatabank() throws SQLException {
+        createUnversionedDatabank();
+        try (Statement stmt = connection.createStatement()) {
+            // A copy of "What is 2 + 2?" linked to "4" again and to the new answer "Four"
+            stmt.execute("INSERT INTO questions (question_text) VALUES ('What is 2 + 2?')");
+            stmt.execute("INSERT INTO answers (answer_text) VALUES ('Four')");
+            stmt.execute("INSERT INTO question_answers (question_id, answer_id) VALUES (3, 2), (3, 5)");
+        }
+
+        SchemaMigrator.migrate(connection);
+
+        assertEquals(2, countRows("questions"));
+        List<String> answers = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT a.answer_text FROM question_answers qa "
+                     + "JOIN answers a ON qa.answer_id = a.id WHERE qa.question_id = 2 ORDER BY qa.answer_position")) {
+            while (resultSet.next()) {
+                answers.add(resultSet.getString(1));
+            }
+        }
+        assertEquals(List.of("4", "5", "Four"), answers, "The answers of the copy should follow the first ones.");
+    }
+
+    @Test
+    public void test_migrate_mergesDuplicateAnswers() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("RUNSCRIPT FROM 'classpath:db/migration/V1__initial_schema.sql'");
+            // Question 3 has the answers "London" (a copy of id 3), "Paris" and "London" again
+            stmt.execute("INSERT INTO questions (question_text) VALUES ('Which cities are capitals?')");
+            stmt.execute("INSERT INTO answers (answer_text) VALUES ('London'), ('Paris'), ('London')");
+            stmt.execute("INSERT INTO question_answers (question_id, answer_id) VALUES (3, 5), (3, 6), (3, 7)");
+        }
+
+        SchemaMigrator.migrate(connection);
+
+        assertEquals(4, countRows("answers"), "Every answer text should be stored once.");
+        List<String> answers = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT a.answer_text FROM question_answers qa "
+                     + "JOIN answers a ON qa.answer_id = a.id WHERE qa.question_id = 3 ORDER BY qa.answer_position")) {
+            while (resultSet.next()) {
+                answers.add(resultSet.getString(1));
+            }
+        }
+        assertEquals(List.of("London", "Paris"), answers, "The links should keep their order.");
+    }
+
+    @Test
+    public void test_migrate_numbersAnswerPositionsWithoutGaps() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("RUNSCRIPT FROM 'classpath:db/migration/V1__initial_schema.sql'");
+            // Merging the second "London" leaves "Paris" at position 2
+            stmt.execute("INSERT INTO questions (question_text) VALUES ('Which cities are capitals?')");
+            stmt.execute("INSERT INTO answers (answer_text) VALUES ('London'), ('London'), ('Paris')");
+            stmt.execute("INSERT INTO question_answers (question_id, answer_id) VALUES (3, 5), (3, 6), (3, 7)");
+        }
+
+        SchemaMigrator.migrate(connection);
+
+        List<Integer> positions = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT answer_position FROM question_answers "
+                     + "WHERE question_id = 3 ORDER BY answer_position")) {
+            while (resultSet.next()) {
+                positions.add(resultSet.getInt(1));
+            }
+        }
+        assertEquals(List.of(0, 1), positions, "Pages of answers rely on positions without gaps.");
+    }
+
+    @Test
+    public void test_migrate_rejectsNewerDatabank() throws SQLException {
+        SchemaMigrator.migrate(connection);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("INSERT INTO schema_version (version, script) VALUES (1000, 'V1000__future.sql')");
+        }
+
+        assertThrows(SQLException.class, () -> SchemaMigrator.migrate(connection));
+    }
+
+    /**
+     * Creates the schema and seed data of the databank as the application created it before schema versioning.
+     */
+    private void createUnversionedDatabank() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE questions (id INT AUTO_INCREMENT PRIMARY KEY, question_text VARCHAR(255) NOT NULL)");
+            stmt.execute("CREATE TABLE answers (id INT AUTO_INCREMENT PRIMARY KEY, answer_text VARCHAR(255) NOT NULL)");
+            stmt.execute("CREATE TABLE question_answers (question_id INT, answer_id INT, "
+                    + "PRIMARY KEY (question_id, answer_id), "
+                    + "FOREIGN KEY (question_id) REFERENCES questions (id) ON DELETE CASCADE, "
+                    + "FOREIGN KEY (answer_id) REFERENCES answers (id) ON DELETE CASCADE)");
+            stmt.execute("INSERT INTO questions (question_text) VALUES ('What is the capital of France?'), ('What is 2 + 2?')");
+            stmt.execute("INSERT INTO answers (answer_text) VALUES ('Paris'), ('4'), ('London'), ('5')");
+            stmt.execute("INSERT INTO question_answers (question_id, answer_id) VALUES (1, 1), (1, 3), (2, 2), (2, 4)");
+        }
+    }
+
+    private boolean indexExists(String indexName) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery(
+                     "SELECT 1 FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = '" + indexName + "'")) {
+            return resultSet.next();
+        }
+    }
+
+    private int countRows(String table) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet resultSet = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import com.example.AppService;
+import com.example.DAO;
+import com.example.SchemaMigrator;
+import com.example.ScriptRunner;
+import com.example.dto.AskResult;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ScriptRunnerTest {
+    private Connection connection;
+    private AppService appService;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:scriptTestDatabank;DB_CLOSE_DELAY=-1");
+        SchemaMigrator.migrate(connection);
+        appService = new AppService(new DAO(connection));
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void test_run_treatsQuestionsStartingWithSearchAsAsksAndAdds() throws Exception {
+        String script = String.join("\n",
+                "Search engines are what? \"Google\"",
+                "Search engines are what?",
+                "Search results are sorted how?",
+                "search Google");
+        StringWriter output = new StringWriter();
+
+        new ScriptRunner(appService, 2, 2).run(new StringReader(script), output);
+
+        assertEquals(String.join("\n",
+                "Question added successfully.",
+                " - Google",
+                AskResult.DEFAULT_REPLY,
+                "Results 1-1 of 1 for: Google",
+                "1. Search engines are what?",
+                "Exiting...",
+                ""), output.toString());
+    }
+
+    @Test
+    public void test_run_repliesInScriptOrderWithoutPrompts() throws Exception {
+        String script = String.join("\n",
+                "What is 2 + 2?",
+                "Who wrote Faust? \"Goethe\"",
+                "Who wrote Faust?",
+                "Who wrote Faust? \"Schiller\"",
+                "Who wrote Hamlet \"",
+                "batch",
+                "What is 2 + 2?",
+                "  Who wrote Faust?  ",
+                "",
+                "search Faust",
+                "Who wrote Hamlet?",
+                "blah");
+        StringWriter output = new StringWriter();
+
+        // Chunks of two lines, so the runs and the batch cross chunk boundaries
+        long lines = new ScriptRunner(appService, 2, 2).run(new StringReader(script), output);
+
+        assertEquals(12, lines);
+        assertEquals(String.join("\n",
+                " - 4",
+                " - 5",
+                "Question added successfully.",
+                " - Goethe",
+                "Question already exists in the database.",
+                "Invalid command. Please enter a valid command.",
+                "What is 2 + 2?",
+                " - 4",
+                " - 5",
+                "Who wrote Faust?",
+                " - Goethe",
+                "Results 1-1 of 1 for: Faust",
+                "1. Who wrote Faust?",
+                AskResult.DEFAULT_REPLY,
+                "Unknown command. If you are having problems try help.",
+                "Exiting...",
+                ""), output.toString());
+    }
+
+    @Test
+    public void test_run_asksSeeOnlyTheAddsBeforeThem() throws Exception {
+        String script = String.join("\n",
+                "Who wrote Hamlet?",
+                "What is 2 + 2?",
+                "Who wrote Faust? \"Goethe\"",
+                "Who wrote Hamlet? \"Shakespeare\"",
+                "Who wrote Hamlet?",
+                "Who wrote Faust?");
+        StringWriter output = new StringWriter();
+
+        new ScriptRunner(appService).run(new StringReader(script), output);
+
+        assertEquals(String.join("\n",
+                AskResult.DEFAULT_REPLY,
+                " - 4",
+                " - 5",
+                "Question added successfully.",
+                "Question added successfully.",
+                " - Shakespeare",
+                " - Goethe",
+                "Exiting...",
+                ""), output.toString());
+    }
+
+    @Test
+    public void test_run_stopsAtExit() throws Exception {
+        StringWriter output = new StringWriter();
+
+        long lines = new ScriptRunner(appService, 1, 1)
+                .run(new StringReader("Who wrote Faust? \"Goethe\"\nexit\nWho wrote Hamlet? \"Shakespeare\"\n"), output);
+
+        assertEquals(2, lines);
+        assertEquals("Question added successfully.\nExiting...\n", output.toString());
+        assertFalse(appService.handleAskQuestion("Who wrote Hamlet?").isAnswered(),
+                "Nothing after exit should be executed.");
+    }
+}
@@ -0,0 +1,159 @@
+import com.example.SearchIndex;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+import com.example.dto.SearchHit;
+import com.example.dto.SearchResult;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTest {
+
+    @Test
+    public void test_search_requiresAllTermsInQuestionOrAnswers() {
+        SearchIndex index = new SearchIndex();
+        index.add(question("What is the capital of France?", "Paris"));
+        index.add(question("What is the capital of Spain?", "Madrid"));
+        index.add(question("Which river flows through Paris?", "Seine"));
+
+        SearchResult result = index.search("Capital, PARIS!", 1, 10);
+
+        assertEquals(1, result.getTotalHits());
+        assertEquals("What is the capital of France?", result.getHits().get(0).getQuestionText());
+        assertEquals(0, index.search("capital tokyo", 1, 10).getTotalHits());
+        assertEquals(0, index.search("?!", 1, 10).getTotalHits());
+    }
+
+    @Test
+    public void test_contains_findsOnlyIndexedQuestions() {
+        SearchIndex index = new SearchIndex();
+        index.add(question("What is the capital of France?", "Paris"));
+        index.add(question("?!", "Nothing"));
+
+        assertTrue(index.contains("What is the capital of France?"));
+        assertFalse(index.contains("What is the capital of France"), "A question is found by its whole text.");
+        assertFalse(index.contains("Is Paris the capital of France?"));
+        assertTrue(index.contains("?!"), "A question without words should be found as well.");
+    }
+
+    @Test
+    public void test_search_ranksRareAndRepeatedTermsFirst() {
+        SearchIndex index = new SearchIndex();
+        index.add(question("What is the capital of France?", "Paris"));
+        index.add(question("What is Paris known for?", "Paris is known for the Eiffel tower"));
+        index.add(question("What is the population of the capital of France and of its surroundings?", "12 million"));
+
+        List<SearchHit> hits = index.search("what is paris", 1, 10).getHits();
+
+        assertEquals(2, hits.size());
+        assertEquals("What is Paris known for?", hits.get(0).getQuestionText());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    public void test_search_pagesMatchExhaustiveRanking() {
+        // The pages of the galloping search must match scoring every question, without overlaps or gaps
+        Random random = new Random(7);
+        String[] words = {"red", "green", "blue", "cat", "dog", "bird", "fast", "slow", "big", "small"};
+        SearchIndex index = new SearchIndex();
+        List<List<String>> documents = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            List<String> document = randomWords(random, words, 1 + random.nextInt(8));
+            documents.add(document);
+            index.add(question(String.join(" ", document) + " " + i + "?"));
+            // The number is a word of the question as well
+            document.add(String.valueOf(i));
+        }
+
+        for (int q = 0; q < 50; q++) {
+            List<String> terms = randomWords(random, words, 1 + random.nextInt(2));
+            List<double[]> expected = exhaustiveRanking(documents, terms);
+
+            List<SearchHit> hits = new ArrayList<>();
+            for (int page = 1; ; page++) {
+                SearchResult result = index.search(String.join(" ", terms), page, 7);
+                assertEquals(expected.size(), result.getTotalHits(), "Wrong total for: " + terms);
+                if (result.getHits().isEmpty()) {
+                    break;
+                }
+                hits.addAll(result.getHits());
+            }
+
+            assertEquals(expected.size(), hits.size(), "Wrong number of hits for: " + terms);
+            for (int rank = 0; rank < hits.size(); rank++) {
+                assertEquals(expected.get(rank)[1], hits.get(rank).getScore(), 1e-9, "Wrong score for: " + terms);
+                String number = String.valueOf((int) expected.get(rank)[0]);
+                assertTrue(hits.get(rank).getQuestionText().endsWith(" " + number + "?"), "Wrong hit for: " + terms);
+            }
+        }
+    }
+
+    @Test
+    public void test_search_countsHitsBeyondResultWindow() {
+        SearchIndex index = new SearchIndex();
+        for (int i = 0; i < SearchIndex.MAX_RESULT_WINDOW + 5; i++) {
+            index.add(question("Is " + i + " a number?"));
+        }
+
+        int lastPage = SearchIndex.MAX_RESULT_WINDOW / 100;
+        assertEquals(100, index.search("number", lastPage, 100).getHits().size());
+        SearchResult beyond = index.search("number", lastPage + 1, 100);
+        assertTrue(beyond.getHits().isEmpty());
+        assertEquals(SearchIndex.MAX_RESULT_WINDOW + 5, beyond.getTotalHits());
+    }
+
+    private static Question question(String text, String... answers) {
+        List<Answer> answerList = new ArrayList<>();
+        for (String answer : answers) {
+            answerList.add(new Answer(answer));
+        }
+        return new Question(text, answerList);
+    }
+
+    private static List<String> randomWords(Random random, String[] words, int count) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(words[random.nextInt(words.length)]);
+        }
+        return result;
+    }
+
+    /**
+     * Scores every document containing all terms with BM25, returns {document number, score}, the best first.
+     */
+    private static List<double[]> exhaustiveRanking(List<List<String>> documents, List<String> terms) {
+        List<String> distinct = terms.stream().distinct().toList();
+        double averageLength = documents.stream().mapToInt(List::size).average().orElse(1);
+        double[] idfs = new double[distinct.size()];
+        for (int t = 0; t < distinct.size(); t++) {
+            String term = distinct.get(t);
+            long frequency = documents.stream().filter(d -> d.contains(term)).count();
+            idfs[t] = Math.log(1 + (documents.size() - frequency + 0.5) / (frequency + 0.5));
+        }
+
+        List<double[]> ranking = new ArrayList<>();
+        for (int i = 0; i < documents.size(); i++) {
+            List<String> document = documents.get(i);
+            double score = 0;
+            boolean all = true;
+            for (int t = 0; t < distinct.size(); t++) {
+                String term = distinct.get(t);
+                long frequency = document.stream().filter(term::equals).count();
+                all &= frequency > 0;
+                double lengthNorm = 1.2 * (1 - 0.75 + 0.75 * document.size() / averageLength);
+                score += idfs[t] * frequency * 2.2 / (frequency + lengthNorm);
+            }
+            if (all) {
+                ranking.add(new double[]{i, score});
+            }
+        }
+        ranking.sort(Comparator.<double[]>comparingDouble(r -> -r[1]).thenComparingDouble(r -> r[0]));
+        return ranking;
+    }
+}
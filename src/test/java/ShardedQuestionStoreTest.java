@@ -0,0 +1,136 @@
+import com.example.DAO;
+import com.example.ShardedQuestionStore;
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedQuestionStoreTest {
+    private static final int SHARDS = 4;
+
+    private final List<String> jdbcUrls = new ArrayList<>();
+    private ShardedQuestionStore store;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        for (int i = 0; i < SHARDS; i++) {
+            jdbcUrls.add("jdbc:h2:mem:shardTestDatabank" + i + ";DB_CLOSE_DELAY=-1");
+        }
+        store = ShardedQuestionStore.open(jdbcUrls);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        store.close();
+        for (String jdbcUrl : jdbcUrls) {
+            try (Connection connection = DriverManager.getConnection(jdbcUrl, "sa", "");
+                 Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    @Test
+    public void test_open_keepsEverySeedQuestionInOneShard() throws SQLException {
+        assertEquals(2, countStoredPerShard().stream().mapToInt(Integer::intValue).sum(),
+                "The seed questions should only be kept in the shard they belong to.");
+        assertEquals(List.of("4", "5"),
+                store.getAnswersForQuestionText("What is 2 + 2?").stream().map(Answer::getAnswerText).toList());
+        assertTrue(store.isQuestionStored("What is the capital of France?"));
+    }
+
+    @Test
+    public void test_addQuestionsIfAbsent_routesQuestionsAcrossShards() throws SQLException {
+        List<Question> questions = new ArrayList<>();
+        List<String> questionTexts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            questions.add(new Question("Question " + i + "?", List.of(new Answer("Answer " + i))));
+            questionTexts.add("Question " + i + "?");
+        }
+        questions.add(new Question("What is 2 + 2?", List.of(new Answer("4"))));
+
+        List<AddResult.Status> statuses = store.addQuestionsIfAbsent(questions);
+
+        assertEquals(101, statuses.size());
+        assertTrue(statuses.subList(0, 100).stream().allMatch(status -> status == AddResult.Status.ADDED));
+        assertEquals(AddResult.Status.ALREADY_EXISTS, statuses.get(100));
+        assertTrue(countStoredPerShard().stream().allMatch(count -> count > 0),
+                "Every shard should hold some of the questions.");
+
+        Map<String, List<Answer>> answers = store.getAnswersForQuestionTexts(questionTexts);
+        assertEquals(questionTexts, List.copyOf(answers.keySet()), "Answers should be returned in the order asked.");
+        assertEquals("Answer 42", answers.get("Question 42?").get(0).getAnswerText());
+        assertEquals(AddResult.Status.ALREADY_EXISTS,
+                store.addQuestionIfAbsent(new Question("Question 7?", List.of(new Answer("Other")))));
+
+        Set<String> scanned = new HashSet<>();
+        assertTrue(store.forEachQuestion(question -> scanned.add(question.getQuestionText())));
+        assertEquals(102, scanned.size());
+        assertTrue(scanned.containsAll(questionTexts));
+    }
+
+    @Test
+    public void test_open_findsQuestionsInTheirShardAfterReopening() throws SQLException {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(store.addQuestion(new Question("Reopened " + i + "?", List.of(new Answer("Yes")))));
+        }
+        store.close();
+
+        store = ShardedQuestionStore.open(jdbcUrls);
+
+        for (int i = 0; i < 20; i++) {
+            assertTrue(store.isQuestionStored("Reopened " + i + "?"));
+        }
+        assertEquals(22, countStoredPerShard().stream().mapToInt(Integer::intValue).sum(),
+                "Reopening should neither lose nor seed questions.");
+    }
+
+    @Test
+    public void test_open_refusesAnotherNumberOfShards() throws SQLException {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(store.addQuestion(new Question("Kept " + i + "?", List.of(new Answer("Yes")))));
+        }
+        store.close();
+        List<String> fewerUrls = List.copyOf(jdbcUrls.subList(0, SHARDS - 1));
+        List<String> moreUrls = new ArrayList<>(jdbcUrls);
+        moreUrls.add("jdbc:h2:mem:shardTestDatabank" + SHARDS + ";DB_CLOSE_DELAY=-1");
+        jdbcUrls.add(moreUrls.get(SHARDS));
+
+        assertThrows(SQLException.class, () -> ShardedQuestionStore.open(fewerUrls));
+        assertThrows(SQLException.class, () -> ShardedQuestionStore.open(moreUrls));
+        store = ShardedQuestionStore.open(jdbcUrls.subList(0, SHARDS));
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(store.isQuestionStored("Kept " + i + "?"));
+        }
+        assertEquals(102, countStoredPerShard().subList(0, SHARDS).stream().mapToInt(Integer::intValue).sum(),
+                "Refused opens must not remove any question.");
+    }
+
+    private List<Integer> countStoredPerShard() throws SQLException {
+        List<Integer> counts = new ArrayList<>();
+        for (String jdbcUrl : jdbcUrls) {
+            DAO shard = new DAO(jdbcUrl);
+            int[] count = new int[1];
+            shard.forEachQuestionText(questionText -> count[0]++);
+            shard.getConnectionPool().close();
+            counts.add(count[0]);
+        }
+        return counts;
+    }
+}
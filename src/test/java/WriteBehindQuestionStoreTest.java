@@ -0,0 +1,99 @@
+import com.example.DAO;
+import com.example.InMemoryQuestionStore;
+import com.example.SchemaMigrator;
+import com.example.WriteBehindQuestionStore;
+import com.example.dto.AddResult;
+import com.example.dto.Answer;
+import com.example.dto.Question;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindQuestionStoreTest {
+
+    @Test
+    public void test_addQuestionAsync_groupsAddsQueuedDuringACommit() throws Exception {
+        CountDownLatch firstCommitStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstCommit = new CountDownLatch(1);
+        List<Integer> groupSizes = new ArrayList<>();
+        InMemoryQuestionStore slowStore = new InMemoryQuestionStore() {
+            @Override
+            public List<AddResult.Status> addQuestionsIfAbsent(List<Question> questions) throws SQLException {
+                groupSizes.add(questions.size());
+                firstCommitStarted.countDown();
+                try {
+                    releaseFirstCommit.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.addQuestionsIfAbsent(questions);
+            }
+        };
+
+        try (WriteBehindQuestionStore store = new WriteBehindQuestionStore(slowStore, 100, 3, Duration.ZERO)) {
+            CompletableFuture<AddResult.Status> first = store.addQuestionAsync(question("Question 0?"));
+            assertTrue(firstCommitStarted.await(5, TimeUnit.SECONDS));
+            List<CompletableFuture<AddResult.Status>> queued = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) {
+                queued.add(store.addQuestionAsync(question("Question " + i + "?")));
+            }
+            queued.add(store.addQuestionAsync(question("Question 1?")));
+            assertFalse(first.isDone(), "The add should only be acknowledged once it is committed.");
+
+            releaseFirstCommit.countDown();
+            assertEquals(AddResult.Status.ADDED, first.get(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 4; i++) {
+                assertEquals(AddResult.Status.ADDED, queued.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(AddResult.Status.ALREADY_EXISTS, queued.get(4).get(5, TimeUnit.SECONDS));
+            assertEquals(List.of(1, 3, 2), groupSizes, "The queued adds should be committed in groups of at most three.");
+            assertEquals(3, store.getCommitCount());
+            assertEquals(6, store.getCommittedAddCount());
+            assertTrue(store.isQuestionStored("Question 4?"));
+        }
+    }
+
+    @Test
+    public void test_close_commitsQueuedAddsToTheDatabase() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:writeBehindTestDatabank;DB_CLOSE_DELAY=-1")) {
+            SchemaMigrator.migrate(connection);
+            DAO dao = new DAO(connection);
+            WriteBehindQuestionStore store = new WriteBehindQuestionStore(dao, 1_000, 64, Duration.ofMillis(50));
+
+            List<CompletableFuture<AddResult.Status>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                results.add(store.addQuestionAsync(question("Write-behind question " + i + "?")));
+            }
+            assertEquals(AddResult.Status.ALREADY_EXISTS, store.addQuestionIfAbsent(question("What is 2 + 2?")));
+            store.close();
+
+            for (CompletableFuture<AddResult.Status> result : results) {
+                assertEquals(AddResult.Status.ADDED, result.getNow(null), "Closing should commit every queued add.");
+            }
+            assertTrue(store.getCommitCount() < 201, "The adds should have shared commits.");
+            assertTrue(dao.isQuestionStored("Write-behind question 199?"));
+            assertEquals(AddResult.Status.FAILED, store.addQuestionAsync(question("Too late?")).get());
+            assertFalse(dao.isQuestionStored("Too late?"));
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+
+    private static Question question(String questionText) {
+        return new Question(questionText, List.of(new Answer("Yes")));
+    }
+}